@@ -0,0 +1,17 @@
+package ie.ul.cs4297.article.model;
+
+/**
+ * One row of the article_changes log. {@code article} is null when the row no longer exists (deleted);
+ * {@code crawledAt} is the article's crawl time in epoch millis, or 0 for deletes.
+ */
+public record ArticleChange(
+        long seq,
+        char op,
+        long articleId,
+        Article article,
+        long crawledAt
+) {
+    public boolean isDelete() {
+        return article == null;
+    }
+}
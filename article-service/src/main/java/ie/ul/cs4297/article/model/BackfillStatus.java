@@ -0,0 +1,18 @@
+package ie.ul.cs4297.article.model;
+
+import java.util.List;
+
+/** Snapshot of a backfill run, returned by the admin endpoint. */
+public record BackfillStatus(
+        String state,          // idle | running | done | cancelled | failed
+        long minId,
+        long maxId,
+        int rangesTotal,
+        int rangesDone,
+        long rowsRead,
+        long published,
+        long failed,
+        List<String> failedRanges,   // ids not published, "first-last" or a single id
+        long elapsedMs,
+        double rowsPerSecond
+) {}
@@ -0,0 +1,63 @@
+package ie.ul.cs4297.article.service;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks which published positions (article ids or change-log seqs) the broker has acknowledged.
+ *
+ * Positions are registered in increasing order as they are sent and removed when their send
+ * completes. {@link #committed()} is the highest position below which everything has been
+ * acknowledged, so a checkpoint built from it never skips an unacknowledged record even when
+ * acks arrive out of order.
+ *
+ * Callbacks carry the generation they were sent under; after a {@link #reset} (rewind) late
+ * callbacks from the previous generation are ignored.
+ */
+public class AckTracker {
+
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private long frontier;      // highest position read so far
+    private long generation;
+    private boolean failed;
+
+    public AckTracker(long position) {
+        this.frontier = position;
+    }
+
+    /** Forget everything in flight and continue from {@code position}. */
+    public synchronized void reset(long position) {
+        pending.clear();
+        frontier = position;
+        failed = false;
+        generation++;
+    }
+
+    public synchronized long generation() { return generation; }
+
+    public synchronized void register(long position) {
+        pending.add(position);
+        frontier = Math.max(frontier, position);
+    }
+
+    /** Move the read frontier past positions that were read but not sent (e.g. collapsed duplicates). */
+    public synchronized void advance(long position) {
+        frontier = Math.max(frontier, position);
+    }
+
+    public synchronized void ack(long gen, long position) {
+        if (gen == generation) pending.remove(position);
+    }
+
+    public synchronized void fail(long gen, long position) {
+        if (gen == generation) failed = true;
+    }
+
+    public synchronized boolean hasFailed() { return failed; }
+
+    public synchronized int inFlight() { return pending.size(); }
+
+    /** Highest position such that it and everything before it has been acknowledged. */
+    public synchronized long committed() {
+        return pending.isEmpty() ? frontier : pending.first() - 1;
+    }
+}
@@ -1,63 +1,98 @@
 package ie.ul.cs4297.article.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ie.ul.cs4297.article.model.Article;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@ConditionalOnProperty(name = "app.capture-mode", havingValue = "poll")
 public class ArticlePublisher {
 
+    private record Row(Article article, long crawledAt) {}
+
     private final JdbcTemplate jdbc;
-    private final KafkaTemplate<String, String> kafka;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ArticleEventCodec codec;
     private final String topic;
-    private final AtomicLong lastSeenId = new AtomicLong(0);
+    private final PublishPipeline pipeline;
+    private long readPos;   // last id read from MySQL (may be ahead of the acknowledged checkpoint)
 
     public ArticlePublisher(
             JdbcTemplate jdbc,
-            KafkaTemplate<String, String> kafka,
-            @Value("${app.kafka-topic}") String topic
+            KafkaTemplate<String, byte[]> kafka,
+            ArticleEventCodec codec,
+            CheckpointStore checkpoints,
+            @Value("${app.kafka-topic}") String topic,
+            @Value("${app.publisher.start-from:earliest}") String startFrom,
+            @Value("${app.publisher.max-in-flight:5000}") int maxInFlight,
+            MeterRegistry registry
     ) {
         this.jdbc = jdbc;
-        this.kafka = kafka;
+        this.codec = codec;
         this.topic = topic;
-
-        Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id),0) FROM articles", Long.class);
-        lastSeenId.set(max == null ? 0 : max);
-        System.out.println("[ArticleService] starting at lastSeenId=" + lastSeenId.get());
+        this.pipeline = new PublishPipeline("articles-id", kafka, checkpoints, maxInFlight, () -> {
+            if (!"latest".equals(startFrom)) return 0L;
+            return maxId();
+        }, registry);
+        this.readPos = pipeline.checkpoint();
     }
 
-    public int publishNew() {
-        long fromId = lastSeenId.get();
-        List<Article> rows = jdbc.query(
-                "SELECT id,title,content,tags,source_url FROM articles WHERE id > ? ORDER BY id ASC LIMIT 500",
-                (rs, i) -> new Article(
-                        rs.getLong("id"),
-                        rs.getString("title"),
-                        rs.getString("content"),
-                        rs.getString("tags"),
-                        rs.getString("source_url")
-                ),
+    public synchronized int publishNew() {
+        long fromId = pipeline.nextReadPosition(readPos);
+        if (fromId < 0) return 0; // too much unacknowledged: let the producer catch up
+        readPos = fromId;
+        pipeline.head(maxId());
+
+        List<Row> rows = jdbc.query(
+                "SELECT id,title,content,tags,source_url,crawled_at FROM articles WHERE id > ? ORDER BY id ASC LIMIT 500",
+                (rs, i) -> {
+                    Timestamp crawledAt = rs.getTimestamp("crawled_at");
+                    return new Row(new Article(
+                            rs.getLong("id"),
+                            rs.getString("title"),
+                            rs.getString("content"),
+                            rs.getString("tags"),
+                            rs.getString("source_url")
+                    ), crawledAt == null ? 0 : crawledAt.getTime());
+                },
                 fromId
         );
         int count = 0;
-        for (Article a : rows) {
+        for (Row row : rows) {
+            Article a = row.article();
             try {
-                String json = mapper.writeValueAsString(a);
-                kafka.send(topic, String.valueOf(a.id()), json);
-                lastSeenId.set(a.id());
+                pipeline.send(a.id(), codec.upsert(topic, a, row.crawledAt()));
                 count++;
             } catch (Exception e) {
+                // unserialisable row: skip it rather than stall the checkpoint forever
                 System.err.println("[ArticleService] publish error id=" + a.id() + " -> " + e.getMessage());
+                pipeline.skip(a.id());
             }
+            readPos = a.id();
+        }
+        long committed = pipeline.checkpoint();
+        if (count > 0) {
+            pipeline.published(count, 0);
+            System.out.println("[ArticleService] published " + count + " new articles (to " + topic
+                    + "), checkpoint at id=" + committed);
         }
-        if (count > 0) System.out.println("[ArticleService] published " + count + " new articles (to " + topic + ")");
         return count;
     }
+
+    private long maxId() {
+        Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id),0) FROM articles", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        System.out.println("[ArticleService] stopping, checkpoint at id=" + pipeline.drain());
+    }
 }
@@ -0,0 +1,298 @@
+package ie.ul.cs4297.article.service;
+
+import ie.ul.cs4297.article.model.Article;
+import ie.ul.cs4297.article.model.BackfillStatus;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Republishes the whole {@code articles} table, e.g. after a mapping change or a lost index.
+ *
+ * The id space is split into ranges that parallel workers stream with keyset pagination
+ * ({@code id > ? AND id <= ? ORDER BY id LIMIT ?}) over forward-only, read-only result sets
+ * with MySQL row streaming, so no page is ever materialised as a list. Outstanding Kafka sends
+ * are capped by a semaphore, which bounds memory no matter how large the table is.
+ *
+ * Every worker holds a pooled connection while it streams, so workers are capped at the Hikari
+ * pool size minus {@code app.backfill.reserved-connections} (change capture, checkpoints).
+ * A range whose query fails is resumed from the last id read, up to {@code range-attempts}
+ * times. Ids that still could not be published (failed ranges, failed sends) are listed in the
+ * status as {@code failedRanges}, and the run ends as {@code failed} instead of {@code done}.
+ */
+@Service
+public class BackfillService {
+
+    private static final String PAGE_SQL =
+            "SELECT id,title,content,tags,source_url FROM articles WHERE id > ? AND id <= ? ORDER BY id ASC LIMIT ?";
+
+    private final JdbcTemplate jdbc;
+    private final KafkaTemplate<String, byte[]> kafka;
+    private final ArticleEventCodec codec;
+    private final String topic;
+    private final int pageSize;
+    private final int maxInFlight;
+    private final int maxWorkers;
+    private final int rangeAttempts;
+
+    private volatile Run current;
+
+    public BackfillService(
+            JdbcTemplate jdbc,
+            KafkaTemplate<String, byte[]> kafka,
+            ArticleEventCodec codec,
+            @Value("${app.kafka-topic}") String topic,
+            @Value("${app.backfill.page-size:5000}") int pageSize,
+            @Value("${app.backfill.max-in-flight:10000}") int maxInFlight,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.backfill.reserved-connections:2}") int reservedConnections,
+            @Value("${app.backfill.range-attempts:3}") int rangeAttempts
+    ) {
+        this.jdbc = jdbc;
+        this.kafka = kafka;
+        this.codec = codec;
+        this.topic = topic;
+        this.pageSize = pageSize;
+        this.maxInFlight = maxInFlight;
+        this.maxWorkers = Math.max(1, poolSize - reservedConnections);
+        this.rangeAttempts = Math.max(1, rangeAttempts);
+    }
+
+    /** Most workers a run may use: one pooled connection each, leaving the reserved ones free. */
+    public int maxWorkers() { return maxWorkers; }
+
+    /**
+     * Start a backfill unless one is already running. Returns the current status either way.
+     *
+     * @throws IllegalArgumentException if {@code workers} is above {@link #maxWorkers()}
+     */
+    public synchronized BackfillStatus start(int workers, int ranges) {
+        if (workers > maxWorkers) {
+            throw new IllegalArgumentException("workers must be at most " + maxWorkers
+                    + " (connection pool size minus reserved connections)");
+        }
+        if (current != null && current.state.equals("running")) return current.status();
+
+        Map<String, Object> bounds = jdbc.queryForMap("SELECT COALESCE(MIN(id),0) AS lo, COALESCE(MAX(id),0) AS hi FROM articles");
+        long lo = ((Number) bounds.get("lo")).longValue();
+        long hi = ((Number) bounds.get("hi")).longValue();
+
+        Run run = new Run(Math.max(1, workers), Math.max(1, ranges), lo, hi);
+        current = run;
+        run.launch();
+        return run.status();
+    }
+
+    public BackfillStatus status() {
+        Run run = current;
+        return run == null ? new BackfillStatus("idle", 0, 0, 0, 0, 0, 0, 0, List.of(), 0, 0) : run.status();
+    }
+
+    public BackfillStatus cancel() {
+        Run run = current;
+        if (run != null) run.cancel();
+        return status();
+    }
+
+    /** One backfill execution. */
+    private final class Run {
+        final int workers;
+        final long minId, maxId;
+        final int rangesTotal;
+        final long startedAt = System.nanoTime();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final AtomicInteger rangesDone = new AtomicInteger();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong published = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final TreeMap<Long, Long> failedIds = new TreeMap<>();   // first -> last id (inclusive) not published
+        volatile String state = "running";
+        volatile long finishedAt;
+        ExecutorService pool;
+
+        Run(int workers, int ranges, long minId, long maxId) {
+            this.workers = workers;
+            this.minId = minId;
+            this.maxId = maxId;
+            long span = Math.max(0, maxId - minId + 1);
+            this.rangesTotal = (int) Math.max(1, Math.min(ranges, span));
+        }
+
+        void launch() {
+            AtomicInteger ids = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "backfill-" + ids.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+            long span = Math.max(0, maxId - minId + 1);
+            long step = Math.max(1, (span + rangesTotal - 1) / rangesTotal);
+            for (int i = 0; i < rangesTotal; i++) {
+                long from = minId - 1 + i * step;               // exclusive
+                long to = Math.min(maxId, from + step);         // inclusive
+                pool.submit(() -> streamRange(from, to));
+            }
+            pool.shutdown();
+
+            Thread monitor = new Thread(this::awaitCompletion, "backfill-monitor");
+            monitor.setDaemon(true);
+            monitor.start();
+            System.out.println("[Backfill] started: ids " + minId + ".." + maxId + " in " + rangesTotal
+                    + " ranges on " + workers + " workers");
+        }
+
+        void streamRange(long fromExclusive, long toInclusive) {
+            long[] cursor = {fromExclusive};   // last id read, kept across retries
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    streamPages(cursor, toInclusive);
+                    break;
+                } catch (Exception e) {
+                    System.err.println("[Backfill] range (" + fromExclusive + ", " + toInclusive + "] failed at id="
+                            + cursor[0] + " (attempt " + attempt + "/" + rangeAttempts + ") -> " + e.getMessage());
+                    if (attempt == rangeAttempts) {
+                        markFailed(cursor[0] + 1, toInclusive);
+                        return;
+                    }
+                }
+            }
+            int done = rangesDone.incrementAndGet();
+            System.out.println("[Backfill] range (" + fromExclusive + ", " + toInclusive + "] done ("
+                    + done + "/" + rangesTotal + "), " + String.format("%.0f", status().rowsPerSecond()) + " rows/s");
+        }
+
+        /** Stream {@code (cursor[0], toInclusive]} page by page, moving {@code cursor[0]} past every row read. */
+        void streamPages(long[] cursor, long toInclusive) {
+            while (state.equals("running") && cursor[0] < toInclusive) {
+                long pageStart = cursor[0];
+                jdbc.query(
+                        con -> {
+                            PreparedStatement ps = con.prepareStatement(PAGE_SQL,
+                                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                            ps.setFetchSize(Integer.MIN_VALUE); // Connector/J: stream rows instead of buffering the page
+                            ps.setLong(1, pageStart);
+                            ps.setLong(2, toInclusive);
+                            ps.setInt(3, pageSize);
+                            return ps;
+                        },
+                        (ResultSet rs) -> {
+                            long id = rs.getLong("id");
+                            publish(id, rs);
+                            cursor[0] = id;
+                        });
+                if (cursor[0] == pageStart) break; // empty page: range exhausted
+            }
+        }
+
+        /** Remember that ids {@code first..last} were not published, merging with adjacent runs. */
+        synchronized void markFailed(long first, long last) {
+            Map.Entry<Long, Long> before = failedIds.floorEntry(first);
+            if (before != null && before.getValue() >= first - 1) {
+                first = before.getKey();
+                last = Math.max(last, before.getValue());
+            }
+            Map.Entry<Long, Long> after = failedIds.ceilingEntry(first);
+            while (after != null && after.getKey() <= last + 1) {
+                last = Math.max(last, after.getValue());
+                failedIds.remove(after.getKey());
+                after = failedIds.ceilingEntry(first);
+            }
+            failedIds.put(first, last);
+        }
+
+        synchronized List<String> failedRanges() {
+            List<String> ranges = new ArrayList<>(failedIds.size());
+            failedIds.forEach((first, last) -> ranges.add(first.equals(last) ? first.toString() : first + "-" + last));
+            return ranges;
+        }
+
+        void publish(long id, ResultSet rs) throws SQLException {
+            rowsRead.incrementAndGet();
+            ProducerRecord<String, byte[]> record;
+            try {
+                record = codec.upsert(topic, new Article(
+                        id,
+                        rs.getString("title"),
+                        rs.getString("content"),
+                        rs.getString("tags"),
+                        rs.getString("source_url")));
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                markFailed(id, id);
+                return;
+            }
+
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("interrupted", e);
+            }
+            try {
+                kafka.send(record).whenComplete((r, ex) -> {
+                    inFlight.release();
+                    if (ex == null) {
+                        published.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                        markFailed(id, id);
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                failed.incrementAndGet();
+                markFailed(id, id);
+            }
+        }
+
+        void awaitCompletion() {
+            try {
+                while (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                    BackfillStatus s = status();
+                    System.out.println("[Backfill] progress: " + s.rangesDone() + "/" + s.rangesTotal() + " ranges, "
+                            + s.published() + " published, " + String.format("%.0f", s.rowsPerSecond()) + " rows/s");
+                }
+                kafka.flush();
+                inFlight.acquire(maxInFlight); // every send has completed
+                inFlight.release(maxInFlight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finishedAt = System.nanoTime();
+            if (state.equals("running")) state = failedRanges().isEmpty() ? "done" : "failed";
+            BackfillStatus s = status();
+            System.out.println("[Backfill] " + s.state() + ": " + s.published() + " published, " + s.failed()
+                    + " failed in " + s.elapsedMs() + " ms (" + String.format("%.0f", s.rowsPerSecond()) + " rows/s)"
+                    + (s.failedRanges().isEmpty() ? "" : ", ids not published: " + s.failedRanges()));
+        }
+
+        void cancel() {
+            if (state.equals("running")) state = "cancelled";
+        }
+
+        BackfillStatus status() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - startedAt));
+            long pub = published.get();
+            return new BackfillStatus(state, minId, maxId, rangesTotal, rangesDone.get(),
+                    rowsRead.get(), pub, failed.get(), failedRanges(), elapsedMs, pub * 1000.0 / elapsedMs);
+        }
+    }
+}
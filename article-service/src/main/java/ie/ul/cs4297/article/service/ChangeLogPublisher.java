@@ -0,0 +1,180 @@
+package ie.ul.cs4297.article.service;
+
+import ie.ul.cs4297.article.model.Article;
+import ie.ul.cs4297.article.model.ArticleChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes inserts, updates and deletes from the trigger-fed {@code article_changes} log.
+ *
+ * Inserts and updates are sent as the current article (the indexer overwrites by id);
+ * deletes are sent as Kafka tombstones (key = article id, null value). Several changes to the
+ * same article inside one batch collapse into a single event carrying its latest state.
+ *
+ * Sends are pipelined through a {@link PublishPipeline}: the seq checkpoint only moves over
+ * acknowledged events and is persisted, so a restart resumes exactly where delivery stopped.
+ *
+ * {@code seq} is AUTO_INCREMENT, so it is handed out when a transaction inserts, not when it
+ * commits: seq 8 can become visible before seq 7. Reading stops at the first missing seq and
+ * waits for it; only after {@code app.changelog.gap-grace-ms} without it is the gap taken to be
+ * a rolled-back transaction and skipped. Without that, a late commit below the checkpoint would
+ * never be read.
+ */
+@Service
+@ConditionalOnProperty(name = "app.capture-mode", havingValue = "changelog", matchIfMissing = true)
+public class ChangeLogPublisher {
+
+    private static final String CHANGES_SQL = """
+            SELECT c.seq, c.op, c.article_id, a.id AS live_id, a.title, a.content, a.tags, a.source_url, a.crawled_at
+            FROM article_changes c
+            LEFT JOIN articles a ON a.id = c.article_id
+            WHERE c.seq > ?
+            ORDER BY c.seq ASC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ArticleEventCodec codec;
+    private final String topic;
+    private final int batchSize;
+    private final PublishPipeline pipeline;
+    private final long gapGraceMs;
+    private long readSeq;   // last seq read (may be ahead of the acknowledged checkpoint)
+    private long gapSeq = -1;   // first missing seq being waited for, -1 = none
+    private long gapSince;
+
+    public ChangeLogPublisher(
+            JdbcTemplate jdbc,
+            KafkaTemplate<String, byte[]> kafka,
+            ArticleEventCodec codec,
+            CheckpointStore checkpoints,
+            @Value("${app.kafka-topic}") String topic,
+            @Value("${app.changelog.batch-size:500}") int batchSize,
+            @Value("${app.publisher.start-from:earliest}") String startFrom,
+            @Value("${app.publisher.max-in-flight:5000}") int maxInFlight,
+            @Value("${app.changelog.gap-grace-ms:5000}") long gapGraceMs,
+            MeterRegistry registry
+    ) {
+        this.jdbc = jdbc;
+        this.codec = codec;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.gapGraceMs = gapGraceMs;
+        this.pipeline = new PublishPipeline("article-changes", kafka, checkpoints, maxInFlight, () -> {
+            if (!"latest".equals(startFrom)) return 0L;
+            return maxSeq();
+        }, registry);
+        this.readSeq = pipeline.checkpoint();
+    }
+
+    public int batchSize() { return batchSize; }
+
+    /** Publish the next batch of changes. Returns the number of change-log rows consumed. */
+    public synchronized int publishChanges() {
+        long fromSeq = pipeline.nextReadPosition(readSeq);
+        if (fromSeq < 0) return 0; // too much unacknowledged: let the producer catch up
+        readSeq = fromSeq;
+        pipeline.head(maxSeq());
+
+        List<ArticleChange> rows = jdbc.query(CHANGES_SQL,
+                (rs, i) -> {
+                    long articleId = rs.getLong("article_id");
+                    Article article = (rs.getObject("live_id") == null) ? null : new Article(
+                            articleId,
+                            rs.getString("title"),
+                            rs.getString("content"),
+                            rs.getString("tags"),
+                            rs.getString("source_url")
+                    );
+                    Timestamp crawledAt = rs.getTimestamp("crawled_at");
+                    return new ArticleChange(rs.getLong("seq"), rs.getString("op").charAt(0), articleId, article,
+                            crawledAt == null ? 0 : crawledAt.getTime());
+                },
+                fromSeq, batchSize
+        );
+        rows = contiguous(fromSeq, rows);
+        if (rows.isEmpty()) {
+            pipeline.checkpoint();
+            return 0;
+        }
+
+        // keep only the latest change per article, in change-log order
+        Map<Long, ArticleChange> latest = new LinkedHashMap<>();
+        for (ArticleChange c : rows) {
+            latest.remove(c.articleId());
+            latest.put(c.articleId(), c);
+        }
+
+        int upserts = 0, deletes = 0;
+        for (ArticleChange c : latest.values()) {
+            try {
+                if (c.isDelete()) {
+                    pipeline.send(c.seq(), codec.tombstone(topic, c.articleId()));
+                    deletes++;
+                } else {
+                    pipeline.send(c.seq(), codec.upsert(topic, c.article(), c.crawledAt()));
+                    upserts++;
+                }
+            } catch (Exception e) {
+                // unserialisable row: skip it rather than stall the checkpoint forever
+                System.err.println("[ArticleService] publish error id=" + c.articleId() + " -> " + e.getMessage());
+            }
+        }
+        readSeq = rows.get(rows.size() - 1).seq();
+        pipeline.skip(readSeq); // collapsed changes below the last seq need no ack of their own
+        long committed = pipeline.checkpoint();
+        pipeline.published(upserts, deletes);
+
+        System.out.println("[ArticleService] published " + upserts + " upserts, " + deletes
+                + " deletes from " + rows.size() + " changes (to " + topic + "), checkpoint at seq=" + committed);
+        return rows.size();
+    }
+
+    /**
+     * The leading rows with no seq missing after {@code fromSeq}. A gap is crossed only once it
+     * has stayed open for the grace period; until then the rows behind it wait for the next poll.
+     */
+    private List<ArticleChange> contiguous(long fromSeq, List<ArticleChange> rows) {
+        long expected = fromSeq + 1;
+        for (int i = 0; i < rows.size(); i++) {
+            long seq = rows.get(i).seq();
+            if (seq != expected && !gapExpired(expected, seq)) return rows.subList(0, i);
+            expected = seq + 1;
+        }
+        return rows;
+    }
+
+    private boolean gapExpired(long missing, long next) {
+        long now = System.currentTimeMillis();
+        if (gapSeq != missing) {
+            gapSeq = missing;
+            gapSince = now;
+        }
+        if (now - gapSince < gapGraceMs) return false;
+        System.out.println("[ArticleService] change-log seq " + missing + (next - 1 > missing ? ".." + (next - 1) : "")
+                + " still missing after " + gapGraceMs + "ms, treating as rolled back");
+        gapSeq = -1;
+        return true;
+    }
+
+    private long maxSeq() {
+        Long max = jdbc.queryForObject("SELECT COALESCE(MAX(seq),0) FROM article_changes", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        System.out.println("[ArticleService] stopping, checkpoint at seq=" + pipeline.drain());
+    }
+}
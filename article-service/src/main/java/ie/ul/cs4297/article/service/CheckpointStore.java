@@ -0,0 +1,29 @@
+package ie.ul.cs4297.article.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Durable publisher positions in {@code publisher_checkpoints}, one row per publisher name. */
+@Component
+public class CheckpointStore {
+
+    private final JdbcTemplate jdbc;
+
+    public CheckpointStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Saved position, or null if this publisher has never checkpointed. */
+    public Long load(String name) {
+        List<Long> rows = jdbc.queryForList(
+                "SELECT position FROM publisher_checkpoints WHERE name = ?", Long.class, name);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void save(String name, long position) {
+        jdbc.update("INSERT INTO publisher_checkpoints(name, position) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE position = VALUES(position)", name, position);
+    }
+}
@@ -0,0 +1,148 @@
+package ie.ul.cs4297.article.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.function.LongSupplier;
+
+/**
+ * At-least-once, pipelined sending shared by the publishers.
+ *
+ * Records are sent without waiting for each acknowledgement; completions feed an
+ * {@link AckTracker}, and only the contiguous acknowledged prefix is persisted as the
+ * checkpoint. If any send fails, the next poll rewinds to the checkpoint and resends from
+ * there. On startup publishing resumes from the saved checkpoint.
+ *
+ * Meters, tagged {@code pipeline=<name>}: {@code publisher.batch.size} (events sent per poll),
+ * {@code publisher.events{type}}, {@code publisher.in.flight}, and {@code publisher.lag} - how far
+ * the acknowledged checkpoint trails the newest position in MySQL, as last reported by
+ * {@link #head}.
+ */
+public class PublishPipeline {
+
+    private final String name;
+    private final KafkaTemplate<String, byte[]> kafka;
+    private final CheckpointStore checkpoints;
+    private final int maxInFlight;
+    private final AckTracker tracker;
+    private final DistributionSummary batchSizes;
+    private final Counter upserts;
+    private final Counter deletes;
+    private volatile long head;
+    private long saved;
+
+    /**
+     * @param initial used only when no checkpoint exists yet ({@code app.publisher.start-from}).
+     */
+    public PublishPipeline(String name, KafkaTemplate<String, byte[]> kafka, CheckpointStore checkpoints,
+                           int maxInFlight, LongSupplier initial, MeterRegistry registry) {
+        this.name = name;
+        this.kafka = kafka;
+        this.checkpoints = checkpoints;
+        this.maxInFlight = maxInFlight;
+
+        Long stored = checkpoints.load(name);
+        long start = (stored != null) ? stored : initial.getAsLong();
+        this.tracker = new AckTracker(start);
+        this.saved = start;
+        this.head = start;
+
+        this.batchSizes = DistributionSummary.builder("publisher.batch.size")
+                .description("events sent per poll")
+                .tag("pipeline", name)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.upserts = Counter.builder("publisher.events").tag("pipeline", name).tag("type", "upsert").register(registry);
+        this.deletes = Counter.builder("publisher.events").tag("pipeline", name).tag("type", "delete").register(registry);
+        Gauge.builder("publisher.lag", this, PublishPipeline::lag)
+                .description("positions between the newest row in MySQL and the acknowledged checkpoint")
+                .tag("pipeline", name)
+                .register(registry);
+        Gauge.builder("publisher.in.flight", tracker, AckTracker::inFlight)
+                .description("events sent but not yet acknowledged")
+                .tag("pipeline", name)
+                .register(registry);
+        System.out.println("[ArticleService] " + name + " resuming after position " + start
+                + (stored == null ? " (no checkpoint yet)" : ""));
+    }
+
+    /**
+     * Position to read after for the next batch. Rewinds to the checkpoint if a send failed.
+     * Returns -1 while too many records are unacknowledged (backpressure).
+     */
+    public long nextReadPosition(long readPos) {
+        if (tracker.hasFailed()) {
+            long rewindTo = tracker.committed();
+            tracker.reset(rewindTo);
+            System.err.println("[ArticleService] " + name + " send failed, rewinding to " + rewindTo);
+            return rewindTo;
+        }
+        return tracker.inFlight() >= maxInFlight ? -1 : readPos;
+    }
+
+    /** Send one record asynchronously; a null value is a tombstone. */
+    public void send(long position, ProducerRecord<String, byte[]> record) {
+        long gen = tracker.generation();
+        tracker.register(position);
+        try {
+            kafka.send(record).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    tracker.ack(gen, position);
+                } else {
+                    System.err.println("[ArticleService] send failed at " + position + " -> " + ex.getMessage());
+                    tracker.fail(gen, position);
+                }
+            });
+        } catch (RuntimeException e) {
+            tracker.fail(gen, position);
+            throw e;
+        }
+    }
+
+    /** Record one poll's worth of sends. */
+    public void published(int upsertCount, int deleteCount) {
+        batchSizes.record(upsertCount + deleteCount);
+        upserts.increment(upsertCount);
+        deletes.increment(deleteCount);
+    }
+
+    /** Newest position that exists in MySQL, for the lag gauge. */
+    public void head(long position) {
+        head = position;
+    }
+
+    /** Mark {@code position} as read even though nothing was sent for it (skipped or collapsed). */
+    public void skip(long position) {
+        tracker.advance(position);
+    }
+
+    /** Persist the acknowledged prefix if it moved. Returns the committed position. */
+    public synchronized long checkpoint() {
+        long committed = tracker.committed();
+        if (committed > saved) {
+            try {
+                checkpoints.save(name, committed);
+                saved = committed;
+            } catch (Exception e) {
+                System.err.println("[ArticleService] " + name + " checkpoint failed -> " + e.getMessage());
+            }
+        }
+        return committed;
+    }
+
+    /** Wait for everything in flight, then checkpoint. */
+    public long drain() {
+        kafka.flush();
+        return checkpoint();
+    }
+
+    public int inFlight() { return tracker.inFlight(); }
+
+    private double lag() {
+        return Math.max(0, head - tracker.committed());
+    }
+}
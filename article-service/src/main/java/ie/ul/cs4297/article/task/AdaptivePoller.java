@@ -0,0 +1,75 @@
+package ie.ul.cs4297.article.task;
+
+import ie.ul.cs4297.article.service.ChangeLogPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives {@link ChangeLogPublisher} with adaptive polling instead of a fixed delay.
+ *
+ * While full batches keep coming back it drains back-to-back; after a partial batch it waits
+ * {@code min-idle-ms}; on an empty poll the wait doubles up to {@code max-idle-ms}. A busy
+ * pipeline is published as fast as MySQL returns rows, and an idle one costs one cheap
+ * primary-key range probe per {@code max-idle-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.capture-mode", havingValue = "changelog", matchIfMissing = true)
+public class AdaptivePoller implements SmartLifecycle {
+
+    private final ChangeLogPublisher publisher;
+    private final long minIdleMs;
+    private final long maxIdleMs;
+    private volatile boolean running;
+    private Thread thread;
+
+    public AdaptivePoller(ChangeLogPublisher publisher,
+                          @Value("${app.changelog.min-idle-ms:20}") long minIdleMs,
+                          @Value("${app.changelog.max-idle-ms:500}") long maxIdleMs) {
+        this.publisher = publisher;
+        this.minIdleMs = Math.max(1, minIdleMs);
+        this.maxIdleMs = Math.max(this.minIdleMs, maxIdleMs);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, "change-capture");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    private void loop() {
+        long idleMs = minIdleMs;
+        while (running) {
+            int n;
+            try {
+                n = publisher.publishChanges();
+            } catch (Exception e) {
+                System.err.println("[ArticleService] change capture error -> " + e.getMessage());
+                n = 0;
+                idleMs = maxIdleMs;
+            }
+
+            if (n >= publisher.batchSize()) continue;          // more waiting: drain immediately
+            if (n > 0) idleMs = minIdleMs;                     // trickle: stay responsive
+            try {
+                Thread.sleep(idleMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (n == 0) idleMs = Math.min(maxIdleMs, idleMs * 2); // idle: back off
+        }
+    }
+}
@@ -2,10 +2,13 @@ package ie.ul.cs4297.article.task;
 
 import ie.ul.cs4297.article.service.ArticlePublisher;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.scheduling.annotation.Scheduled;
 
+/** Legacy fixed-delay id polling, used when {@code app.capture-mode=poll}. */
 @Component
+@ConditionalOnProperty(name = "app.capture-mode", havingValue = "poll")
 public class PollTask {
 
     private final ArticlePublisher publisher;
@@ -0,0 +1,54 @@
+package ie.ul.cs4297.article.web;
+
+import ie.ul.cs4297.article.model.BackfillStatus;
+import ie.ul.cs4297.article.service.BackfillService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Full reindex / backfill trigger.
+ *
+ *   curl -X POST "http://localhost:8081/admin/backfill?workers=4"
+ *   curl "http://localhost:8081/admin/backfill"
+ *
+ * {@code workers} above the connection pool can serve (pool size minus the connections change
+ * capture needs) is rejected with 400.
+ */
+@RestController
+@RequestMapping("/admin/backfill")
+public class BackfillController {
+
+    private final BackfillService backfill;
+
+    public BackfillController(BackfillService backfill) {
+        this.backfill = backfill;
+    }
+
+    @PostMapping
+    public BackfillStatus start(
+            @RequestParam(value = "workers", defaultValue = "4") int workers,
+            @RequestParam(value = "ranges", required = false) Integer ranges
+    ) {
+        if (workers < 1 || workers > backfill.maxWorkers()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "workers must be between 1 and " + backfill.maxWorkers());
+        }
+        return backfill.start(workers, ranges == null ? workers * 8 : ranges);
+    }
+
+    @GetMapping
+    public BackfillStatus status() {
+        return backfill.status();
+    }
+
+    @DeleteMapping
+    public BackfillStatus cancel() {
+        return backfill.cancel();
+    }
+}
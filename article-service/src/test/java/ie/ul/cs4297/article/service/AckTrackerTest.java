@@ -0,0 +1,65 @@
+package ie.ul.cs4297.article.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AckTrackerTest {
+
+    @Test
+    void committedStopsBelowOldestUnacknowledged() {
+        AckTracker t = new AckTracker(10);
+        long gen = t.generation();
+        t.register(11);
+        t.register(12);
+        t.register(15);
+        assertEquals(10, t.committed());
+
+        t.ack(gen, 12);
+        t.ack(gen, 15);
+        assertEquals(10, t.committed());   // 11 still out
+        assertEquals(1, t.inFlight());
+
+        t.ack(gen, 11);
+        assertEquals(15, t.committed());
+        assertEquals(0, t.inFlight());
+    }
+
+    @Test
+    void advanceCoversPositionsThatWereNotSent() {
+        AckTracker t = new AckTracker(0);
+        long gen = t.generation();
+        t.register(3);
+        t.advance(7);
+        assertEquals(2, t.committed());
+
+        t.ack(gen, 3);
+        assertEquals(7, t.committed());
+    }
+
+    @Test
+    void resetIgnoresCallbacksFromThePreviousGeneration() {
+        AckTracker t = new AckTracker(0);
+        long old = t.generation();
+        t.register(1);
+        t.register(2);
+        t.fail(old, 1);
+        assertTrue(t.hasFailed());
+
+        t.reset(t.committed());
+        assertFalse(t.hasFailed());
+        assertEquals(0, t.committed());
+
+        long gen = t.generation();
+        t.register(1);
+        t.fail(old, 2);   // late failure from before the rewind
+        t.ack(old, 1);    // late ack from before the rewind
+        assertFalse(t.hasFailed());
+        assertEquals(1, t.inFlight());
+
+        t.ack(gen, 1);
+        assertEquals(1, t.committed());
+    }
+}
@@ -0,0 +1,151 @@
+package ie.ul.cs4297.article.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Change capture end to end on H2: triggers fill article_changes, the publisher reads it into a mock producer. */
+class ChangeLogPublisherTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private MockProducer<String, byte[]> producer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:changelog" + DATABASES.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("changelog-schema.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        producer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer()) {
+            @Override
+            public void close(Duration timeout) { }   // KafkaTemplate closes it after every send
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void insertsUpdatesAndDeletesArePublished() throws Exception {
+        ChangeLogPublisher publisher = publisher(5000);
+        long a = insert("First");
+        long b = insert("Second");
+        jdbc.update("UPDATE articles SET title = 'First, revised' WHERE id = ?", a);
+        jdbc.update("UPDATE articles SET title = title WHERE id = ?", b);   // no content change, no row
+        jdbc.update("DELETE FROM articles WHERE id = ?", b);
+
+        assertEquals(4, publisher.publishChanges());
+
+        List<ProducerRecord<String, byte[]>> sent = producer.history();
+        assertEquals(2, sent.size());
+        assertEquals(String.valueOf(a), sent.get(0).key());
+        assertEquals("First, revised", JSON.readTree(sent.get(0).value()).get("title").asText());
+        assertEquals(String.valueOf(b), sent.get(1).key());
+        assertNull(sent.get(1).value());
+        assertEquals(4L, checkpoint());
+
+        assertEquals(0, publisher.publishChanges());
+        assertEquals(2, producer.history().size());
+    }
+
+    @Test
+    void laterCommitOfLowerSeqIsNotSkipped() throws Exception {
+        ChangeLogPublisher publisher = publisher(60_000);
+        try (Connection slow = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            insert(slow, "Slow");    // takes seq 1, not yet committed
+            insert("Fast");          // seq 2, committed first
+
+            assertEquals(0, publisher.publishChanges());
+            assertEquals(0, producer.history().size());
+            assertNull(checkpoint());
+
+            slow.commit();
+        }
+
+        assertEquals(2, publisher.publishChanges());
+        List<ProducerRecord<String, byte[]>> sent = producer.history();
+        assertEquals(2, sent.size());
+        assertEquals("Slow", JSON.readTree(sent.get(0).value()).get("title").asText());
+        assertEquals("Fast", JSON.readTree(sent.get(1).value()).get("title").asText());
+        assertEquals(2L, checkpoint());
+    }
+
+    @Test
+    void rolledBackSeqIsSkippedAfterGrace() throws Exception {
+        ChangeLogPublisher publisher = publisher(50);
+        insert("Before");
+        try (Connection rolledBack = dataSource.getConnection()) {
+            rolledBack.setAutoCommit(false);
+            insert(rolledBack, "Never");   // seq 2, never visible
+            rolledBack.rollback();
+        }
+        insert("After");
+
+        assertEquals(1, publisher.publishChanges());   // holds at the gap
+        assertEquals(0, publisher.publishChanges());
+        Thread.sleep(60);
+        assertEquals(1, publisher.publishChanges());
+
+        assertEquals(2, producer.history().size());
+        assertEquals("After", JSON.readTree(producer.history().get(1).value()).get("title").asText());
+        assertEquals(3L, checkpoint());
+    }
+
+    private ChangeLogPublisher publisher(long gapGraceMs) {
+        KafkaTemplate<String, byte[]> kafka = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        return new ChangeLogPublisher(jdbc, kafka, new ArticleEventCodec("json"), new CheckpointStore(jdbc),
+                "articles", 500, "earliest", 5000, gapGraceMs, new SimpleMeterRegistry());
+    }
+
+    private long insert(String title) throws Exception {
+        try (Connection c = dataSource.getConnection()) {
+            return insert(c, title);
+        }
+    }
+
+    private static long insert(Connection c, String title) throws Exception {
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO articles(title, content, tags, source_url) VALUES (?, 'text', 'tag', ?)",
+                PreparedStatement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, title);
+            ps.setString(2, "http://books.example/" + title);
+            ps.executeUpdate();
+            try (var keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private Long checkpoint() {
+        return new CheckpointStore(jdbc).load("article-changes");
+    }
+}
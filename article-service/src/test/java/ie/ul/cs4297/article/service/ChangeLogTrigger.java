@@ -0,0 +1,47 @@
+package ie.ul.cs4297.article.service;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/** The {@code articles_after_*} triggers of db/init.sql for H2: one change row per insert, content update or delete. */
+public class ChangeLogTrigger implements Trigger {
+
+    // articles columns: id, url_hash, title, content, tags, source_url, crawled_at
+    private static final int ID = 0, TITLE = 2, SOURCE_URL = 5;
+
+    private int type;
+
+    @Override
+    public void init(Connection conn, String schema, String trigger, String table, boolean before, int type) {
+        this.type = type;
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        switch (type) {
+            case INSERT -> append(conn, newRow[ID], "I");
+            case DELETE -> append(conn, oldRow[ID], "D");
+            case UPDATE -> {
+                for (int i = TITLE; i <= SOURCE_URL; i++) {
+                    if (!Objects.equals(oldRow[i], newRow[i])) {
+                        append(conn, newRow[ID], "U");
+                        return;
+                    }
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private static void append(Connection conn, Object articleId, String op) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO article_changes(article_id, op) VALUES (?, ?)")) {
+            ps.setObject(1, articleId);
+            ps.setString(2, op);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- H2 (MODE=MySQL) version of the change-capture tables from db/init.sql.
+-- H2 cannot run the MySQL trigger bodies, so ChangeLogTrigger does the same inserts in Java.
+CREATE TABLE articles (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    url_hash CHAR(64),
+    title VARCHAR(1024),
+    content VARCHAR(65535),
+    tags VARCHAR(512),
+    source_url VARCHAR(2048),
+    crawled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE article_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    article_id BIGINT NOT NULL,
+    op CHAR(1) NOT NULL,
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+CREATE TRIGGER articles_after_insert AFTER INSERT ON articles FOR EACH ROW
+    CALL 'ie.ul.cs4297.article.service.ChangeLogTrigger';
+CREATE TRIGGER articles_after_update AFTER UPDATE ON articles FOR EACH ROW
+    CALL 'ie.ul.cs4297.article.service.ChangeLogTrigger';
+CREATE TRIGGER articles_after_delete AFTER DELETE ON articles FOR EACH ROW
+    CALL 'ie.ul.cs4297.article.service.ChangeLogTrigger';
+
+CREATE TABLE publisher_checkpoints (
+    name VARCHAR(64) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,40 @@
+package ie.ul.cs4297.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Heap bytes allocated by a chosen set of threads, from HotSpot's per-thread allocation
+ * counters. The services run in the benchmark's JVM next to the Kafka broker and the
+ * Elasticsearch stub, so allocation is attributed by thread name rather than read process-wide.
+ */
+final class Allocations {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Predicate<String> threadName;
+    private final Map<Long, Long> start = new HashMap<>();
+
+    /** Start counting for live threads whose name matches; threads started later count from zero. */
+    Allocations(Predicate<String> threadName) {
+        this.threadName = threadName;
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (threadName.test(t.getName())) start.put(t.threadId(), THREADS.getThreadAllocatedBytes(t.threadId()));
+        }
+    }
+
+    /** Bytes allocated since construction by matching threads that are still alive. */
+    long bytes() {
+        long total = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (!threadName.test(t.getName())) continue;
+            long now = THREADS.getThreadAllocatedBytes(t.threadId());
+            if (now >= 0) total += now - start.getOrDefault(t.threadId(), 0L);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,44 @@
+package ie.ul.cs4297.bench;
+
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Offline benchmark of the pipeline and the search API.
+ *
+ * Everything runs in this JVM: an embedded Kafka broker, H2 in place of MySQL and a local
+ * Elasticsearch stub ({@link EsStub}), with the real article-service, indexer and search-service
+ * code on top. Scenarios ({@code bench.scenarios}):
+ * <ul>
+ *   <li>{@code publisher} - ArticlePublisher events/s and allocation per event</li>
+ *   <li>{@code indexer}   - IndexerConsumer docs/s, bulk shape and allocation per doc</li>
+ *   <li>{@code search}    - QPS and p50/p90/p99 per endpoint and concurrency</li>
+ * </ul>
+ * Results go to {@code bench.output} as JSON; {@code bench.baseline} compares against an
+ * earlier file and exits with status 1 on a regression. See {@link BenchConfig} for all settings.
+ */
+public class BenchApp {
+
+    public static void main(String[] args) throws Exception {
+        BenchConfig cfg = BenchConfig.fromSystemProperties();
+        Corpus corpus = new Corpus(cfg);
+        Report report = new Report(cfg);
+        System.out.println("[Bench] " + cfg.articles() + " articles, scenarios " + cfg.scenarios());
+
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, cfg.partitions())
+                .brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.afterPropertiesSet();
+        int regressions;
+        try (EsStub es = new EsStub(corpus, cfg.pageSize(), cfg.esLatencyMs(), cfg.bulkRejectRate())) {
+            if (cfg.runs("publisher")) report.put("publisher", PublisherScenario.run(cfg, corpus, broker));
+            if (cfg.runs("indexer")) report.put("indexer", IndexerScenario.run(cfg, corpus, broker, es));
+            if (cfg.runs("search")) report.put("search", SearchScenario.run(cfg, corpus, broker, es));
+            report.write();
+            regressions = report.compare();
+        } finally {
+            broker.destroy();
+        }
+        // Kafka and Spring leave non-daemon threads behind
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+}
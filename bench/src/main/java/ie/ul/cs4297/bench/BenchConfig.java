@@ -0,0 +1,85 @@
+package ie.ul.cs4297.bench;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark parameters, read from {@code bench.*} system properties like the crawler's
+ * {@code crawler.*} settings. Every value has a default, so a bare {@code ./gradlew :bench:run}
+ * runs all scenarios on a small corpus.
+ */
+public record BenchConfig(
+        Path root,
+        List<String> scenarios,
+        // corpus
+        int articles,
+        long seed,
+        int vocabulary,
+        double zipf,
+        int titleWordsMin,
+        int titleWordsMax,
+        int contentWords,
+        double contentSigma,
+        int categories,
+        // pipeline
+        String eventFormat,
+        int partitions,
+        double bulkRejectRate,
+        // search load
+        List<String> endpoints,
+        List<Integer> concurrency,
+        int warmupSeconds,
+        int durationSeconds,
+        int pageSize,
+        double tagQueryRate,
+        boolean cache,
+        int esLatencyMs,
+        // output
+        Path output,
+        Path baseline,
+        double tolerance
+) {
+
+    public static BenchConfig fromSystemProperties() {
+        Path root = Path.of(System.getProperty("bench.root", ".")).toAbsolutePath().normalize();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String baseline = System.getProperty("bench.baseline");
+        return new BenchConfig(
+                root,
+                list(System.getProperty("bench.scenarios", "publisher,indexer,search")),
+                Integer.getInteger("bench.articles", 20_000),
+                Long.getLong("bench.seed", 42L),
+                Integer.getInteger("bench.vocabulary", 50_000),
+                Double.parseDouble(System.getProperty("bench.zipf", "1.07")),
+                Integer.getInteger("bench.title-words-min", 2),
+                Integer.getInteger("bench.title-words-max", 8),
+                Integer.getInteger("bench.content-words", 300),
+                Double.parseDouble(System.getProperty("bench.content-sigma", "0.6")),
+                Integer.getInteger("bench.categories", 50),
+                System.getProperty("bench.event-format", "json"),
+                Integer.getInteger("bench.partitions", 3),
+                Double.parseDouble(System.getProperty("bench.bulk-reject-rate", "0")),
+                list(System.getProperty("bench.endpoints", "/api/search,/api/search/db")),
+                list(System.getProperty("bench.concurrency", "1,8,32")).stream().map(Integer::valueOf).toList(),
+                Integer.getInteger("bench.warmup-seconds", 5),
+                Integer.getInteger("bench.duration-seconds", 15),
+                Integer.getInteger("bench.page-size", 10),
+                Double.parseDouble(System.getProperty("bench.tag-query-rate", "0.1")),
+                Boolean.parseBoolean(System.getProperty("bench.cache", "true")),
+                Integer.getInteger("bench.es-latency-ms", 2),
+                Path.of(System.getProperty("bench.output", root.resolve("build/bench/bench-" + stamp + ".json").toString())),
+                baseline == null ? null : Path.of(baseline),
+                Double.parseDouble(System.getProperty("bench.tolerance", "0.10")));
+    }
+
+    public boolean runs(String scenario) {
+        return scenarios.contains(scenario);
+    }
+
+    private static List<String> list(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
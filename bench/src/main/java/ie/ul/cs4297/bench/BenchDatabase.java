@@ -0,0 +1,47 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.model.Article;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/** In-memory H2 databases in MySQL mode, standing in for the {@code cs4297} schema. */
+final class BenchDatabase {
+
+    private static final int INSERT_BATCH = 1000;
+
+    private BenchDatabase() {}
+
+    /** JDBC URL of a named in-memory database that lives as long as the JVM. */
+    static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    static DataSource create(String name) {
+        DataSource ds = new DriverManagerDataSource(url(name), "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("bench-schema.sql")).execute(ds);
+        return ds;
+    }
+
+    /** Insert the whole corpus with ids 1..n, all crawled "now". */
+    static void load(DataSource ds, Corpus corpus) {
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= corpus.size(); id++) {
+            Article a = corpus.article(id);
+            batch.add(new Object[]{a.id(), a.title(), a.content(), a.tags(), a.source_url(), now});
+            if (batch.size() == INSERT_BATCH || id == corpus.size()) {
+                jdbc.batchUpdate("INSERT INTO articles(id, title, content, tags, source_url, crawled_at) "
+                        + "VALUES (?,?,?,?,?,?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.model.Article;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic articles shaped like the crawler's output.
+ *
+ * Words are pronounceable pseudo-words drawn from a Zipf distribution over
+ * {@code vocabulary} ranks, so a few terms are very common and most are rare, as in real text.
+ * Titles have a uniform word count; content length is log-normal around {@code contentWords};
+ * tags are a Zipf-distributed category plus a uniform star rating ({@code "Category;Three"}).
+ *
+ * Article {@code id} is generated from {@code seed ^ id} alone, so any article can be rebuilt
+ * without keeping the corpus in memory and two runs with the same settings see the same text.
+ */
+public class Corpus {
+
+    private static final String CONSONANTS = "bcdfghklmnprstvz";
+    private static final String VOWELS = "aeiou";
+    private static final String[] RATINGS = {"One", "Two", "Three", "Four", "Five"};
+
+    private final BenchConfig cfg;
+    private final String[] words;
+    private final double[] wordCdf;
+    private final String[] categories;
+    private final double[] categoryCdf;
+
+    public Corpus(BenchConfig cfg) {
+        this.cfg = cfg;
+        this.words = new String[cfg.vocabulary()];
+        for (int i = 0; i < words.length; i++) words[i] = word(i);
+        this.wordCdf = zipfCdf(words.length, cfg.zipf());
+        this.categories = new String[Math.max(1, cfg.categories())];
+        for (int i = 0; i < categories.length; i++) categories[i] = capitalize(word(words.length + i));
+        this.categoryCdf = zipfCdf(categories.length, 1.0);
+    }
+
+    public int size() {
+        return cfg.articles();
+    }
+
+    /** Article {@code id} (1-based). */
+    public Article article(long id) {
+        Random rnd = new Random(cfg.seed() ^ (id * 0x9E3779B97F4A7C15L));
+
+        int titleWords = cfg.titleWordsMin() + rnd.nextInt(Math.max(1, cfg.titleWordsMax() - cfg.titleWordsMin() + 1));
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < titleWords; i++) {
+            if (i > 0) title.append(' ');
+            title.append(capitalize(draw(rnd)));
+        }
+
+        // log-normal with the configured mean: mu = ln(mean) - sigma^2 / 2
+        double sigma = cfg.contentSigma();
+        double mu = Math.log(Math.max(1, cfg.contentWords())) - sigma * sigma / 2;
+        int contentWords = (int) Math.max(5, Math.round(Math.exp(mu + sigma * rnd.nextGaussian())));
+        StringBuilder content = new StringBuilder(contentWords * 8);
+        int sentence = 0;
+        for (int i = 0; i < contentWords; i++) {
+            String w = draw(rnd);
+            if (sentence == 0) w = capitalize(w);
+            content.append(w);
+            if (++sentence >= 8 + rnd.nextInt(10) || i == contentWords - 1) {
+                content.append(". ");
+                sentence = 0;
+            } else {
+                content.append(' ');
+            }
+        }
+
+        String tags = categories[sample(categoryCdf, rnd)] + ";" + RATINGS[rnd.nextInt(RATINGS.length)];
+        String url = "https://books.toscrape.com/catalogue/bench-" + id + "/index.html";
+        return new Article(id, title.toString(), content.toString().trim(), tags, url);
+    }
+
+    /** A search the way users type them: one to three common-ish terms, sometimes behind a tag filter. */
+    public String query(Random rnd) {
+        int terms = 1 + rnd.nextInt(3);
+        StringBuilder q = new StringBuilder();
+        if (rnd.nextDouble() < cfg.tagQueryRate()) {
+            q.append("tag:").append(categories[sample(categoryCdf, rnd)]).append(' ');
+        }
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) q.append(' ');
+            q.append(draw(rnd));
+        }
+        return q.toString();
+    }
+
+    private String draw(Random rnd) {
+        return words[sample(wordCdf, rnd)];
+    }
+
+    private static int sample(double[] cdf, Random rnd) {
+        int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+        return Math.min(cdf.length - 1, i >= 0 ? i : -i - 1);
+    }
+
+    private static double[] zipfCdf(int n, double s) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cdf[k] /= sum;
+        return cdf;
+    }
+
+    /** Rank {@code n} spelled in consonant-vowel syllables; every rank gets a distinct word of 2+ syllables. */
+    private static String word(int n) {
+        int base = CONSONANTS.length() * VOWELS.length();
+        StringBuilder b = new StringBuilder();
+        int v = n + base;
+        while (v > 0) {
+            int syllable = v % base;
+            b.append(CONSONANTS.charAt(syllable / VOWELS.length())).append(VOWELS.charAt(syllable % VOWELS.length()));
+            v /= base;
+        }
+        return b.toString();
+    }
+
+    private static String capitalize(String w) {
+        return Character.toUpperCase(w.charAt(0)) + w.substring(1);
+    }
+}
@@ -0,0 +1,256 @@
+package ie.ul.cs4297.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import ie.ul.cs4297.article.model.Article;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Just enough of the Elasticsearch REST API for the indexer and search-service, served from a
+ * local port so the benchmark never needs a cluster.
+ *
+ * <ul>
+ *   <li>{@code _bulk}: every action is acknowledged, or rejected with 429 at
+ *       {@code bench.bulk-reject-rate}; indexed ids are tracked so a scenario can wait until
+ *       every document has landed.</li>
+ *   <li>{@code _search} / {@code _msearch}: a canned page of real corpus articles with
+ *       highlights, after {@code bench.es-latency-ms} of simulated service time.</li>
+ *   <li>aliases do not exist (so the indexer creates its first generation), index creation and
+ *       alias changes succeed, and the generation document keeps a real {@code _version}.</li>
+ * </ul>
+ * The stub's own work is small and fixed, so differences between runs come from the services.
+ */
+public class EsStub implements AutoCloseable {
+
+    private static final byte[] ACK = "{\"acknowledged\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_FOUND = "{\"status\":404}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "es-stub");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int latencyMs;
+    private final double rejectRate;
+    private final byte[] searchPage;
+    private final byte[] msearchItem;
+
+    private final Set<Long> indexed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicLong bulkBytes = new AtomicLong();
+    private final AtomicLong bulkActions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long firstBulkNanos;
+    private volatile long lastBulkNanos;
+
+    public EsStub(Corpus corpus, int pageSize, int latencyMs, double rejectRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.rejectRate = rejectRate;
+
+        ObjectNode hits = mapper.createObjectNode();
+        hits.putObject("total").put("value", corpus.size());
+        ArrayNode list = hits.putArray("hits");
+        for (int i = 1; i <= Math.min(pageSize, corpus.size()); i++) {
+            Article a = corpus.article(i);
+            ObjectNode h = list.addObject();
+            h.set("_source", mapper.valueToTree(a));
+            h.putObject("highlight").putArray("content").add("<em>" + a.content().substring(0, Math.min(100, a.content().length())) + "</em>");
+            h.putArray("sort").add(10.0 - i * 0.1).add(i);
+        }
+        ObjectNode page = mapper.createObjectNode();
+        page.set("hits", hits);
+        this.searchPage = mapper.writeValueAsBytes(page);
+        page.put("status", 200);
+        this.msearchItem = mapper.writeValueAsBytes(page);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/", this::handle);
+        server.setExecutor(pool);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Distinct documents acknowledged by {@code _bulk} so far. */
+    public int indexedCount() { return indexed.size(); }
+
+    public long bulkRequests() { return bulkRequests.get(); }
+
+    /** {@code _bulk} request bytes as sent over the wire (compressed when the indexer gzips). */
+    public long bulkBytes() { return bulkBytes.get(); }
+
+    public long bulkActions() { return bulkActions.get(); }
+
+    public long rejected() { return rejected.get(); }
+
+    public long searches() { return searches.get(); }
+
+    /** Seconds between the first and the latest {@code _bulk} request. */
+    public double bulkSeconds() {
+        return (lastBulkNanos - firstBulkNanos) / 1e9;
+    }
+
+    public void resetBulkStats() {
+        indexed.clear();
+        bulkRequests.set(0);
+        bulkBytes.set(0);
+        bulkActions.set(0);
+        rejected.set(0);
+        firstBulkNanos = 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            String method = ex.getRequestMethod();
+            String path = ex.getRequestURI().getPath();
+            byte[] wire = ex.getRequestBody().readAllBytes();
+            byte[] body = "gzip".equalsIgnoreCase(ex.getRequestHeaders().getFirst("Content-Encoding"))
+                    ? new GZIPInputStream(new ByteArrayInputStream(wire)).readAllBytes()
+                    : wire;
+
+            if (path.equals("/_bulk")) {
+                respond(ex, 200, bulk(body, wire.length));
+            } else if (path.endsWith("/_search")) {
+                pause();
+                searches.incrementAndGet();
+                respond(ex, 200, searchPage);
+            } else if (path.equals("/_msearch")) {
+                pause();
+                respond(ex, 200, msearch(body));
+            } else if (path.endsWith("/_doc/generation")) {
+                if (method.equals("GET")) {
+                    long v = generation.get();
+                    if (v == 0) respond(ex, 404, NOT_FOUND);
+                    else respond(ex, 200, ("{\"found\":true,\"_version\":" + v + "}").getBytes(StandardCharsets.UTF_8));
+                } else {
+                    respond(ex, 200, ("{\"result\":\"updated\",\"_version\":" + generation.incrementAndGet() + "}")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            } else if (path.startsWith("/_alias/") || (method.equals("HEAD") && !path.startsWith("/_"))) {
+                respond(ex, 404, NOT_FOUND);
+            } else if (path.startsWith("/_cat/")) {
+                respond(ex, 200, "[]".getBytes(StandardCharsets.UTF_8));
+            } else {
+                respond(ex, 200, ACK);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[Bench] es stub failed on " + ex.getRequestURI() + ": " + e);
+        }
+    }
+
+    /**
+     * Acknowledge (or reject) each action line; source lines follow index actions only.
+     * {@code wireBytes} is the body as received, i.e. after gzip when the indexer compresses.
+     */
+    private byte[] bulk(byte[] body, int wireBytes) {
+        long now = System.nanoTime();
+        if (bulkRequests.getAndIncrement() == 0) firstBulkNanos = now;
+        bulkBytes.addAndGet(wireBytes);
+
+        StringBuilder items = new StringBuilder(body.length / 8);
+        boolean errors = false;
+        int start = 0;
+        boolean expectSource = false;
+        for (int i = 0; i <= body.length; i++) {
+            if (i < body.length && body[i] != '\n') continue;
+            if (i == start) { start = i + 1; continue; }
+            if (expectSource) {
+                expectSource = false;
+            } else {
+                String line = new String(body, start, i - start, StandardCharsets.UTF_8);
+                boolean delete = line.startsWith("{\"delete\"");
+                expectSource = !delete;
+                long id = idOf(line);
+                String action = delete ? "delete" : "index";
+                if (items.length() > 0) items.append(',');
+                if (rejectRate > 0 && ThreadLocalRandom.current().nextDouble() < rejectRate) {
+                    errors = true;
+                    rejected.incrementAndGet();
+                    items.append("{\"").append(action).append("\":{\"_id\":\"").append(id)
+                            .append("\",\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}");
+                } else {
+                    bulkActions.incrementAndGet();
+                    if (delete) indexed.remove(id);
+                    else indexed.add(id);
+                    items.append("{\"").append(action).append("\":{\"_id\":\"").append(id).append("\",\"status\":")
+                            .append(delete ? 200 : 201).append("}}");
+                }
+            }
+            start = i + 1;
+        }
+        lastBulkNanos = System.nanoTime();
+        return ("{\"took\":1,\"errors\":" + errors + ",\"items\":[" + items + "]}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] msearch(byte[] body) {
+        int lines = 0;
+        for (byte b : body) if (b == '\n') lines++;
+        int queries = Math.max(1, lines / 2);
+        searches.addAndGet(queries);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(msearchItem.length * queries + 32);
+        out.writeBytes("{\"responses\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < queries; i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(msearchItem);
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static long idOf(String actionLine) {
+        int at = actionLine.indexOf("\"_id\":\"");
+        if (at < 0) return -1;
+        int from = at + 7;
+        int to = actionLine.indexOf('"', from);
+        return Long.parseLong(actionLine, from, to, 10);
+    }
+
+    private void pause() {
+        if (latencyMs <= 0) return;
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        if (ex.getRequestMethod().equals("HEAD")) {
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.service.ArticleEventCodec;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Writes the corpus to a topic as article-service upsert events, crawled "now". */
+final class Events {
+
+    private Events() {}
+
+    static void produce(EmbeddedKafkaBroker broker, String topic, Corpus corpus, ArticleEventCodec codec) throws Exception {
+        DefaultKafkaProducerFactory<String, byte[]> producers = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 20,
+                ProducerConfig.BATCH_SIZE_CONFIG, 131072,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"));
+        try {
+            KafkaTemplate<String, byte[]> kafka = new KafkaTemplate<>(producers);
+            AtomicLong failed = new AtomicLong();
+            long crawledAt = System.currentTimeMillis();
+            for (long id = 1; id <= corpus.size(); id++) {
+                kafka.send(codec.upsert(topic, corpus.article(id), crawledAt))
+                        .whenComplete((r, ex) -> { if (ex != null) failed.incrementAndGet(); });
+            }
+            kafka.flush();
+            if (failed.get() > 0) throw new IllegalStateException(failed.get() + " event(s) could not be produced to " + topic);
+        } finally {
+            producers.destroy();
+        }
+    }
+}
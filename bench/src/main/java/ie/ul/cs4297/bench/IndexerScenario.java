@@ -0,0 +1,80 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.service.ArticleEventCodec;
+import ie.ul.cs4297.indexer.IndexerApplication;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code IndexerConsumer} docs/s and bytes allocated per document.
+ *
+ * The topic is filled first with events encoded exactly as article-service sends them. The
+ * indexer then starts with its listener stopped, allocation counting begins for its consumer and
+ * bulk threads, and the listener is started; the run ends when the Elasticsearch stub has
+ * acknowledged every article. Throughput is measured over the window between the first and the
+ * last {@code _bulk} request, so context startup and group join do not count.
+ */
+final class IndexerScenario {
+
+    private static final String TOPIC = "bench-indexer";
+    private static final long TIMEOUT_MS = 600_000;
+
+    private IndexerScenario() {}
+
+    static Map<String, Object> run(BenchConfig cfg, Corpus corpus, EmbeddedKafkaBroker broker, EsStub es) throws Exception {
+        broker.addTopics(new NewTopic(TOPIC, cfg.partitions(), (short) 1));
+        long produceStart = System.currentTimeMillis();
+        Events.produce(broker, TOPIC, corpus, new ArticleEventCodec(cfg.eventFormat()));
+        System.out.println("[Bench] indexer: produced " + corpus.size() + " " + cfg.eventFormat() + " events in "
+                + (System.currentTimeMillis() - produceStart) + " ms");
+
+        es.resetBulkStats();
+        try (ConfigurableApplicationContext ctx = SpringApplication.run(IndexerApplication.class,
+                ServiceConfig.locationArg(cfg.root(), "indexer"),
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.kafka.consumer.group-id=bench-indexer-" + System.nanoTime(),
+                "--spring.kafka.listener.auto-startup=false",
+                "--app.kafka-topic=" + TOPIC,
+                "--app.es-host=" + es.url(),
+                "--app.consumer-concurrency=" + cfg.partitions())) {
+
+            Allocations alloc = new Allocations(n -> n.startsWith("indexer-") || n.startsWith("bulk-") || n.equals("generation"));
+            long start = System.nanoTime();
+            ctx.getBean(KafkaListenerEndpointRegistry.class).getListenerContainer("indexer").start();
+
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (es.indexedCount() < corpus.size()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("indexer stalled at " + es.indexedCount() + "/" + corpus.size());
+                }
+                Thread.sleep(5);
+            }
+            double wall = (System.nanoTime() - start) / 1e9;
+            long allocated = alloc.bytes();
+            double seconds = Math.max(es.bulkSeconds(), 1e-3);
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("docs", corpus.size());
+            r.put("seconds", seconds);
+            r.put("wallSeconds", wall);
+            r.put("docsPerSecond", corpus.size() / seconds);
+            r.put("bulkRequests", es.bulkRequests());
+            r.put("docsPerRequest", (double) es.bulkActions() / Math.max(1, es.bulkRequests()));
+            r.put("bulkBytesPerDoc", (double) es.bulkBytes() / es.bulkActions());
+            r.put("rejectedItems", es.rejected());
+            r.put("allocatedBytesPerDoc", (double) allocated / corpus.size());
+            System.out.printf("[Bench] indexer: %d docs in %.2f s = %.0f docs/s over %d bulk requests, %.0f B allocated/doc%n",
+                    corpus.size(), seconds, corpus.size() / seconds, es.bulkRequests(), (double) allocated / corpus.size());
+            return r;
+        }
+    }
+}
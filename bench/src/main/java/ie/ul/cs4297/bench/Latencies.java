@@ -0,0 +1,37 @@
+package ie.ul.cs4297.bench;
+
+import java.util.Arrays;
+
+/** Recorded request latencies of one load-generator thread; merged and sorted for percentiles. */
+final class Latencies {
+
+    private long[] nanos = new long[4096];
+    private int count;
+
+    void record(long latencyNanos) {
+        if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+        nanos[count++] = latencyNanos;
+    }
+
+    int count() { return count; }
+
+    static long[] sorted(Iterable<Latencies> parts) {
+        int total = 0;
+        for (Latencies p : parts) total += p.count;
+        long[] all = new long[total];
+        int at = 0;
+        for (Latencies p : parts) {
+            System.arraycopy(p.nanos, 0, all, at, p.count);
+            at += p.count;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    /** Nearest-rank percentile of sorted latencies, in milliseconds. */
+    static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,83 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.service.ArticleEventCodec;
+import ie.ul.cs4297.article.service.ArticlePublisher;
+import ie.ul.cs4297.article.service.CheckpointStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ArticlePublisher} events/s: the corpus is loaded into H2, then {@code publishNew} is
+ * called back-to-back (as the poll task would with no delay) until the acknowledged checkpoint
+ * covers every row. The producer uses article-service's own {@code spring.kafka.producer}
+ * settings against the embedded broker.
+ */
+final class PublisherScenario {
+
+    private static final String TOPIC = "bench-publisher";
+    private static final String CHECKPOINT = "articles-id";
+
+    private PublisherScenario() {}
+
+    static Map<String, Object> run(BenchConfig cfg, Corpus corpus, EmbeddedKafkaBroker broker) throws Exception {
+        broker.addTopics(new NewTopic(TOPIC, cfg.partitions(), (short) 1));
+        DataSource ds = BenchDatabase.create("publisher");
+        long loadStart = System.currentTimeMillis();
+        BenchDatabase.load(ds, corpus);
+        System.out.println("[Bench] publisher: loaded " + corpus.size() + " articles into H2 in "
+                + (System.currentTimeMillis() - loadStart) + " ms");
+
+        Binder conf = ServiceConfig.binder(cfg.root(), "article-service");
+        Map<String, Object> props = conf.bind("spring.kafka", KafkaProperties.class).get().buildProducerProperties(null);
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        DefaultKafkaProducerFactory<String, byte[]> producers = new DefaultKafkaProducerFactory<>(props);
+        KafkaTemplate<String, byte[]> kafka = new KafkaTemplate<>(producers);
+        kafka.partitionsFor(TOPIC);   // connect and fetch metadata before the clock starts
+
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        CheckpointStore checkpoints = new CheckpointStore(jdbc);
+        ArticlePublisher publisher = new ArticlePublisher(jdbc, kafka, new ArticleEventCodec(cfg.eventFormat()),
+                checkpoints, TOPIC, "earliest", conf.bind("app.publisher.max-in-flight", Integer.class).orElse(5000),
+                new SimpleMeterRegistry());
+
+        String caller = Thread.currentThread().getName();
+        Allocations alloc = new Allocations(n -> n.equals(caller) || n.startsWith("kafka-producer-network-thread"));
+        long start = System.nanoTime();
+        long sent = 0;
+        while (position(checkpoints) < corpus.size()) {
+            int n = publisher.publishNew();
+            sent += n;
+            if (n == 0) Thread.sleep(1);   // waiting for acknowledgements
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = alloc.bytes();
+        publisher.onShutdown();
+        producers.destroy();
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("events", corpus.size());
+        r.put("sent", sent);
+        r.put("seconds", seconds);
+        r.put("eventsPerSecond", corpus.size() / seconds);
+        r.put("allocatedBytesPerEvent", (double) allocated / corpus.size());
+        System.out.printf("[Bench] publisher: %d events in %.2f s = %.0f events/s, %.0f B allocated/event%n",
+                corpus.size(), seconds, corpus.size() / seconds, (double) allocated / corpus.size());
+        return r;
+    }
+
+    private static long position(CheckpointStore checkpoints) {
+        Long p = checkpoints.load(CHECKPOINT);
+        return p == null ? 0 : p;
+    }
+}
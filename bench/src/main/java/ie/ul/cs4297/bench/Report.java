@@ -0,0 +1,105 @@
+package ie.ul.cs4297.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The machine-readable result of a run: environment, configuration and one object per scenario,
+ * written as JSON to {@code bench.output}.
+ *
+ * With {@code bench.baseline} set, every throughput ({@code *PerSecond}, {@code qps}) and cost
+ * ({@code *Ms}, {@code allocated*}) figure is compared with the same path in the baseline file;
+ * a change for the worse beyond {@code bench.tolerance} is reported as a regression.
+ */
+final class Report {
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final BenchConfig cfg;
+    private final ObjectNode root = mapper.createObjectNode();
+    private final ObjectNode results;
+
+    Report(BenchConfig cfg) {
+        this.cfg = cfg;
+        root.put("timestamp", Instant.now().toString());
+        ObjectNode env = root.putObject("environment");
+        env.put("java", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        env.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        env.put("cpus", Runtime.getRuntime().availableProcessors());
+        env.put("maxHeapMb", Runtime.getRuntime().maxMemory() >> 20);
+        env.put("jvmArgs", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        ObjectNode config = mapper.valueToTree(cfg);
+        config.remove(List.of("root", "output", "baseline"));
+        root.set("config", config);
+        this.results = root.putObject("results");
+    }
+
+    void put(String scenario, Map<String, Object> result) {
+        results.set(scenario, mapper.valueToTree(result));
+    }
+
+    void write() throws IOException {
+        Files.createDirectories(cfg.output().toAbsolutePath().getParent());
+        mapper.writeValue(cfg.output().toFile(), root);
+        System.out.println("[Bench] results written to " + cfg.output());
+    }
+
+    /** Compare with {@code bench.baseline}; returns the number of regressions (0 without a baseline). */
+    int compare() throws IOException {
+        if (cfg.baseline() == null) return 0;
+        JsonNode base = mapper.readTree(cfg.baseline().toFile());
+        if (!base.path("config").equals(root.path("config"))) {
+            System.out.println("[Bench] warning: baseline was run with a different configuration");
+        }
+
+        Map<String, Double> before = new LinkedHashMap<>();
+        Map<String, Double> after = new LinkedHashMap<>();
+        flatten("", base.path("results"), before);
+        flatten("", results, after);
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> e : after.entrySet()) {
+            Double old = before.get(e.getKey());
+            int direction = direction(e.getKey());
+            if (old == null || old == 0 || direction == 0) continue;
+            double change = (e.getValue() - old) / old;
+            boolean worse = direction * change < -cfg.tolerance();
+            if (worse) regressions++;
+            System.out.printf("[Bench] %s %s: %.2f -> %.2f (%+.1f%%)%n",
+                    worse ? "REGRESSION" : "          ", e.getKey(), old, e.getValue(), change * 100);
+        }
+        System.out.println("[Bench] " + regressions + " regression(s) beyond " + Math.round(cfg.tolerance() * 100)
+                + "% against " + cfg.baseline());
+        return regressions;
+    }
+
+    /** +1 when higher is better, -1 when lower is better, 0 for figures that are not compared. */
+    private static int direction(String path) {
+        String leaf = path.substring(path.lastIndexOf('.') + 1);
+        if (leaf.endsWith("PerSecond") || leaf.equals("qps")) return 1;
+        if (leaf.endsWith("Ms") || leaf.startsWith("allocated")) return -1;
+        return 0;
+    }
+
+    private static void flatten(String prefix, JsonNode node, Map<String, Double> out) {
+        if (node.isNumber()) {
+            out.put(prefix, node.asDouble());
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> f = fields.next();
+            flatten(prefix.isEmpty() ? f.getKey() : prefix + "." + f.getKey(), f.getValue(), out);
+        }
+    }
+}
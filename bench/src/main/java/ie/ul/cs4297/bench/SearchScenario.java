@@ -0,0 +1,152 @@
+package ie.ul.cs4297.bench;
+
+import ie.ul.cs4297.article.service.ArticleEventCodec;
+import ie.ul.cs4297.search.SearchApplication;
+import ie.ul.cs4297.search.SearchCache;
+import ie.ul.cs4297.search.local.LocalSearchService;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code SearchController} QPS and latency percentiles per endpoint and concurrency.
+ *
+ * search-service runs against the Elasticsearch stub and an H2 copy of the corpus (used for
+ * highlight content). Its in-memory indexes are filled by the startup snapshot of that copy and
+ * by the articles topic; the load starts once the embedded index holds every article.
+ *
+ * Each of {@code concurrency} threads sends one request at a time (closed loop) with queries
+ * drawn from the corpus vocabulary, first for the warm-up period, then for the measured one.
+ */
+final class SearchScenario {
+
+    private static final String TOPIC = "bench-search";
+    private static final long FEED_TIMEOUT_MS = 600_000;
+
+    private SearchScenario() {}
+
+    static Map<String, Object> run(BenchConfig cfg, Corpus corpus, EmbeddedKafkaBroker broker, EsStub es) throws Exception {
+        broker.addTopics(new NewTopic(TOPIC, cfg.partitions(), (short) 1));
+        BenchDatabase.load(BenchDatabase.create("search"), corpus);
+
+        List<String> args = new ArrayList<>(List.of(
+                ServiceConfig.locationArg(cfg.root(), "search-service"),
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=" + BenchDatabase.url("search"),
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka-topic=" + TOPIC,
+                "--app.es-host=" + es.url()));
+        if (!cfg.cache()) args.add("--app.cache.max-entries=0");
+
+        try (ConfigurableApplicationContext ctx = SpringApplication.run(SearchApplication.class, args.toArray(String[]::new))) {
+            // the feed reads from the latest offset: it must own its partitions before anything is sent
+            ContainerTestUtils.waitForAssignment(
+                    ctx.getBean(KafkaListenerEndpointRegistry.class).getListenerContainer("search-feed"), cfg.partitions());
+            Events.produce(broker, TOPIC, corpus, new ArticleEventCodec(cfg.eventFormat()));
+            awaitLocalIndex(ctx.getBean(LocalSearchService.class), corpus.size());
+
+            int port = ctx.getEnvironment().getProperty("local.server.port", Integer.class);
+            SearchCache cache = ctx.getBean(SearchCache.class);
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            for (String endpoint : cfg.endpoints()) {
+                for (int concurrency : cfg.concurrency()) {
+                    long hits = (Long) cache.stats().get("hits");
+                    long misses = (Long) cache.stats().get("misses");
+                    long searches = es.searches();
+
+                    Map<String, Object> r = load(cfg, corpus, http, "http://127.0.0.1:" + port + endpoint, concurrency);
+                    long dh = (Long) cache.stats().get("hits") - hits;
+                    long dm = (Long) cache.stats().get("misses") - misses;
+                    r.put("cacheHitRate", dh + dm == 0 ? 0.0 : (double) dh / (dh + dm));
+                    r.put("esSearches", es.searches() - searches);
+                    results.put(endpoint + " c=" + concurrency, r);
+                    System.out.printf("[Bench] search %s c=%d: %.0f qps, p50 %.2f ms, p99 %.2f ms, %s errors%n",
+                            endpoint, concurrency, r.get("qps"), r.get("p50Ms"), r.get("p99Ms"), r.get("errors"));
+                }
+            }
+            return results;
+        }
+    }
+
+    private static void awaitLocalIndex(LocalSearchService local, int articles) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while (((Number) local.stats().get("articles")).intValue() < articles) {
+            if (System.currentTimeMillis() - start > FEED_TIMEOUT_MS) {
+                throw new IllegalStateException("search feed stalled at " + local.stats().get("articles") + "/" + articles);
+            }
+            Thread.sleep(20);
+        }
+        System.out.println("[Bench] search: " + articles + " articles fed in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /** Closed-loop load on one endpoint. */
+    private static Map<String, Object> load(BenchConfig cfg, Corpus corpus, HttpClient http, String url,
+                                            int concurrency) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + cfg.warmupSeconds() * 1_000_000_000L;
+        long end = warmupEnd + cfg.durationSeconds() * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<Latencies> parts = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            Latencies lat = new Latencies();
+            parts.add(lat);
+            Random rnd = new Random(cfg.seed() + w);
+            Thread t = new Thread(() -> {
+                while (true) {
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) return;
+                    URI uri = URI.create(url + "?size=" + cfg.pageSize() + "&q="
+                            + URLEncoder.encode(corpus.query(rnd), StandardCharsets.UTF_8));
+                    boolean ok;
+                    try {
+                        HttpResponse<Void> res = http.send(HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        ok = res.statusCode() == 200;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 < warmupEnd) continue;
+                    if (ok) lat.record(t1 - t0);
+                    else errors.incrementAndGet();
+                }
+            }, "bench-load-" + w);
+            t.start();
+            workers.add(t);
+        }
+        for (Thread t : workers) t.join();
+
+        long[] sorted = Latencies.sorted(parts);
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("requests", sorted.length);
+        r.put("qps", sorted.length / (double) cfg.durationSeconds());
+        r.put("p50Ms", Latencies.percentileMs(sorted, 50));
+        r.put("p90Ms", Latencies.percentileMs(sorted, 90));
+        r.put("p99Ms", Latencies.percentileMs(sorted, 99));
+        r.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        r.put("errors", errors.get());
+        return r;
+    }
+}
@@ -0,0 +1,44 @@
+package ie.ul.cs4297.bench;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a service's own {@code application.yml} from the source tree, so the benchmark runs with
+ * the settings the service ships with (batch sizes, in-flight limits, producer tuning) and only
+ * overrides the endpoints. All three services put their config at the same classpath location,
+ * which is why it is read from the file rather than the classpath.
+ */
+final class ServiceConfig {
+
+    private ServiceConfig() {}
+
+    static Path file(Path root, String module) {
+        return root.resolve(module).resolve("src/main/resources/application.yml");
+    }
+
+    /** {@code --spring.config.location} argument that makes a service context load only its own file. */
+    static String locationArg(Path root, String module) {
+        return "--spring.config.location=file:" + file(root, module);
+    }
+
+    /** Binder over the service's file, with {@code ${ENV:default}} placeholders resolved to their defaults. */
+    static Binder binder(Path root, String module) {
+        try {
+            MutablePropertySources sources = new MutablePropertySources();
+            new YamlPropertySourceLoader().load(module, new FileSystemResource(file(root, module)))
+                    .forEach(sources::addLast);
+            return new Binder(ConfigurationPropertySources.from(sources), new PropertySourcesPlaceholdersResolver(sources));
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + file(root, module), e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- H2 (MODE=MySQL) version of the tables from db/init.sql that the benchmarked code reads.
+-- The change-log triggers are MySQL-only, so the publisher is benchmarked in poll mode.
+CREATE TABLE IF NOT EXISTS articles (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    url_hash CHAR(64),
+    title VARCHAR(1024),
+    content CLOB,
+    tags VARCHAR(512),
+    source_url VARCHAR(2048),
+    content_hash CHAR(64),
+    crawled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS publisher_checkpoints (
+    name VARCHAR(64) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
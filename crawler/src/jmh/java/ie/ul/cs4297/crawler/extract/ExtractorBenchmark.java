@@ -0,0 +1,69 @@
+package ie.ul.cs4297.crawler.extract;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DOM vs streaming detail extraction over saved books.toscrape.com pages.
+ *
+ * Run with {@code ./gradlew :crawler:jmh}; the gc profiler reports {@code gc.alloc.rate.norm}
+ * (bytes allocated per page) next to the average time per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractorBenchmark {
+
+    private static final String URL = "https://books.toscrape.com/catalogue/fixture/index.html";
+
+    @Param({"a-light-in-the-attic.html", "tipping-the-velvet.html", "no-description.html"})
+    public String fixture;
+
+    private String html;
+    private final DetailExtractor dom = new DomDetailExtractor();
+    private final DetailExtractor streaming = new StreamingDetailExtractor();
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        try (InputStream in = ExtractorBenchmark.class.getResourceAsStream("/fixtures/" + fixture)) {
+            if (in == null) throw new IllegalStateException("missing fixture " + fixture);
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Both extractors must agree, otherwise the timing comparison is meaningless
+        DetailPage expected = dom.extract(URL, html);
+        DetailPage actual = streaming.extract(URL, html);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("extractors disagree on " + fixture
+                    + "\n  dom:       " + expected + "\n  streaming: " + actual);
+        }
+    }
+
+    @Benchmark
+    public DetailPage dom() {
+        return dom.extract(URL, html);
+    }
+
+    @Benchmark
+    public DetailPage streaming() {
+        return streaming.extract(URL, html);
+    }
+}
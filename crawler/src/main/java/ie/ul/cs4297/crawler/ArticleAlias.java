@@ -0,0 +1,10 @@
+package ie.ul.cs4297.crawler;
+
+/** A page whose content is a near-duplicate of an article already kept, recorded instead of inserted. */
+public record ArticleAlias(
+        String urlHash,
+        String sourceUrl,
+        String canonicalUrlHash,
+        long simhash,
+        int distance
+) {}
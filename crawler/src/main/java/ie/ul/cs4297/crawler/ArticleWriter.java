@@ -0,0 +1,232 @@
+package ie.ul.cs4297.crawler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writer stage between extraction and MySQL.
+ *
+ * Extraction threads {@link #submit} articles and their crawl state into a bounded queue; a
+ * single writer thread drains it into JDBC batches and commits once per batch. A batch is flushed when it reaches
+ * {@code batchSize} rows or when {@code flushMs} has passed since its first row, whichever
+ * comes first. When MySQL falls behind the queue fills up and {@code submit} blocks, which
+ * pushes back on the fetch workers.
+ *
+ * With {@code rewriteBatchedStatements=true} on the JDBC URL, Connector/J sends each batch as
+ * multi-row INSERT statements instead of one round-trip per row.
+ *
+ * Articles are upserted by {@code url_hash}, so a recrawl updates the existing row instead of
+ * adding a duplicate. Pages whose content did not change only refresh their {@code crawl_state}
+ * validators and never touch {@code articles}. Near-duplicates of an article already kept go to
+ * {@code article_aliases} instead; a page that stops being a duplicate loses its alias row when
+ * its article is written.
+ *
+ * When a batch fails, {@code onFailedArticle} is told the {@code url_hash} of every article in
+ * it, so state registered ahead of the write (the near-duplicate index) can be undone.
+ *
+ * Writes are taken off the queue in order, so once {@link #processedCount()} has reached the
+ * {@link #submittedCount()} read after a submit, that write has been committed (or reported
+ * failed). The frontier uses this to keep its checkpoint behind pages still in the queue.
+ */
+public class ArticleWriter implements AutoCloseable {
+
+    private static final String UPSERT_ARTICLE_SQL =
+            "INSERT INTO articles(url_hash, title, content, tags, source_url, content_hash, simhash) VALUES (?,?,?,?,?,?,?) "
+            + "ON DUPLICATE KEY UPDATE title = VALUES(title), content = VALUES(content), "
+            + "tags = VALUES(tags), content_hash = VALUES(content_hash), simhash = VALUES(simhash), "
+            + "crawled_at = CURRENT_TIMESTAMP";
+
+    private static final String UPSERT_ALIAS_SQL =
+            "INSERT INTO article_aliases(url_hash, source_url, canonical_url_hash, simhash, distance) VALUES (?,?,?,?,?) "
+            + "ON DUPLICATE KEY UPDATE canonical_url_hash = VALUES(canonical_url_hash), simhash = VALUES(simhash), "
+            + "distance = VALUES(distance)";
+
+    private static final String DELETE_ALIAS_SQL = "DELETE FROM article_aliases WHERE url_hash = ?";
+
+    private static final String UPSERT_STATE_SQL =
+            "INSERT INTO crawl_state(url_hash, source_url, etag, last_modified, content_hash) VALUES (?,?,?,?,?) "
+            + "ON DUPLICATE KEY UPDATE etag = VALUES(etag), last_modified = VALUES(last_modified), "
+            + "content_hash = VALUES(content_hash), fetched_at = CURRENT_TIMESTAMP";
+
+    /** One queued write: the new crawl state, plus the article (or its alias) when its content changed. */
+    private record Pending(CrawledArticle article, ArticleAlias alias, CrawlState state) {}
+
+    private static final Pending EOF = new Pending(null, null, null);
+
+    private final Connection conn;
+    private final int batchSize;
+    private final long flushMs;
+    private final BlockingQueue<Pending> queue;
+    private final Thread thread;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong aliased = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final Consumer<String> onFailedArticle;
+
+    public ArticleWriter(Connection conn, int batchSize, long flushMs, int queueCapacity,
+                         Consumer<String> onFailedArticle) {
+        this.conn = conn;
+        this.onFailedArticle = onFailedArticle;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMs = Math.max(1, flushMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.batchSize, queueCapacity));
+        this.thread = new Thread(this::drainLoop, "article-writer");
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queue a write; blocks while the queue is full.
+     * Pass a null {@code article} when only the crawl state changed.
+     */
+    public void submit(CrawledArticle article, CrawlState state) throws InterruptedException {
+        enqueue(new Pending(article, null, state));
+    }
+
+    /** Queue a near-duplicate: recorded as an alias of its canonical article, never inserted. */
+    public void submitAlias(ArticleAlias alias, CrawlState state) throws InterruptedException {
+        enqueue(new Pending(null, alias, state));
+    }
+
+    private void enqueue(Pending p) throws InterruptedException {
+        // counted before it is queued, so submittedCount() never lags a write already in the queue
+        submitted.incrementAndGet();
+        while (!queue.offer(p, 1, TimeUnit.SECONDS)) {
+            if (!thread.isAlive()) throw new IllegalStateException("writer is not running");
+        }
+    }
+
+    public long writtenCount() { return written.get(); }
+
+    public long failedCount() { return failed.get(); }
+
+    public long aliasedCount() { return aliased.get(); }
+
+    public int queueDepth() { return queue.size(); }
+
+    /** Writes handed to {@link #submit} or {@link #submitAlias} so far. */
+    public long submittedCount() { return submitted.get(); }
+
+    /** Writes taken off the queue and committed or reported failed, in queue order. */
+    public long processedCount() { return processed.get(); }
+
+    /** Flush whatever is queued and stop the writer thread. */
+    @Override
+    public void close() throws InterruptedException {
+        if (!thread.isAlive()) return;
+        queue.put(EOF);
+        thread.join();
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try (PreparedStatement articles = conn.prepareStatement(UPSERT_ARTICLE_SQL);
+             PreparedStatement aliases = conn.prepareStatement(UPSERT_ALIAS_SQL);
+             PreparedStatement unaliases = conn.prepareStatement(DELETE_ALIAS_SQL);
+             PreparedStatement states = conn.prepareStatement(UPSERT_STATE_SQL)) {
+            boolean done = false;
+            while (!done) {
+                Pending first = queue.take();
+                if (first == EOF) break;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    if (next == EOF) { done = true; break; }
+                    batch.add(next);
+                }
+
+                flush(articles, aliases, unaliases, states, batch);
+                processed.addAndGet(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.err.println("[WRITER] cannot prepare insert -> " + e.getMessage());
+        }
+    }
+
+    private void flush(PreparedStatement articles, PreparedStatement aliases, PreparedStatement unaliases,
+                       PreparedStatement states, List<Pending> batch) {
+        long start = System.nanoTime();
+        int changed = 0;
+        int duplicates = 0;
+        try {
+            for (Pending p : batch) {
+                CrawledArticle a = p.article();
+                ArticleAlias alias = p.alias();
+                CrawlState st = p.state();
+                if (a != null) {
+                    articles.setString(1, st.urlHash());
+                    articles.setString(2, a.title());
+                    articles.setString(3, a.content());
+                    articles.setString(4, a.tags());
+                    articles.setString(5, a.sourceUrl());
+                    articles.setString(6, st.contentHash());
+                    articles.setLong(7, a.simhash());
+                    articles.addBatch();
+                    unaliases.setString(1, st.urlHash());
+                    unaliases.addBatch();
+                    changed++;
+                } else if (alias != null) {
+                    aliases.setString(1, alias.urlHash());
+                    aliases.setString(2, alias.sourceUrl());
+                    aliases.setString(3, alias.canonicalUrlHash());
+                    aliases.setLong(4, alias.simhash());
+                    aliases.setInt(5, alias.distance());
+                    aliases.addBatch();
+                    duplicates++;
+                }
+                states.setString(1, st.urlHash());
+                states.setString(2, st.sourceUrl());
+                states.setString(3, st.etag());
+                states.setString(4, st.lastModified());
+                states.setString(5, st.contentHash());
+                states.addBatch();
+            }
+            if (changed > 0) {
+                articles.executeBatch();
+                unaliases.executeBatch();
+            }
+            if (duplicates > 0) aliases.executeBatch();
+            states.executeBatch();
+            conn.commit();
+            written.addAndGet(changed);
+            aliased.addAndGet(duplicates);
+            System.out.println("[WRITER] committed " + changed + " changed articles, " + duplicates + " aliases, "
+                    + batch.size() + " crawl states in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (SQLException e) {
+            failed.addAndGet(batch.size());
+            System.err.println("[WRITER] batch of " + batch.size() + " failed -> " + e.getMessage());
+            try {
+                articles.clearBatch();
+                aliases.clearBatch();
+                unaliases.clearBatch();
+                states.clearBatch();
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // connection is probably gone; the next batch will report it
+            }
+            for (Pending p : batch) {
+                if (p.article() != null) onFailedArticle.accept(p.state().urlHash());
+            }
+        }
+    }
+}
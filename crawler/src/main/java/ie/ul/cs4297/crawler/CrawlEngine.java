@@ -0,0 +1,82 @@
+package ie.ul.cs4297.crawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a fixed pool of fetch workers over a {@link HostScheduler}.
+ *
+ * Each worker leases the next host that is allowed to fetch, processes one URL and hands the
+ * lease back, so politeness is enforced per host and throughput grows with the number of
+ * distinct hosts rather than being capped by one global sleep.
+ */
+public class CrawlEngine {
+
+    /** Fetches and processes a single URL; discovered links go back through the scheduler. */
+    @FunctionalInterface
+    public interface PageTask {
+        void crawl(String url) throws Exception;
+    }
+
+    private final HostScheduler scheduler;
+    private final int threads;
+    private final PageTask task;
+    private final AtomicInteger active = new AtomicInteger();
+
+    public CrawlEngine(HostScheduler scheduler, int threads, PageTask task) {
+        this.scheduler = scheduler;
+        this.threads = Math.max(1, threads);
+        this.task = task;
+    }
+
+    /** Run until the frontier is exhausted or {@link #stop()} is called. */
+    public void run() throws InterruptedException {
+        AtomicInteger ids = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "crawler-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(this::workLoop));
+            }
+            for (Future<?> w : workers) {
+                try {
+                    w.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    System.err.println("[ERROR] crawler worker died -> " + e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void stop() {
+        scheduler.close();
+    }
+
+    public int activeFetches() { return active.get(); }
+
+    private Void workLoop() throws InterruptedException {
+        HostScheduler.Lease lease;
+        while ((lease = scheduler.take()) != null) {
+            active.incrementAndGet();
+            try {
+                task.crawl(lease.url());
+            } catch (Exception ex) {
+                System.err.println("[ERROR] " + lease.url() + " -> " + ex.getMessage());
+            } finally {
+                active.decrementAndGet();
+                scheduler.release(lease);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package ie.ul.cs4297.crawler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** What we remember about a detail URL between crawls: validators for conditional GETs + content hash. */
+public record CrawlState(
+        String urlHash,
+        String sourceUrl,
+        String etag,
+        String lastModified,
+        String contentHash
+) {
+
+    /** SHA-256 of the URL; the upsert key for both {@code articles} and {@code crawl_state}. */
+    public static String urlHash(String url) {
+        return sha256Hex(url);
+    }
+
+    /** SHA-256 over the extracted fields, so unchanged pages can be detected regardless of markup churn. */
+    public static String contentHash(String title, String content, String tags) {
+        return sha256Hex(title + '\u0000' + content + '\u0000' + (tags == null ? "" : tags));
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
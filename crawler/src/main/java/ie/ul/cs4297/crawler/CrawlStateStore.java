@@ -0,0 +1,55 @@
+package ie.ul.cs4297.crawler;
+
+import ie.ul.cs4297.crawler.dedup.SimHashIndex;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Read side of {@code crawl_state}, used to build conditional GETs, and of the article
+ * fingerprints the near-duplicate check starts from.
+ * Has its own connection so lookups never queue behind the writer's batches.
+ */
+public class CrawlStateStore {
+
+    private final Connection conn;
+    private final PreparedStatement find;
+
+    public CrawlStateStore(Connection conn) throws SQLException {
+        this.conn = conn;
+        this.conn.setAutoCommit(true);
+        this.find = conn.prepareStatement(
+                "SELECT source_url, etag, last_modified, content_hash FROM crawl_state WHERE url_hash = ?");
+    }
+
+    /** Previous state for a URL, or null if it has never been stored. */
+    public synchronized CrawlState find(String urlHash) throws SQLException {
+        find.setString(1, urlHash);
+        try (ResultSet rs = find.executeQuery()) {
+            if (!rs.next()) return null;
+            return new CrawlState(urlHash,
+                    rs.getString("source_url"),
+                    rs.getString("etag"),
+                    rs.getString("last_modified"),
+                    rs.getString("content_hash"));
+        }
+    }
+
+    /** Index the SimHash of every stored article, so pages from earlier crawls count as originals. */
+    public synchronized int loadFingerprints(SimHashIndex index) throws SQLException {
+        int n = 0;
+        try (Statement st = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            st.setFetchSize(Integer.MIN_VALUE);   // Connector/J: stream rows instead of buffering them all
+            try (ResultSet rs = st.executeQuery("SELECT url_hash, simhash FROM articles WHERE simhash IS NOT NULL")) {
+                while (rs.next()) {
+                    index.put(rs.getString(1), rs.getLong(2));
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+}
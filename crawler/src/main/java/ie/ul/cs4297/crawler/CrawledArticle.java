@@ -0,0 +1,10 @@
+package ie.ul.cs4297.crawler;
+
+/** An article extracted from a detail page, on its way to the writer stage. */
+public record CrawledArticle(
+        String title,
+        String content,
+        String tags,
+        String sourceUrl,
+        long simhash
+) {}
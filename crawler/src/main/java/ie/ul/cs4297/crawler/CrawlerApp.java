@@ -1,22 +1,27 @@
 package ie.ul.cs4297.crawler;
 
+import ie.ul.cs4297.crawler.dedup.SimHash;
+import ie.ul.cs4297.crawler.dedup.SimHashIndex;
+import ie.ul.cs4297.crawler.extract.DetailExtractor;
+import ie.ul.cs4297.crawler.extract.DetailPage;
+import ie.ul.cs4297.crawler.frontier.DiskFrontier;
+import ie.ul.cs4297.crawler.frontier.VisitedSet;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.util.ArrayDeque;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CrawlerApp {
 
     private static final String JDBC_URL =
-            "jdbc:mysql://127.0.0.1:3307/cs4297?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+            "jdbc:mysql://127.0.0.1:3307/cs4297?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+            + "&rewriteBatchedStatements=true";
     private static final String JDBC_USER = "cs4297";
     private static final String JDBC_PASS = "cs4297";
 
@@ -24,144 +29,252 @@ public class CrawlerApp {
             "https://books.toscrape.com/catalogue/page-1.html"
     );
 
-    private static final int SLEEP_MS    = 5000;  // ethics: 5s/request
-    private static final int MAX_INSERTS = 2;   // small cap while testing
+    private static final int SLEEP_MS    = 5000;  // ethics: 5s/request, enforced per host
+    private static final int MAX_INSERTS = Integer.getInteger("crawler.max-inserts", 2);   // small cap while testing
+    private static final int THREADS     = Integer.getInteger("crawler.threads", 8);
+
+    // writer stage: flush on batch size or elapsed time, block extraction when the queue is full
+    private static final int  WRITE_BATCH    = Integer.getInteger("crawler.write-batch", 200);
+    private static final long WRITE_FLUSH_MS = Long.getLong("crawler.write-flush-ms", 1000);
+    private static final int  WRITE_QUEUE    = Integer.getInteger("crawler.write-queue", 2000);
+
+    // persistent frontier + compact visited set: a killed crawl resumes from the last checkpoint
+    private static final Path STATE_DIR     = Path.of(System.getProperty("crawler.state-dir", "crawl-state"));
+    private static final long EXPECTED_URLS = Long.getLong("crawler.expected-urls", 10_000_000L);
+    private static final int  QUEUE_WINDOW  = Integer.getInteger("crawler.queue-window", 10_000);
+
+    // incremental recrawl: start a fresh frontier, revisit known URLs with conditional GETs
+    private static final boolean RECRAWL = Boolean.getBoolean("crawler.recrawl");
+
+    // detail-page extractor: "dom" (jsoup Document + selectors) or "streaming" (single pass, stops early);
+    // dom stays the default until the streaming one has matched it on real crawls, not just the parity tests
+    private static final DetailExtractor EXTRACTOR =
+            DetailExtractor.named(System.getProperty("crawler.extractor", "dom"));
+
+    // near-duplicate check: pages whose SimHash is within this many bits (of 64) of a kept article
+    // are stored as aliases of it instead of new articles; -1 turns the check off
+    private static final int SIMHASH_DISTANCE = Integer.getInteger("crawler.simhash-distance", 3);
+    private static final int SIMHASH_EXPECTED = Integer.getInteger("crawler.simhash-expected", 100_000);
+
+    // Prometheus scrape endpoint for fetch/parse latency; 0 disables the HTTP server
+    private static final int METRICS_PORT = Integer.getInteger("crawler.metrics-port", 9404);
+
+    private final ArticleWriter writer;
+    private final CrawlStateStore states;
+    private final HostScheduler scheduler;
+    private final VisitedSet visited;
+    private final CrawlerMetrics metrics;
+    private final SimHashIndex fingerprints;
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private CrawlEngine engine;
+
+    private CrawlerApp(ArticleWriter writer, CrawlStateStore states, HostScheduler scheduler, VisitedSet visited,
+                       CrawlerMetrics metrics, SimHashIndex fingerprints) {
+        this.writer = writer;
+        this.states = states;
+        this.scheduler = scheduler;
+        this.visited = visited;
+        this.metrics = metrics;
+        this.fingerprints = fingerprints;
+    }
 
     public static void main(String[] args) throws Exception {
-        try (Connection conn = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASS)) {
+        if (RECRAWL) DiskFrontier.reset(STATE_DIR);
+
+        VisitedSet visited = new VisitedSet(EXPECTED_URLS);
+        try (CrawlerMetrics metrics = new CrawlerMetrics(METRICS_PORT);
+             Connection conn = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASS);
+             Connection lookupConn = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASS)) {
             conn.setAutoCommit(false);
 
-            ArrayDeque<String> queue = new ArrayDeque<>(SEEDS);
-            HashSet<String> visited = new HashSet<>();
-            int inserted = 0;
+            CrawlStateStore states = new CrawlStateStore(lookupConn);
+            SimHashIndex fingerprints = null;
+            if (SIMHASH_DISTANCE >= 0) {
+                fingerprints = new SimHashIndex(SIMHASH_DISTANCE, SIMHASH_EXPECTED);
+                int loaded = states.loadFingerprints(fingerprints);
+                System.out.println("[DEDUP] loaded " + loaded + " article fingerprints, max distance "
+                        + fingerprints.maxDistance());
+            }
 
-            while (!queue.isEmpty() && inserted < MAX_INSERTS) {
-                String url = queue.poll();
-                if (url == null || visited.contains(url)) continue;
-                if (!url.startsWith("https://books.toscrape.com/")) continue;
-                visited.add(url);
+            // an article that never made it to MySQL must not stay the canonical copy of its near-duplicates
+            SimHashIndex index = fingerprints;
+            ArticleWriter writer = new ArticleWriter(conn, WRITE_BATCH, WRITE_FLUSH_MS, WRITE_QUEUE,
+                    urlHash -> { if (index != null) index.remove(urlHash); });
 
-                safeSleep(SLEEP_MS);
+            // closed after the writer, so the final checkpoint sees every write committed
+            CrawlerApp app;
+            try (DiskFrontier frontier = new DiskFrontier(STATE_DIR, visited::add, writer::processedCount)) {
+                System.out.println("[FRONTIER] resumed with " + visited.size() + " known URLs, "
+                        + frontier.unreadBytes() + " bytes unread");
+                writer.start();
+                app = new CrawlerApp(writer, states,
+                        new HostScheduler(SLEEP_MS, frontier, QUEUE_WINDOW, writer::submittedCount),
+                        visited, metrics, fingerprints);
+                app.registerMeters();
+                SEEDS.forEach(app::enqueue);
 
+                app.engine = new CrawlEngine(app.scheduler, THREADS, app::crawl);
                 try {
-                    Document doc = Jsoup.connect(url)
-                            .userAgent("Mozilla/5.0 (compatible; CS4297 Crawler; +https://example.edu)")
-                            .referrer("https://www.google.com/")
-                            .timeout(25000)
-                            .get();
-
-                    // Correct URL classification
-                    boolean isListing = url.contains("/catalogue/") && url.contains("/page-") && url.endsWith(".html");
-                    boolean isDetail  = url.contains("/catalogue/") && url.endsWith("/index.html");
-
-                    if (isDetail) {
-                        // --------- Extract from a book detail page ----------
-                        String title = selText(doc, "div.product_main h1");
-                        if (title.isBlank()) title = doc.title();
-
-                        // Description: the paragraph right after #product_description
-                        String description = "";
-                        Element descHeader = doc.selectFirst("#product_description");
-                        if (descHeader != null) {
-                            Element p = descHeader.parent().selectFirst("#product_description + p");
-                            // If the direct sibling query fails (older jsoup), try manual sibling walk:
-                            if (p == null) {
-                                Element sibling = descHeader.nextElementSibling();
-                                if (sibling != null && sibling.tagName().equalsIgnoreCase("p")) {
-                                    p = sibling;
-                                }
-                            }
-                            if (p != null) description = p.text();
-                        }
-
-                        // Fallback if no explicit description: price + availability
-                        if (description.isBlank()) {
-                            String price = selText(doc, "p.price_color");
-                            String avail = selText(doc, "p.availability");
-                            description = (price + " " + avail).trim();
-                        }
-
-                        // Tags: category + star rating
-                        String category = selText(doc, "ul.breadcrumb li:nth-child(3) a");
-                        String rating = "";
-                        Element ratingEl = doc.selectFirst("p.star-rating");
-                        if (ratingEl != null) {
-                            String[] parts = ratingEl.className().split("\\s+"); // e.g., "star-rating Three"
-                            if (parts.length >= 2) rating = parts[1];
-                        }
-
-                        String tags = List.of(category, rating).stream()
-                                .filter(s -> s != null && !s.isBlank())
-                                .limit(10)
-                                .collect(Collectors.joining(";"));
-
-                        if (isNonEmpty(title) && isNonEmpty(description)) {
-                            insertArticle(conn, title, description, tags, url);
-                            conn.commit();
-                            inserted++;
-                            System.out.println("[CRAWLED] (" + inserted + "/" + MAX_INSERTS + ") " + title);
-                        } else {
-                            conn.rollback();
-                            System.out.println("[SKIP] " + url + " (missing title/content)");
-                        }
-
-                    } else if (isListing) {
-                        // --------- Discover detail links on a listing page ----------
-                        for (Element a : doc.select("article.product_pod h3 a[href]")) {
-                            String href = absolutize(url, a.attr("href"));
-                            if (href != null && href.startsWith("https://books.toscrape.com/") && href.endsWith("/index.html")) {
-                                queue.offer(href);
-                            }
-                        }
-
-                        // Next page link
-                        Element next = doc.selectFirst("li.next a[href]");
-                        if (next != null) {
-                            String nextUrl = absolutize(url, next.attr("href"));
-                            if (nextUrl != null && nextUrl.startsWith("https://books.toscrape.com/")) {
-                                queue.offer(nextUrl);
-                            }
-                        }
-
-                        System.out.println("[LIST] queued more links from " + url);
+                    app.engine.run();
+                } finally {
+                    writer.close();
+                }
+            }
+            System.out.println("[DONE] wrote " + writer.writtenCount() + " articles ("
+                    + writer.failedCount() + " failed, " + app.unchanged.get() + " unchanged, "
+                    + writer.aliasedCount() + " near-duplicates) across "
+                    + app.scheduler.hostCount() + " host(s)");
+        }
+    }
+
+    private void registerMeters() {
+        metrics.counter("crawler.articles.written", "Articles written to MySQL", writer::writtenCount);
+        metrics.counter("crawler.articles.failed", "Articles whose write failed", writer::failedCount);
+        metrics.counter("crawler.pages.unchanged", "Pages skipped by 304 or identical content", unchanged::get);
+        metrics.counter("crawler.articles.aliased", "Near-duplicate pages stored as aliases", writer::aliasedCount);
+        if (fingerprints != null) {
+            metrics.gauge("crawler.simhash.fingerprints", "Articles in the near-duplicate index", fingerprints::size);
+        }
+        metrics.gauge("crawler.writer.queue", "Writes waiting for the writer thread", writer::queueDepth);
+        metrics.gauge("crawler.frontier.queued", "URLs in the scheduler window", scheduler::queuedCount);
+        metrics.gauge("crawler.hosts", "Hosts known to the scheduler", scheduler::hostCount);
+    }
+
+    private void enqueue(String url) {
+        if (url == null || !url.startsWith("https://books.toscrape.com/")) return;
+        if (visited.add(url)) scheduler.offer(url);
+    }
+
+    private void crawl(String url) throws Exception {
+        if (inserted.get() >= MAX_INSERTS) {
+            engine.stop();
+            return;
+        }
+
+        // Correct URL classification
+        boolean isListing = url.contains("/catalogue/") && url.contains("/page-") && url.endsWith(".html");
+        boolean isDetail  = url.contains("/catalogue/") && url.endsWith("/index.html");
+        if (!isDetail && !isListing) return; // ignore non-matching pages (e.g., base home)
+
+        // Detail pages are revalidated with the validators from the last crawl
+        CrawlState previous = isDetail ? states.find(CrawlState.urlHash(url)) : null;
+        long fetchStart = System.nanoTime();
+        org.jsoup.Connection.Response res;
+        try {
+            res = fetch(url, previous);
+            metrics.fetched(fetchStart, res.statusCode());
+        } catch (IOException e) {
+            metrics.fetchFailed(fetchStart);
+            throw e;
+        }
+        if (res.statusCode() == 304) {
+            unchanged.incrementAndGet();
+            System.out.println("[UNCHANGED] " + url + " (304)");
+            return;
+        }
+        if (res.statusCode() >= 400) {
+            throw new IOException("HTTP " + res.statusCode());
+        }
+        if (isDetail) {
+            // --------- Extract from a book detail page ----------
+            long parseStart = System.nanoTime();
+            DetailPage page = EXTRACTOR.extract(url, res.body());
+            metrics.parsed("detail", parseStart);
+            String title = page.title();
+            String description = page.description();
+            String tags = page.tags();
+
+            if (isNonEmpty(title) && isNonEmpty(description)) {
+                CrawlState state = new CrawlState(CrawlState.urlHash(url), url,
+                        res.header("ETag"), res.header("Last-Modified"),
+                        CrawlState.contentHash(title, description, tags));
+
+                if (previous != null && state.contentHash().equals(previous.contentHash())) {
+                    // same extracted fields: refresh validators only, nothing goes downstream
+                    writer.submit(null, state);
+                    unchanged.incrementAndGet();
+                    System.out.println("[UNCHANGED] " + url + " (same content)");
+                } else {
+                    long simhash = SimHash.of(title, description);
+                    SimHashIndex.Match original = fingerprints == null ? null : fingerprints.nearest(state.urlHash(), simhash);
+                    if (original != null) {
+                        // near-duplicate of an article we keep: record where it was seen, send nothing downstream
+                        writer.submitAlias(new ArticleAlias(state.urlHash(), url, original.urlHash(), simhash,
+                                original.distance()), state);
+                        System.out.println("[DUPLICATE] " + url + " (" + original.distance() + " bits from "
+                                + original.urlHash() + ")");
                     } else {
-                        // ignore non-matching pages (e.g., base home)
+                        int n = saveArticle(new CrawledArticle(title, description, tags, url, simhash), state);
+                        if (n > 0) System.out.println("[CRAWLED] (" + n + "/" + MAX_INSERTS + ") " + title);
                     }
+                }
+            } else {
+                System.out.println("[SKIP] " + url + " (missing title/content)");
+            }
+
+        } else if (isListing) {
+            // --------- Discover detail links on a listing page ----------
+            long parseStart = System.nanoTime();
+            Document doc = res.parse();
+            List<Element> links = doc.select("article.product_pod h3 a[href]");
+            Element next = doc.selectFirst("li.next a[href]");
+            metrics.parsed("listing", parseStart);
 
-                } catch (Exception ex) {
-                    conn.rollback();
-                    System.err.println("[ERROR] " + url + " -> " + ex.getMessage());
+            for (Element a : links) {
+                String href = absolutize(url, a.attr("href"));
+                if (href != null && href.endsWith("/index.html")) {
+                    enqueue(href);
                 }
             }
+
+            // Next page link
+            if (next != null) {
+                enqueue(absolutize(url, next.attr("href")));
+            }
+
+            System.out.println("[LIST] queued more links from " + url);
         }
     }
 
-    // ---------- Helpers ----------
-
-    private static String selText(Document d, String css) {
-        Element el = d.selectFirst(css);
-        return (el == null) ? "" : el.text();
+    /** GET a page, sending If-None-Match / If-Modified-Since when we have validators for it. */
+    private static org.jsoup.Connection.Response fetch(String url, CrawlState previous) throws IOException {
+        org.jsoup.Connection req = Jsoup.connect(url)
+                .userAgent("Mozilla/5.0 (compatible; CS4297 Crawler; +https://example.edu)")
+                .referrer("https://www.google.com/")
+                .timeout(25000)
+                .ignoreHttpErrors(true);
+        if (previous != null) {
+            if (isNonEmpty(previous.etag())) req.header("If-None-Match", previous.etag());
+            if (isNonEmpty(previous.lastModified())) req.header("If-Modified-Since", previous.lastModified());
+        }
+        return req.execute();
     }
 
-    private static void insertArticle(Connection conn, String title, String content, String tags, String url) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO articles(title, content, tags, source_url) VALUES (?,?,?,?)")) {
-            ps.setString(1, title);
-            ps.setString(2, content);
-            ps.setString(3, tags);
-            ps.setString(4, url);
-            ps.executeUpdate();
+    /**
+     * Hand one new or changed article to the writer stage and make it the canonical copy for
+     * near-duplicate checks. Returns the new count, or 0 if the cap was already reached.
+     */
+    private int saveArticle(CrawledArticle article, CrawlState state) throws InterruptedException {
+        int n = inserted.incrementAndGet();
+        if (n > MAX_INSERTS) return 0;
+        if (fingerprints != null) fingerprints.put(state.urlHash(), article.simhash());
+        try {
+            writer.submit(article, state);
+        } catch (InterruptedException | RuntimeException e) {
+            if (fingerprints != null) fingerprints.remove(state.urlHash());
+            throw e;
         }
+        if (n >= MAX_INSERTS) engine.stop();
+        return n;
     }
 
+    // ---------- Helpers ----------
+
     private static boolean isNonEmpty(String s) {
         return s != null && !s.isBlank();
     }
 
-    private static void safeSleep(long millis) {
-        try { Thread.sleep(millis); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-    }
-
     private static String absolutize(String baseUrl, String href) {
         try { return new java.net.URI(baseUrl).resolve(href).toString(); }
         catch (Exception e) { return null; }
@@ -0,0 +1,90 @@
+package ie.ul.cs4297.crawler;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the crawl, served in Prometheus text format at {@code /metrics} by the
+ * JDK's built-in HTTP server (the crawler has no web stack of its own).
+ *
+ * <ul>
+ *   <li>{@code crawler.fetch{outcome}} - HTTP fetch latency by status class (2xx, 304, 4xx,
+ *       5xx) or {@code error} for connection failures</li>
+ *   <li>{@code crawler.parse{page}} - time to extract a detail page or parse a listing</li>
+ *   <li>counters for articles written, failed, unchanged and aliased; gauges for the writer queue, the
+ *       scheduler window and the number of hosts</li>
+ * </ul>
+ * Latency timers publish histogram buckets so percentiles can be aggregated across crawlers.
+ */
+public class CrawlerMetrics implements AutoCloseable {
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    private final HttpServer server;
+
+    /** Start the scrape endpoint on {@code port}; 0 or less keeps metrics in-process only. */
+    public CrawlerMetrics(int port) throws IOException {
+        if (port <= 0) {
+            this.server = null;
+            return;
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        System.out.println("[METRICS] serving http://0.0.0.0:" + port + "/metrics");
+    }
+
+    public MeterRegistry registry() { return registry; }
+
+    public void fetched(long startNanos, int status) {
+        String outcome = status == 304 ? "304" : (status / 100) + "xx";
+        timer("crawler.fetch", "outcome", outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void fetchFailed(long startNanos) {
+        timer("crawler.fetch", "outcome", "error").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void parsed(String page, long startNanos) {
+        timer("crawler.parse", "page", page).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value).description(description).register(registry);
+    }
+
+    /** A monotonic count read from an existing counter (e.g. an {@code AtomicLong}) at scrape time. */
+    public void counter(String name, String description, Supplier<Number> value) {
+        FunctionCounter.builder(name, value, v -> v.get().doubleValue()).description(description).register(registry);
+    }
+
+    @Override
+    public void close() {
+        if (server != null) server.stop(0);
+    }
+
+    private Timer timer(String name, String tag, String value) {
+        return Timer.builder(name)
+                .tag(tag, value)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,159 @@
+package ie.ul.cs4297.crawler;
+
+import ie.ul.cs4297.crawler.frontier.DiskFrontier;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-host politeness scheduler over a {@link DiskFrontier}.
+ *
+ * Every host has its own URL queue and a "next allowed fetch" time. A host is leased to at most
+ * one worker at a time; when the worker releases it, the host cools down for {@code delayMs}
+ * before it becomes eligible again. {@link #take()} always hands out the host whose cool-down
+ * expires first, so workers only ever wait when every host with queued work is cooling down.
+ *
+ * Only a bounded window of URLs is pulled from the frontier into the per-host queues; the rest
+ * stay on disk until the window drains.
+ *
+ * A released URL is completed in the frontier against the writer's {@code writesSubmitted}
+ * count at that moment, so the checkpoint does not pass it until its rows are committed.
+ */
+public class HostScheduler {
+
+    /** A URL handed to a worker, together with the host it holds a lease on. */
+    public record Lease(String host, String url, long seq) {}
+
+    private static final class HostQueue {
+        final String host;
+        final ArrayDeque<DiskFrontier.Entry> urls = new ArrayDeque<>();
+        long nextFetchAt;      // epoch millis
+        boolean leased;
+        boolean scheduled;     // currently in the ready heap
+
+        HostQueue(String host) { this.host = host; }
+    }
+
+    private final long delayMs;
+    private final DiskFrontier frontier;
+    private final int window;
+    private final LongSupplier writesSubmitted;
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    private final PriorityQueue<HostQueue> ready =
+            new PriorityQueue<>(Comparator.comparingLong(h -> h.nextFetchAt));
+
+    private int queued;   // URLs waiting in any host queue
+    private int leased;   // hosts currently being fetched
+    private boolean closed;
+
+    public HostScheduler(long delayMs, DiskFrontier frontier, int window, LongSupplier writesSubmitted) {
+        this.delayMs = delayMs;
+        this.frontier = frontier;
+        this.window = Math.max(1, window);
+        this.writesSubmitted = writesSubmitted;
+    }
+
+    /** Append a newly discovered URL to the frontier. Returns false if the URL has no usable host. */
+    public synchronized boolean offer(String url) {
+        if (closed || hostOf(url) == null) return false;
+        frontier.append(url);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Block until some host may be fetched and lease its next URL.
+     * Returns null once the scheduler is closed, or when nothing is queued and no lease is
+     * outstanding (i.e. no worker can discover more work).
+     */
+    public synchronized Lease take() throws InterruptedException {
+        while (true) {
+            if (closed) return null;
+            if (queued < window / 2 + 1) refill();
+
+            HostQueue head = ready.peek();
+            if (head == null) {
+                if (leased == 0 && queued == 0 && frontier.isDrained()) {
+                    notifyAll(); // wake the other idle workers so they can exit too
+                    return null;
+                }
+                wait();
+                continue;
+            }
+
+            long waitMs = head.nextFetchAt - System.currentTimeMillis();
+            if (waitMs > 0) {
+                wait(waitMs);
+                continue;
+            }
+
+            ready.poll();
+            head.scheduled = false;
+            head.leased = true;
+            leased++;
+            queued--;
+            DiskFrontier.Entry e = head.urls.pollFirst();
+            return new Lease(head.host, e.url(), e.seq());
+        }
+    }
+
+    /** Return a host lease; the host becomes eligible again after the politeness delay. */
+    public synchronized void release(Lease lease) {
+        // the worker has already submitted this page's writes, so they are within this count
+        frontier.complete(lease.seq(), writesSubmitted.getAsLong());
+        HostQueue hq = hosts.get(lease.host());
+        if (hq == null || !hq.leased) return;
+
+        hq.leased = false;
+        leased--;
+        hq.nextFetchAt = System.currentTimeMillis() + delayMs;
+        if (!hq.urls.isEmpty()) {
+            hq.scheduled = true;
+            ready.add(hq);
+        }
+        notifyAll();
+    }
+
+    /** Stop handing out work; blocked and future {@link #take()} calls return null. */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized int queuedCount() { return queued; }
+
+    /** Move URLs from the on-disk frontier into the per-host queues, up to the window size. */
+    private void refill() {
+        DiskFrontier.Entry e;
+        while (queued < window && (e = frontier.next()) != null) {
+            String host = hostOf(e.url());
+            if (host == null) {
+                frontier.complete(e.seq());
+                continue;
+            }
+            HostQueue hq = hosts.computeIfAbsent(host, HostQueue::new);
+            hq.urls.addLast(e);
+            queued++;
+            if (!hq.leased && !hq.scheduled) {
+                hq.scheduled = true;
+                ready.add(hq);
+            }
+        }
+    }
+
+    public synchronized int hostCount() { return hosts.size(); }
+
+    static String hostOf(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return (host == null) ? null : host.toLowerCase();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
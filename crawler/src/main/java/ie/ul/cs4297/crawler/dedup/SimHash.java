@@ -0,0 +1,68 @@
+package ie.ul.cs4297.crawler.dedup;
+
+/**
+ * 64-bit SimHash (Charikar) of an article's title and content.
+ *
+ * The text is lower-cased and split on anything that is not a letter or digit; every word is
+ * hashed to 64 bits and votes +1 or -1 on each bit, so a word that occurs n times weighs n.
+ * A fingerprint bit is set where the votes are positive. Texts that share most of their words
+ * end up a few bits apart, so near-duplicates (the same description behind another URL, or with
+ * a changed footer) are found by Hamming distance instead of exact hashes. On book descriptions
+ * a trailing "...more" or one edited phrase moves 3-6 bits; unrelated texts are 20+ apart.
+ */
+public final class SimHash {
+
+    private SimHash() {}
+
+    public static long of(String title, String content) {
+        int[] votes = new int[64];
+        feed(title, votes);
+        feed(content, votes);
+
+        long fp = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) fp |= 1L << bit;
+        }
+        return fp;
+    }
+
+    /** Bits that differ between two fingerprints. */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /** Tokenise {@code text} and let every word vote; FNV-1a over the lower-cased chars. */
+    private static void feed(String text, int[] votes) {
+        if (text == null) return;
+        long h = 0;
+        boolean inWord = false;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (!inWord) h = 0xcbf29ce484222325L;
+                h ^= Character.toLowerCase(c);
+                h *= 0x100000001b3L;
+                inWord = true;
+            } else if (inWord) {
+                inWord = false;
+                vote(votes, mix(h));
+            }
+        }
+    }
+
+    private static void vote(int[] votes, long h) {
+        for (int bit = 0; bit < 64; bit++) {
+            votes[bit] += ((h >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    /** MurmurHash3 fmix64, so similar words still get unrelated bit patterns. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
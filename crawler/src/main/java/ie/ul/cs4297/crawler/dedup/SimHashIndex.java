@@ -0,0 +1,221 @@
+package ie.ul.cs4297.crawler.dedup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory index of article fingerprints that finds one within {@code maxDistance} bits.
+ *
+ * The 64 bits are cut into {@code maxDistance + 1} blocks. Two fingerprints at most
+ * {@code maxDistance} bits apart must agree exactly on at least one block (pigeonhole), so each
+ * block gets its own table keyed by that block's bits - the hash-table form of the permuted,
+ * sorted fingerprint tables of Manku et al. A lookup probes one bucket per table and checks the
+ * full distance only for the few candidates there, instead of comparing against every article.
+ *
+ * Entries are keyed by the article's {@code url_hash}. A URL that is already indexed is never
+ * reported as a duplicate of another article, so a recrawl updates the article it already owns.
+ * Looking up and indexing are separate calls: a page is only indexed once the writer has accepted
+ * its article, and {@link #remove} takes it out again if that write fails, so the index never
+ * points duplicates at a row that does not exist. Two near-duplicates crawled at the same moment
+ * can therefore both be kept; that costs one extra article, not a lost one.
+ *
+ * Removed and re-fingerprinted entries stay in the chains as dead slots until they make up a
+ * quarter of all entries; the tables are then rebuilt from the live ones, so a long recrawl
+ * does not grow memory or probe chains with churn.
+ */
+public class SimHashIndex {
+
+    /** The indexed article a fingerprint matched, and how many bits apart they are. */
+    public record Match(String urlHash, long simhash, int distance) {}
+
+    private static final int NONE = -1;
+    private static final int MIN_COMPACT = 64;   // dead entries before a rebuild is worth it
+
+    private final int maxDistance;
+    private final int[] shift;
+    private final long[] mask;
+
+    // entries; a replaced entry keeps its slot with a null key and is skipped until compact()
+    private long[] fingerprints;
+    private String[] keys;
+    private int count;
+    private int dead;
+    private final Map<String, Integer> byKey = new HashMap<>();
+
+    // per block: open-addressing table block value -> newest entry, plus a chain to older ones
+    private final long[][] blockKeys;
+    private final int[][] heads;
+    private final int[][] next;
+    private final int[] distinct;   // block values per table, for resizing
+
+    public SimHashIndex(int maxDistance, int expected) {
+        this.maxDistance = Math.max(0, Math.min(maxDistance, 15));
+        int blocks = this.maxDistance + 1;
+        this.shift = new int[blocks];
+        this.mask = new long[blocks];
+        for (int b = 0, start = 0; b < blocks; b++) {
+            int width = 64 / blocks + (b < 64 % blocks ? 1 : 0);
+            shift[b] = start;
+            mask[b] = width == 64 ? -1L : (1L << width) - 1;
+            start += width;
+        }
+
+        int cap = Math.max(16, expected);
+        this.fingerprints = new long[cap];
+        this.keys = new String[cap];
+        this.next = new int[blocks][cap];
+        int slots = Integer.highestOneBit(Math.max(16, cap * 2) - 1) << 1;
+        this.blockKeys = new long[blocks][slots];
+        this.heads = new int[blocks][slots];
+        this.distinct = new int[blocks];
+        for (int[] h : heads) Arrays.fill(h, NONE);
+    }
+
+    public int maxDistance() { return maxDistance; }
+
+    /** Fingerprints currently indexed, one per URL. */
+    public synchronized int size() { return byKey.size(); }
+
+    /** Removed or replaced entries still occupying slots. */
+    synchronized int deadEntries() { return dead; }
+
+    /** Index (or re-fingerprint) {@code urlHash} as a canonical article. */
+    public synchronized void put(String urlHash, long simhash) {
+        Integer old = byKey.get(urlHash);
+        if (old != null) {
+            if (fingerprints[old] == simhash) return;
+            keys[old] = null;
+            dead++;
+            compactIfSparse();
+        }
+        byKey.put(urlHash, add(urlHash, simhash));
+    }
+
+    /**
+     * The closest indexed article within {@code maxDistance} of {@code simhash}, or null if there
+     * is none or {@code urlHash} is itself indexed. Indexes nothing; {@link #put} the page once
+     * its article is accepted.
+     */
+    public synchronized Match nearest(String urlHash, long simhash) {
+        return byKey.containsKey(urlHash) ? null : closest(simhash);
+    }
+
+    /** Forget {@code urlHash}, e.g. when its article could not be written. Returns whether it was indexed. */
+    public synchronized boolean remove(String urlHash) {
+        Integer e = byKey.remove(urlHash);
+        if (e == null) return false;
+        keys[e] = null;
+        dead++;
+        compactIfSparse();
+        return true;
+    }
+
+    private Match closest(long simhash) {
+        int bestEntry = NONE;
+        int bestDistance = maxDistance + 1;
+        for (int b = 0; b < shift.length && bestDistance > 0; b++) {
+            long block = (simhash >>> shift[b]) & mask[b];
+            for (int e = head(b, block); e != NONE; e = next[b][e]) {
+                if (keys[e] == null) continue;
+                int d = Long.bitCount(simhash ^ fingerprints[e]);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    bestEntry = e;
+                }
+            }
+        }
+        return bestEntry == NONE ? null : new Match(keys[bestEntry], fingerprints[bestEntry], bestDistance);
+    }
+
+    private int add(String urlHash, long simhash) {
+        if (count == fingerprints.length) growEntries();
+        int e = count++;
+        fingerprints[e] = simhash;
+        keys[e] = urlHash;
+        link(e);
+        return e;
+    }
+
+    /** Push entry {@code e} onto the chain of its block value in every table. */
+    private void link(int e) {
+        long simhash = fingerprints[e];
+        for (int b = 0; b < shift.length; b++) {
+            if (distinct[b] >= heads[b].length / 2) growTable(b);
+            long block = (simhash >>> shift[b]) & mask[b];
+            int slot = slot(b, block);
+            if (heads[b][slot] == NONE) {
+                blockKeys[b][slot] = block;
+                distinct[b]++;
+            }
+            next[b][e] = heads[b][slot];
+            heads[b][slot] = e;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (dead >= MIN_COMPACT && dead * 4 >= count) compact();
+    }
+
+    /** Move live entries to the front, in their original order, and rebuild every table from them. */
+    private void compact() {
+        int live = 0;
+        for (int e = 0; e < count; e++) {
+            if (keys[e] == null) continue;
+            fingerprints[live] = fingerprints[e];
+            keys[live] = keys[e];
+            byKey.put(keys[live], live);
+            live++;
+        }
+        Arrays.fill(keys, live, count, null);
+        count = live;
+        dead = 0;
+        for (int b = 0; b < heads.length; b++) {
+            Arrays.fill(heads[b], NONE);
+            distinct[b] = 0;
+        }
+        for (int e = 0; e < count; e++) link(e);
+    }
+
+    private int head(int b, long block) {
+        return heads[b][slot(b, block)];
+    }
+
+    /** Slot holding {@code block} in table {@code b}, or the empty slot where it would go. */
+    private int slot(int b, long block) {
+        long[] k = blockKeys[b];
+        int[] h = heads[b];
+        int m = k.length - 1;
+        for (int i = (int) (mix(block + b) & m); ; i = (i + 1) & m) {
+            if (h[i] == NONE || k[i] == block) return i;
+        }
+    }
+
+    private void growEntries() {
+        int cap = fingerprints.length * 2;
+        fingerprints = Arrays.copyOf(fingerprints, cap);
+        keys = Arrays.copyOf(keys, cap);
+        for (int b = 0; b < next.length; b++) next[b] = Arrays.copyOf(next[b], cap);
+    }
+
+    private void growTable(int b) {
+        long[] oldKeys = blockKeys[b];
+        int[] oldHeads = heads[b];
+        blockKeys[b] = new long[oldKeys.length * 2];
+        heads[b] = new int[oldHeads.length * 2];
+        Arrays.fill(heads[b], NONE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] == NONE) continue;
+            int slot = slot(b, oldKeys[i]);
+            blockKeys[b][slot] = oldKeys[i];
+            heads[b][slot] = oldHeads[i];
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
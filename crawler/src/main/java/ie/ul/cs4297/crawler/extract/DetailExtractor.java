@@ -0,0 +1,36 @@
+package ie.ul.cs4297.crawler.extract;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Pulls title, description and tags out of a detail page's HTML. */
+public interface DetailExtractor {
+
+    DetailPage extract(String url, String html);
+
+    /** Pick an implementation by name: {@code dom} (jsoup Document + selectors) or {@code streaming}. */
+    static DetailExtractor named(String name) {
+        return switch (name) {
+            case "dom" -> new DomDetailExtractor();
+            case "streaming" -> new StreamingDetailExtractor();
+            default -> throw new IllegalArgumentException("unknown extractor: " + name);
+        };
+    }
+
+    /** Shared tail of both extractors: description fallback + tag joining. */
+    static DetailPage assemble(String title, String description, String price, String avail,
+                               String category, String rating) {
+        // Fallback if no explicit description: price + availability
+        if (description == null || description.isBlank()) {
+            description = (price + " " + avail).trim();
+        }
+
+        // Tags: category + star rating
+        String tags = List.of(category, rating).stream()
+                .filter(s -> s != null && !s.isBlank())
+                .limit(10)
+                .collect(Collectors.joining(";"));
+
+        return new DetailPage(title, description, tags);
+    }
+}
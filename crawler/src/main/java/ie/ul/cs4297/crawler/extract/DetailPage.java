@@ -0,0 +1,8 @@
+package ie.ul.cs4297.crawler.extract;
+
+/** Fields pulled from a book detail page. {@code description} already includes the price/availability fallback. */
+public record DetailPage(
+        String title,
+        String description,
+        String tags
+) {}
@@ -0,0 +1,55 @@
+package ie.ul.cs4297.crawler.extract;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/** The original extractor: build a full jsoup Document and run CSS selectors over it. */
+public class DomDetailExtractor implements DetailExtractor {
+
+    @Override
+    public DetailPage extract(String url, String html) {
+        Document doc = Jsoup.parse(html, url);
+
+        String title = selText(doc, "div.product_main h1");
+        if (title.isBlank()) title = doc.title();
+
+        // Description: the paragraph right after #product_description
+        String description = "";
+        Element descHeader = doc.selectFirst("#product_description");
+        if (descHeader != null) {
+            Element p = descHeader.parent().selectFirst("#product_description + p");
+            // If the direct sibling query fails (older jsoup), try manual sibling walk:
+            if (p == null) {
+                Element sibling = descHeader.nextElementSibling();
+                if (sibling != null && sibling.tagName().equalsIgnoreCase("p")) {
+                    p = sibling;
+                }
+            }
+            if (p != null) description = p.text();
+        }
+
+        // Fallback inputs, only looked up when there is no explicit description
+        String price = "", avail = "";
+        if (description.isBlank()) {
+            price = selText(doc, "p.price_color");
+            avail = selText(doc, "p.availability");
+        }
+
+        // Tags: category + star rating
+        String category = selText(doc, "ul.breadcrumb li:nth-child(3) a");
+        String rating = "";
+        Element ratingEl = doc.selectFirst("p.star-rating");
+        if (ratingEl != null) {
+            String[] parts = ratingEl.className().split("\\s+"); // e.g., "star-rating Three"
+            if (parts.length >= 2) rating = parts[1];
+        }
+
+        return DetailExtractor.assemble(title, description, price, avail, category, rating);
+    }
+
+    private static String selText(Document d, String css) {
+        Element el = d.selectFirst(css);
+        return (el == null) ? "" : el.text();
+    }
+}
@@ -0,0 +1,444 @@
+package ie.ul.cs4297.crawler.extract;
+
+import org.jsoup.parser.Parser;
+
+import java.util.Set;
+
+/**
+ * Single-pass, SAX-style extractor for detail pages.
+ *
+ * Walks the raw HTML tag by tag without building a DOM, keeps only an open-element stack, and
+ * captures the text of the handful of elements the DOM extractor selects:
+ * {@code div.product_main h1}, {@code p.price_color}, {@code p.availability},
+ * {@code p.star-rating}, {@code ul.breadcrumb li:nth-child(3) a} and the {@code p} right after
+ * {@code #product_description}. It stops as soon as all of them are resolved, which on these
+ * pages is right after the description and before the product table and footer.
+ *
+ * Text is normalised the way jsoup's {@code Element.text()} does it (entities decoded,
+ * whitespace collapsed, a space at block boundaries, trimmed). The end tags HTML implies are
+ * applied too: a block start closes an open {@code <p>}, a new {@code <li>} closes the previous
+ * one and a heading closes a heading, so unclosed markup splits where the DOM parser splits it.
+ * {@code DetailExtractorParityTest} holds the two extractors to identical output.
+ */
+public class StreamingDetailExtractor implements DetailExtractor {
+
+    @Override
+    public DetailPage extract(String url, String html) {
+        Scan s = new Scan(html);
+        s.run();
+
+        String title = s.h1 == null ? "" : s.h1;
+        if (title.isBlank()) title = s.docTitle == null ? "" : s.docTitle;
+
+        String description = s.description == null ? "" : s.description;
+        String price = "", avail = "";
+        if (description.isBlank()) {
+            price = s.price == null ? "" : s.price;
+            avail = s.avail == null ? "" : s.avail;
+        }
+        return DetailExtractor.assemble(title, description, price, avail,
+                s.category == null ? "" : s.category, s.rating == null ? "" : s.rating);
+    }
+
+    private enum Target { NONE, H1, PRICE, AVAIL, CATEGORY, DESCRIPTION }
+
+    /** Tags that never have content; they are not pushed on the stack. */
+    private static final String[] VOID_TAGS = {
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr"
+    };
+
+    /** Elements jsoup's {@code text()} separates from their neighbours with a space. */
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "address", "applet", "article", "aside", "audio", "blockquote", "body", "canvas", "caption", "center",
+            "col", "colgroup", "dd", "del", "details", "dir", "div", "dl", "dt", "fieldset", "figcaption", "figure",
+            "footer", "form", "frame", "frameset", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hgroup",
+            "hr", "html", "ins", "li", "link", "listing", "main", "marquee", "math", "menu", "meta", "nav",
+            "noframes", "noscript", "ol", "p", "plaintext", "pre", "script", "section", "style", "svg", "table",
+            "tbody", "td", "template", "tfoot", "th", "thead", "title", "tr", "ul", "video"
+    );
+
+    /** Start tags that end an open {@code <p>} (HTML's implied {@code </p>}). */
+    private static final Set<String> P_CLOSERS = Set.of(
+            "address", "article", "aside", "blockquote", "center", "dd", "details", "dir", "div", "dl", "dt",
+            "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hgroup", "hr", "li", "listing", "menu", "nav", "ol", "p", "plaintext", "pre", "section", "summary",
+            "table", "ul", "xmp"
+    );
+
+    /** Elements that stop the search for an open {@code <p>} to close (the "button scope"). */
+    private static final Set<String> SCOPE_TAGS = Set.of(
+            "applet", "button", "caption", "html", "marquee", "object", "table", "td", "template", "th"
+    );
+
+    /** Frequent tag names, reused instead of allocating a substring per tag. */
+    private static final String[] COMMON_TAGS = {
+            "a", "p", "i", "li", "ul", "div", "h1", "h2", "td", "th", "tr", "span", "strong", "table",
+            "article", "section", "header", "footer", "form", "button", "label", "option", "select",
+            "title", "script", "style", "head", "body", "html", "noscript", "small"
+    };
+
+    private static final class Scan {
+        final String html;
+        final int len;
+        int pos;
+
+        String[] stack = new String[32];
+        int depth;
+
+        // results
+        String docTitle, h1, price, avail, rating, category, description;
+        boolean ratingSeen, descHeaderSeen, descriptionResolved;
+
+        // structural state
+        int productMainAt = -1;         // stack index of div.product_main
+        int breadcrumbAt = -1;          // stack index of ul.breadcrumb
+        int breadcrumbChildren;
+        int thirdLiAt = -1;             // stack index of its 3rd child, if an li
+        int descHeaderAt = -1;          // stack index of #product_description
+        boolean expectDescSibling;      // #product_description just closed
+
+        // active text capture
+        Target target = Target.NONE;
+        int targetAt = -1;
+        int targetStart;
+
+        Scan(String html) {
+            this.html = html;
+            this.len = html.length();
+        }
+
+        void run() {
+            while (!done()) {
+                int lt = html.indexOf('<', pos);
+                if (lt < 0 || lt + 1 >= len) return;
+                char c = html.charAt(lt + 1);
+
+                if (c == '!' || c == '?') {
+                    pos = html.startsWith("<!--", lt) ? skipPast(lt + 4, "-->") : skipPast(lt + 2, ">");
+                } else if (c == '/') {
+                    endTag(lt);
+                } else if (isAsciiLetter(c)) {
+                    startTag(lt);
+                } else {
+                    pos = lt + 1; // stray '<' in text
+                }
+            }
+        }
+
+        boolean done() {
+            return descriptionResolved && h1 != null && ratingSeen && category != null
+                    && (description != null && !description.isBlank() || price != null && avail != null);
+        }
+
+        // ---------- tags ----------
+
+        void startTag(int lt) {
+            int nameEnd = nameEnd(lt + 1);
+            String name = tagName(lt + 1, nameEnd);
+            int gt = tagEnd(nameEnd);
+            pos = gt + 1;
+            boolean selfClosing = html.charAt(gt - 1) == '/';
+            if (P_CLOSERS.contains(name)) closeImplied(name, lt);
+
+            // the element right after #product_description: only a <p> counts
+            boolean descSibling = expectDescSibling && name.equals("p") && !selfClosing;
+            if (expectDescSibling && !descSibling) descriptionResolved = true;
+            expectDescSibling = false;
+
+            if (name.equals("script") || name.equals("style") || name.equals("title")) {
+                int close = indexOfIgnoreCase("</" + name, pos);
+                if (close < 0) close = len;
+                if (name.equals("title") && docTitle == null) docTitle = text(pos, close);
+                pos = skipPast(close, ">");
+                return;
+            }
+            if (selfClosing || isVoid(name)) return;
+
+            int at = depth;
+            push(name);
+            if (descSibling) beginCapture(Target.DESCRIPTION);
+            breadcrumbChild(at, name.equals("li"));
+
+            if (!descHeaderSeen && "product_description".equals(attr(lt, gt, "id"))) {
+                descHeaderSeen = true;
+                descHeaderAt = at;
+            }
+
+            switch (name) {
+                case "div" -> {
+                    if (productMainAt < 0 && classed(lt, gt, "product_main")) productMainAt = at;
+                }
+                case "ul" -> {
+                    if (breadcrumbAt < 0 && category == null && classed(lt, gt, "breadcrumb")) {
+                        breadcrumbAt = at;
+                        breadcrumbChildren = 0;
+                    }
+                }
+                case "p" -> {
+                    String cls = attr(lt, gt, "class");
+                    if (cls == null) return;
+                    if (price == null && hasClass(cls, "price_color")) beginCapture(Target.PRICE);
+                    else if (avail == null && hasClass(cls, "availability")) beginCapture(Target.AVAIL);
+                    if (!ratingSeen && hasClass(cls, "star-rating")) {
+                        ratingSeen = true;
+                        String[] parts = cls.trim().split("\\s+"); // e.g., "star-rating Three"
+                        rating = parts.length >= 2 ? parts[1] : "";
+                    }
+                }
+                case "h1" -> {
+                    if (h1 == null && productMainAt >= 0) beginCapture(Target.H1);
+                }
+                case "a" -> {
+                    if (category == null && thirdLiAt >= 0) beginCapture(Target.CATEGORY);
+                }
+                default -> { }
+            }
+        }
+
+        boolean classed(int lt, int gt, String cls) {
+            String v = attr(lt, gt, "class");
+            return v != null && hasClass(v, cls);
+        }
+
+        void endTag(int lt) {
+            int nameEnd = nameEnd(lt + 2);
+            String name = tagName(lt + 2, nameEnd);
+            pos = tagEnd(nameEnd) + 1;
+
+            int i = depth - 1;
+            while (i >= 0 && !stack[i].equals(name)) i--;
+            if (i < 0) return; // stray end tag
+            close(i, lt);
+        }
+
+        /** End the elements a start tag implicitly closes: an open p, the previous li, a heading. */
+        void closeImplied(String name, int lt) {
+            if (name.equals("li")) {
+                for (int i = depth - 1; i >= 0; i--) {
+                    String open = stack[i];
+                    if (open.equals("li")) {
+                        close(i, lt);
+                        break;
+                    }
+                    if (BLOCK_TAGS.contains(open) && !open.equals("address") && !open.equals("div")
+                            && !open.equals("p")) break;
+                }
+            }
+            for (int i = depth - 1; i >= 0 && !SCOPE_TAGS.contains(stack[i]); i--) {
+                if (stack[i].equals("p")) {
+                    close(i, lt);
+                    break;
+                }
+            }
+            if (isHeading(name) && depth > 0 && isHeading(stack[depth - 1])) close(depth - 1, lt);
+        }
+
+        /** Pop stack entries {@code i} and above; {@code lt} is where their content ends. */
+        void close(int i, int lt) {
+            if (expectDescSibling) {
+                // the parent closed before another element started: there is no sibling <p>
+                expectDescSibling = false;
+                descriptionResolved = true;
+            }
+            depth = i;
+
+            if (target != Target.NONE && depth <= targetAt) endCapture(lt);
+            if (productMainAt >= depth) productMainAt = -1;
+            if (thirdLiAt >= depth) thirdLiAt = -1;
+            if (breadcrumbAt >= depth) breadcrumbAt = -1;
+            if (descHeaderAt >= depth) {
+                if (descHeaderAt == depth) expectDescSibling = true;
+                descHeaderAt = -1;
+            }
+        }
+
+        /** Track ul.breadcrumb's element children so we can spot {@code li:nth-child(3)}. */
+        void breadcrumbChild(int at, boolean isLi) {
+            if (breadcrumbAt < 0 || at != breadcrumbAt + 1) return;
+            if (++breadcrumbChildren == 3 && isLi) thirdLiAt = at;
+        }
+
+        void push(String name) {
+            if (depth == stack.length) stack = java.util.Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = name;
+        }
+
+        // ---------- text capture ----------
+
+        void beginCapture(Target t) {
+            if (target != Target.NONE) return;
+            target = t;
+            targetAt = depth - 1;
+            targetStart = pos;
+        }
+
+        void endCapture(int end) {
+            String text = text(targetStart, end);
+            switch (target) {
+                case H1 -> h1 = text;
+                case PRICE -> price = text;
+                case AVAIL -> avail = text;
+                case CATEGORY -> category = text;
+                case DESCRIPTION -> {
+                    description = text;
+                    descriptionResolved = true;
+                }
+                default -> { }
+            }
+            target = Target.NONE;
+            targetAt = -1;
+        }
+
+        /** Element text between two offsets: tags dropped, entities decoded, whitespace normalised. */
+        String text(int from, int to) {
+            StringBuilder raw = new StringBuilder(Math.max(16, to - from));
+            int i = from;
+            while (i < to) {
+                int lt = html.indexOf('<', i);
+                if (lt < 0 || lt >= to) {
+                    raw.append(html, i, to);
+                    break;
+                }
+                raw.append(html, i, lt);
+                if (html.startsWith("<!--", lt)) {
+                    i = Math.min(to, skipPast(lt + 4, "-->"));
+                    continue;
+                }
+                int gt = html.indexOf('>', lt);
+                if (gt < 0 || gt >= to) break;
+                int nameFrom = html.charAt(lt + 1) == '/' ? lt + 2 : lt + 1;
+                String name = tagName(nameFrom, Math.min(gt, nameEnd(nameFrom)));
+                if (name.equals("br") || BLOCK_TAGS.contains(name)) raw.append(' ');
+                i = gt + 1;
+            }
+
+            String decoded = raw.indexOf("&") >= 0 ? Parser.unescapeEntities(raw.toString(), false) : raw.toString();
+            StringBuilder out = new StringBuilder(decoded.length());
+            boolean lastWhite = false;
+            for (int k = 0; k < decoded.length(); k++) {
+                char c = decoded.charAt(k);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 160) {
+                    if (!lastWhite && out.length() > 0) out.append(' ');
+                    lastWhite = true;
+                } else {
+                    out.append(c);
+                    lastWhite = false;
+                }
+            }
+            return out.toString().trim();
+        }
+
+        // ---------- lexing helpers ----------
+
+        int nameEnd(int from) {
+            int i = from;
+            while (i < len) {
+                char c = html.charAt(i);
+                if (c == '>' || c == '/' || Character.isWhitespace(c)) break;
+                i++;
+            }
+            return i;
+        }
+
+        String tagName(int from, int to) {
+            int n = to - from;
+            for (String t : COMMON_TAGS) {
+                if (t.length() == n && html.regionMatches(true, from, t, 0, n)) return t;
+            }
+            return html.substring(from, to).toLowerCase();
+        }
+
+        /** Index of the {@code >} closing a tag, skipping over quoted attribute values. */
+        int tagEnd(int from) {
+            char quote = 0;
+            for (int i = from; i < len; i++) {
+                char c = html.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    return i;
+                }
+            }
+            return len - 1;
+        }
+
+        /** Value of an attribute inside the start tag {@code [lt, gt]}, or null. */
+        String attr(int lt, int gt, String name) {
+            int i = nameEnd(lt + 1);
+            while (i < gt) {
+                while (i < gt && (Character.isWhitespace(html.charAt(i)) || html.charAt(i) == '/')) i++;
+                int ns = i;
+                while (i < gt && html.charAt(i) != '=' && !Character.isWhitespace(html.charAt(i))
+                        && html.charAt(i) != '/') i++;
+                boolean match = (i - ns) == name.length() && html.regionMatches(true, ns, name, 0, name.length());
+                while (i < gt && Character.isWhitespace(html.charAt(i))) i++;
+                if (i >= gt || html.charAt(i) != '=') {
+                    if (match) return "";
+                    continue;
+                }
+                i++;
+                while (i < gt && Character.isWhitespace(html.charAt(i))) i++;
+                int vs, ve;
+                char q = i < gt ? html.charAt(i) : 0;
+                if (q == '"' || q == '\'') {
+                    vs = i + 1;
+                    ve = html.indexOf(q, vs);
+                    if (ve < 0 || ve > gt) ve = gt;
+                    i = ve + 1;
+                } else {
+                    vs = i;
+                    while (i < gt && !Character.isWhitespace(html.charAt(i))) i++;
+                    ve = i;
+                }
+                if (match) {
+                    String v = html.substring(vs, ve);
+                    return v.indexOf('&') >= 0 ? Parser.unescapeEntities(v, true) : v;
+                }
+            }
+            return null;
+        }
+
+        int skipPast(int from, String marker) {
+            int i = html.indexOf(marker, from);
+            return i < 0 ? len : i + marker.length();
+        }
+
+        int indexOfIgnoreCase(String needle, int from) {
+            int n = needle.length();
+            for (int i = html.indexOf('<', from); i >= 0 && i + n <= len; i = html.indexOf('<', i + 1)) {
+                if (html.regionMatches(true, i, needle, 0, n)) return i;
+            }
+            return -1;
+        }
+    }
+
+    /** Whitespace-separated, case-insensitive class match, like jsoup's {@code hasClass}. */
+    static boolean hasClass(String classAttr, String cls) {
+        int n = cls.length(), len = classAttr.length();
+        for (int i = 0; i + n <= len; i++) {
+            if ((i == 0 || Character.isWhitespace(classAttr.charAt(i - 1)))
+                    && classAttr.regionMatches(true, i, cls, 0, n)
+                    && (i + n == len || Character.isWhitespace(classAttr.charAt(i + n)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isVoid(String name) {
+        for (String v : VOID_TAGS) {
+            if (v.equals(name)) return true;
+        }
+        return false;
+    }
+
+    static boolean isHeading(String name) {
+        return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+    }
+
+    static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,36 @@
+package ie.ul.cs4297.crawler.frontier;
+
+/** Fixed-size Bloom filter over 64-bit fingerprints, using double hashing of the two halves. */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int hashes;
+
+    public BloomFilter(long expected, double fpp) {
+        long n = Math.max(1, expected);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6)];
+        this.numBits = (long) bits.length << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    public void put(long fp) {
+        long h1 = fp, h2 = (fp >>> 32) | (fp << 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long fp) {
+        long h1 = fp, h2 = (fp >>> 32) | (fp << 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long sizeInBytes() { return (long) bits.length * Long.BYTES; }
+}
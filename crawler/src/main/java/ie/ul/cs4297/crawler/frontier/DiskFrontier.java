@@ -0,0 +1,210 @@
+package ie.ul.cs4297.crawler.frontier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-log crawl frontier that survives restarts.
+ *
+ * Every discovered URL is appended to {@code frontier.log} as a length-prefixed UTF-8 record;
+ * the record's file offset doubles as its sequence number. URLs are read back in order with
+ * {@link #next()} and reported done with {@link #complete(long, long)}. A completed page whose
+ * rows are still queued in the writer is held back until {@code writesProcessed} passes the
+ * writer position it was completed at. The checkpoint is the offset of the oldest record that
+ * is not yet both fetched and committed, so a killed crawl resumes from there and re-fetches
+ * everything read after it: that can be the whole scheduler window (up to
+ * {@code crawler.queue-window} URLs read ahead), not just the pages that were in flight.
+ *
+ * Only a small window of URLs is ever on the heap; the rest stay on disk.
+ */
+public class DiskFrontier implements AutoCloseable {
+
+    /** A URL read from the log, with the offset used to acknowledge it. */
+    public record Entry(long seq, String url) {}
+
+    private static final int CHECKPOINT_EVERY = 100;   // completions between checkpoint writes
+    private static final int MAX_RECORD = 16 * 1024;
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final FileChannel log;
+    private final ByteBuffer appendBuf = ByteBuffer.allocate(64 * 1024);
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+
+    private long writePos;    // end of log including buffered appends
+    private long durablePos;  // end of log already written to the channel
+    private long readPos;
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private final TreeMap<Long, Long> unwritten = new TreeMap<>();  // seq -> writes that must be processed first
+    private final LongSupplier writesProcessed;
+    private int sinceCheckpoint;
+
+    /**
+     * Open (or create) the frontier in {@code dir}. Every URL already in the log is passed to
+     * {@code replay} so the caller can rebuild its visited set; reading resumes at the last
+     * checkpoint. {@code writesProcessed} is the writer's count of writes committed so far.
+     */
+    public DiskFrontier(Path dir, Consumer<String> replay, LongSupplier writesProcessed) throws IOException {
+        Files.createDirectories(dir);
+        this.writesProcessed = writesProcessed;
+        this.logFile = dir.resolve("frontier.log");
+        this.checkpointFile = dir.resolve("frontier.checkpoint");
+        this.log = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long end = scan(replay);
+        if (end < log.size()) {
+            // a crash mid-append left a partial record at the tail
+            log.truncate(end);
+        }
+        this.writePos = end;
+        this.durablePos = end;
+        this.readPos = Math.min(readCheckpoint(), end);
+    }
+
+    /** Drop the log and checkpoint in {@code dir}, so the next open starts an empty frontier. */
+    public static void reset(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve("frontier.log"));
+        Files.deleteIfExists(dir.resolve("frontier.checkpoint"));
+    }
+
+    public synchronized long append(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_RECORD) return -1;
+        try {
+            if (appendBuf.remaining() < Integer.BYTES + bytes.length) flushAppends();
+            long seq = writePos;
+            appendBuf.putInt(bytes.length).put(bytes);
+            writePos += Integer.BYTES + bytes.length;
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Next unread URL, or null when the reader has caught up with the log. */
+    public synchronized Entry next() {
+        if (readPos >= writePos) return null;
+        try {
+            if (readPos >= durablePos) flushAppends();
+
+            header.clear();
+            readFully(header, readPos);
+            int len = header.getInt(0);
+            ByteBuffer body = ByteBuffer.allocate(len);
+            readFully(body, readPos + Integer.BYTES);
+
+            Entry e = new Entry(readPos, new String(body.array(), StandardCharsets.UTF_8));
+            pending.add(readPos);
+            readPos += Integer.BYTES + len;
+            return e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Mark a URL that produced no writes as processed; the checkpoint can then move past it. */
+    public synchronized void complete(long seq) {
+        complete(seq, 0);
+    }
+
+    /**
+     * Mark a URL as fetched once the writer had been handed {@code writes} writes in total; the
+     * checkpoint moves past it only after {@code writesProcessed} has caught up with that count.
+     */
+    public synchronized void complete(long seq, long writes) {
+        if (!pending.remove(seq)) return;
+        if (writes > writesProcessed.getAsLong()) unwritten.put(seq, writes);
+        if (++sinceCheckpoint >= CHECKPOINT_EVERY) checkpoint();
+    }
+
+    /** True when every appended URL has been read. */
+    public synchronized boolean isDrained() {
+        return readPos >= writePos;
+    }
+
+    public synchronized long unreadBytes() {
+        return writePos - readPos;
+    }
+
+    /** Flush buffered appends and persist the resume offset atomically. */
+    public synchronized void checkpoint() {
+        sinceCheckpoint = 0;
+        long done = writesProcessed.getAsLong();
+        unwritten.values().removeIf(writes -> writes <= done);
+        long resumeAt = readPos;
+        if (!pending.isEmpty()) resumeAt = pending.first();
+        if (!unwritten.isEmpty()) resumeAt = Math.min(resumeAt, unwritten.firstKey());
+        try {
+            flushAppends();
+            log.force(false);
+            Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.writeString(tmp, Long.toString(resumeAt));
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[FRONTIER] checkpoint failed -> " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        checkpoint();
+        log.close();
+    }
+
+    // ---------- Helpers ----------
+
+    private void flushAppends() throws IOException {
+        appendBuf.flip();
+        while (appendBuf.hasRemaining()) {
+            durablePos += log.write(appendBuf, durablePos);
+        }
+        appendBuf.clear();
+    }
+
+    /** Replay complete records from the start of the log; returns the offset after the last one. */
+    private long scan(Consumer<String> replay) throws IOException {
+        long pos = 0, size = log.size();
+        ByteBuffer buf = ByteBuffer.allocate(MAX_RECORD);
+        while (pos + Integer.BYTES <= size) {
+            header.clear();
+            readFully(header, pos);
+            int len = header.getInt(0);
+            if (len < 0 || len > MAX_RECORD || pos + Integer.BYTES + len > size) break;
+
+            buf.clear().limit(len);
+            readFully(buf, pos + Integer.BYTES);
+            replay.accept(new String(buf.array(), 0, len, StandardCharsets.UTF_8));
+            pos += Integer.BYTES + len;
+        }
+        return pos;
+    }
+
+    private long readCheckpoint() {
+        try {
+            return Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0L;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[FRONTIER] unreadable checkpoint, replaying from start -> " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void readFully(ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = log.read(dst, position);
+            if (n < 0) throw new IOException("unexpected end of " + logFile);
+            position += n;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ie.ul.cs4297.crawler.frontier;
+
+/**
+ * Open-addressing set of primitive longs (linear probing, power-of-two table).
+ * Costs ~8-16 bytes per entry instead of a boxed {@code HashSet<String>} entry per URL.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final long ZERO_KEY = 0x9e3779b97f4a7c15L; // stands in for a literal 0 key
+
+    private long[] table;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expected * 2L)) - 1) << 1;
+        table = new long[cap];
+        resizeAt = cap / 2;
+    }
+
+    /** Returns true if the key was not present. */
+    public boolean add(long key) {
+        if (key == EMPTY) key = ZERO_KEY;
+        if (size >= resizeAt) grow();
+        if (!insert(table, key)) return false;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) key = ZERO_KEY;
+        int mask = table.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = table[i];
+            if (k == EMPTY) return false;
+            if (k == key) return true;
+        }
+    }
+
+    public int size() { return size; }
+
+    private static boolean insert(long[] t, long key) {
+        int mask = t.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = t[i];
+            if (k == key) return false;
+            if (k == EMPTY) {
+                t[i] = key;
+                return true;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] bigger = new long[table.length << 1];
+        for (long k : table) {
+            if (k != EMPTY) insert(bigger, k);
+        }
+        table = bigger;
+        resizeAt = bigger.length / 2;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
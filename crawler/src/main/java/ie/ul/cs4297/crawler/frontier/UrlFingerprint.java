@@ -0,0 +1,29 @@
+package ie.ul.cs4297.crawler.frontier;
+
+import java.nio.charset.StandardCharsets;
+
+/** 64-bit URL fingerprints: FNV-1a over the UTF-8 bytes, finished with a MurmurHash3 mixer. */
+public final class UrlFingerprint {
+
+    private UrlFingerprint() {}
+
+    public static long of(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return mix(h ^ bytes.length);
+    }
+
+    /** MurmurHash3 fmix64: spreads every input bit over the whole word. */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
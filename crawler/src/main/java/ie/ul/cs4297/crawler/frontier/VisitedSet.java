@@ -0,0 +1,30 @@
+package ie.ul.cs4297.crawler.frontier;
+
+/**
+ * Compact "already discovered" set: URL fingerprints in a {@link LongHashSet}, fronted by a
+ * {@link BloomFilter} so that most brand-new URLs are recognised without probing the table.
+ */
+public class VisitedSet {
+
+    private final BloomFilter bloom;
+    private final LongHashSet seen;
+
+    public VisitedSet(long expectedUrls) {
+        this.bloom = new BloomFilter(expectedUrls, 0.01);
+        this.seen = new LongHashSet((int) Math.min(expectedUrls, 1 << 20));
+    }
+
+    /** Returns true the first time a URL is added. */
+    public synchronized boolean add(String url) {
+        return addFingerprint(UrlFingerprint.of(url));
+    }
+
+    public synchronized boolean addFingerprint(long fp) {
+        if (bloom.mightContain(fp) && seen.contains(fp)) return false;
+        bloom.put(fp);
+        seen.add(fp);
+        return true;
+    }
+
+    public synchronized int size() { return seen.size(); }
+}
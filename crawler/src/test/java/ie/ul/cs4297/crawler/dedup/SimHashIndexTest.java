@@ -0,0 +1,124 @@
+package ie.ul.cs4297.crawler.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashIndexTest {
+
+    @Test
+    void findsTheClosestFingerprintWithinDistance() {
+        SimHashIndex index = new SimHashIndex(3, 16);
+        long base = 0x0123_4567_89ab_cdefL;
+        index.put("a", base);
+        index.put("b", base ^ 0b1);           // 1 bit from base
+
+        SimHashIndex.Match m = index.nearest("new", base ^ 0b11);   // 2 from a, 1 from b
+        assertEquals("b", m.urlHash());
+        assertEquals(1, m.distance());
+
+        assertNull(index.nearest("new", base ^ 0xF000_0000_0000_000FL));   // 8 bits away
+    }
+
+    @Test
+    void lookupDoesNotIndex() {
+        SimHashIndex index = new SimHashIndex(3, 16);
+        assertNull(index.nearest("a", 42L));
+        assertEquals(0, index.size());
+        assertNull(index.nearest("b", 42L));   // "a" was never accepted, so "b" is not its duplicate
+    }
+
+    @Test
+    void aUrlIsNeverItsOwnDuplicate() {
+        SimHashIndex index = new SimHashIndex(3, 16);
+        index.put("a", 42L);
+        assertNull(index.nearest("a", 43L));
+        index.put("a", 43L);   // recrawl re-fingerprints
+        assertEquals(1, index.size());
+        assertEquals(0, index.nearest("b", 43L).distance());
+    }
+
+    @Test
+    void removedArticlesNoLongerMatch() {
+        SimHashIndex index = new SimHashIndex(3, 16);
+        index.put("a", 42L);
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertEquals(0, index.size());
+        assertNull(index.nearest("b", 42L));
+
+        index.put("a", 42L);
+        assertNotNull(index.nearest("b", 42L));
+    }
+
+    @Test
+    void matchesBruteForceAfterGrowth() {
+        Random random = new Random(5);
+        int n = 5_000;
+        long[] fps = new long[n];
+        SimHashIndex index = new SimHashIndex(4, 16);   // tables and entries grow many times
+        for (int i = 0; i < n; i++) {
+            fps[i] = random.nextLong();
+            index.put("u" + i, fps[i]);
+        }
+        for (int i = 0; i < n; i += 2) index.remove("u" + i);
+
+        for (int q = 0; q < 500; q++) {
+            long probe = fps[random.nextInt(n)];
+            for (int flips = random.nextInt(7); flips > 0; flips--) probe ^= 1L << random.nextInt(64);
+
+            int best = 5;
+            for (int i = 1; i < n; i += 2) best = Math.min(best, SimHash.distance(probe, fps[i]));
+            SimHashIndex.Match m = index.nearest("probe", probe);
+            if (best > 4) {
+                assertNull(m);
+            } else {
+                assertNotNull(m);
+                assertEquals(best, m.distance());
+                assertEquals(1, Integer.parseInt(m.urlHash().substring(1)) % 2);
+            }
+        }
+    }
+
+    @Test
+    void churnIsCompactedAway() {
+        Random random = new Random(9);
+        int n = 200;
+        long[] latest = new long[n];
+        long[] replaced = new long[n];
+        SimHashIndex index = new SimHashIndex(3, 16);
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < n; i++) {
+                replaced[i] = latest[i];
+                latest[i] = random.nextLong();
+                index.put("u" + i, latest[i]);
+            }
+        }
+        assertEquals(n, index.size());
+        assertTrue(index.deadEntries() < n / 2, "dead entries " + index.deadEntries());   // 9,800 replaced
+
+        for (int i = 0; i < n; i++) {
+            SimHashIndex.Match m = index.nearest("probe", latest[i]);
+            assertNotNull(m);
+            assertEquals(0, m.distance());
+            assertEquals("u" + i, m.urlHash());
+            assertNull(index.nearest("probe", replaced[i]));
+        }
+    }
+
+    @Test
+    void nearDuplicateTextsAreClose() {
+        String text = "A haunting story of two sisters growing up on a remote island, told across forty years.";
+        long a = SimHash.of("Island Sisters", text);
+        long b = SimHash.of("Island Sisters", text + " ...more");
+        long c = SimHash.of("Quantum Gardens", "A field guide to the physics of growing vegetables in space.");
+        assertTrue(SimHash.distance(a, b) <= 6);
+        assertTrue(SimHash.distance(a, c) > 12);
+    }
+}
@@ -0,0 +1,148 @@
+package ie.ul.cs4297.crawler.extract;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/** The streaming extractor must return exactly what the DOM extractor returns. */
+class DetailExtractorParityTest {
+
+    private static final String URL = "https://books.toscrape.com/catalogue/fixture/index.html";
+
+    private final DetailExtractor dom = new DomDetailExtractor();
+    private final DetailExtractor streaming = new StreamingDetailExtractor();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a-light-in-the-attic.html", "tipping-the-velvet.html", "no-description.html"})
+    void savedPages(String fixture) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/" + fixture)) {
+            assertNotNull(in, "missing fixture " + fixture);
+            assertSame(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a-light-in-the-attic.html", "tipping-the-velvet.html", "no-description.html"})
+    void savedPagesWithoutOptionalEndTags(String fixture) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/" + fixture)) {
+            assertNotNull(in, "missing fixture " + fixture);
+            String html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertSame(html.replace("</p>", "").replace("</li>", ""));
+        }
+    }
+
+    @Test
+    void unclosedDescriptionEndsAtNextBlock() {
+        DetailPage p = assertSame(page("<h1>Title</h1>", crumbs(),
+                "<div id=\"product_description\"><h2>Product Description</h2></div>"
+                + "<p>First paragraph"
+                + "<div class=\"sub-header\"><h2>Product Information</h2></div>"
+                + "<table><tr><th>UPC</th><td>a897fe39b1053632</td></tr></table>"));
+        assertEquals("First paragraph", p.description());
+    }
+
+    @Test
+    void descriptionEndsAtFollowingParagraph() {
+        DetailPage p = assertSame(page("<h1>Title</h1>", crumbs(),
+                "<div id=\"product_description\"><h2>Product Description</h2></div>"
+                + "<p>para<p>second</p>"));
+        assertEquals("para", p.description());
+    }
+
+    @Test
+    void unclosedDescriptionHeaderEndsAtDescription() {
+        DetailPage p = assertSame(page("<h1>Title</h1>", crumbs(),
+                "<p id=\"product_description\">Product Description<p>para</p>"));
+        assertEquals("para", p.description());
+    }
+
+    @Test
+    void blockChildrenAreSeparatedBySpaces() {
+        DetailPage p = assertSame(page("<h1>Title<div>Sub</div>tail</h1>",
+                "<ul class=\"breadcrumb\"><li><a href=\"/\">Home</a></li><li><a href=\"#\">Books</a></li>"
+                + "<li><a href=\"#\"><div>Poetry</div>and verse</a></li></ul>",
+                description("one<br>two <em>three</em>four")));
+        assertEquals("Title Sub tail", p.title());
+        assertEquals("one two threefour", p.description());
+    }
+
+    @Test
+    void nestedParagraphInHeading() {
+        DetailPage p = assertSame(page("<h1>A<p>B</p>C</h1>", crumbs(), description("text")));
+        assertEquals("A B C", p.title());
+    }
+
+    @Test
+    void impliedListItemEnds() {
+        DetailPage p = assertSame(page("<h1>Title</h1>",
+                "<ul class=\"breadcrumb\"><li><a href=\"/\">Home</a><li><a href=\"#\">Books</a>"
+                + "<li><a href=\"#\">Poetry</a></ul>",
+                description("text")));
+        assertEquals("Poetry;Three", p.tags());
+    }
+
+    @Test
+    void entitiesAreDecoded() {
+        DetailPage p = assertSame(page("<h1>Tom &amp; Jerry&nbsp;&#8217;s &quot;Tale&quot;</h1>",
+                "<ul class=\"breadcrumb\"><li><a href=\"/\">Home</a></li><li><a href=\"#\">Books</a></li>"
+                + "<li><a href=\"#\">Sci&eacute;nce &lt;Fiction&gt;</a></li></ul>",
+                description("caf&eacute; &amp;&amp; &#x41;&#66; &copy 2016 &unknown;")));
+        assertEquals("Tom & Jerry ’s \"Tale\"", p.title());
+    }
+
+    @Test
+    void missingDescriptionFallsBackToPriceAndAvailability() {
+        DetailPage p = assertSame(page("<h1>Title</h1>", crumbs(), ""));
+        assertEquals("£51.77 In stock (22 available)", p.description());
+    }
+
+    @Test
+    void descriptionHeaderWithoutParagraph() {
+        assertSame(page("<h1>Title</h1>", crumbs(),
+                "<div id=\"product_description\"><h2>Product Description</h2></div>"
+                + "<table><tr><td>x</td></tr></table><p>not the description</p>"));
+        assertSame(page("<h1>Title</h1>", crumbs(),
+                "<div id=\"product_description\"><h2>Product Description</h2></div><p></p>"));
+    }
+
+    @Test
+    void missingHeadingUsesDocumentTitle() {
+        DetailPage p = assertSame(page("", crumbs(), description("text")));
+        assertEquals("Fixture | Books to Scrape", p.title());
+    }
+
+    private DetailPage assertSame(String html) {
+        DetailPage expected = dom.extract(URL, html);
+        assertEquals(expected, streaming.extract(URL, html), html);
+        return expected;
+    }
+
+    private static String crumbs() {
+        return "<ul class=\"breadcrumb\"><li><a href=\"/\">Home</a></li><li><a href=\"#\">Books</a></li>"
+                + "<li><a href=\"#\">Poetry</a></li><li class=\"active\">Title</li></ul>";
+    }
+
+    private static String description(String text) {
+        return "<div id=\"product_description\" class=\"sub-header\"><h2>Product Description</h2></div>"
+                + "<p>" + text + "</p>";
+    }
+
+    private static String page(String heading, String breadcrumb, String afterMain) {
+        return "<!DOCTYPE html><html><head><title>\n  Fixture | Books to Scrape\n</title>"
+                + "<style>p { color: red }</style></head><body><div class=\"page_inner\">" + breadcrumb
+                + "<article class=\"product_page\"><div class=\"row\">"
+                + "<div class=\"col-sm-6 product_main\">" + heading
+                + "<p class=\"price_color\">£51.77</p>"
+                + "<p class=\"instock availability\"><i class=\"icon-ok\"></i>\n    In stock (22 available)\n</p>"
+                + "<p class=\"star-rating Three\"><i class=\"icon-star\"></i></p></div></div>"
+                + afterMain
+                + "</article></div><footer><p>footer</p></footer></body></html>";
+    }
+}
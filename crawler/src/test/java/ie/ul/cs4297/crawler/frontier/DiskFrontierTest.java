@@ -0,0 +1,59 @@
+package ie.ul.cs4297.crawler.frontier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiskFrontierTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void checkpointStaysBehindPagesWhoseWritesAreNotCommitted() throws Exception {
+        AtomicLong processed = new AtomicLong();
+        try (DiskFrontier f = new DiskFrontier(dir, url -> {}, processed::get)) {
+            f.append("https://a/1");
+            f.append("https://a/2");
+            DiskFrontier.Entry first = f.next();
+            DiskFrontier.Entry second = f.next();
+
+            f.complete(first.seq(), 1);    // its article is the writer's first write, still queued
+            f.complete(second.seq());
+            f.checkpoint();
+        }
+        assertEquals(List.of("https://a/1", "https://a/2"), unread());
+    }
+
+    @Test
+    void checkpointPassesPagesOnceTheirWritesAreProcessed() throws Exception {
+        AtomicLong processed = new AtomicLong();
+        try (DiskFrontier f = new DiskFrontier(dir, url -> {}, processed::get)) {
+            f.append("https://a/1");
+            f.append("https://a/2");
+            f.complete(f.next().seq(), 3);
+            f.complete(f.next().seq(), 5);
+
+            processed.set(4);
+            f.checkpoint();
+            assertEquals(List.of("https://a/2"), unread());
+
+            processed.set(5);
+        }
+        assertEquals(List.of(), unread());
+    }
+
+    private List<String> unread() throws Exception {
+        List<String> urls = new ArrayList<>();
+        try (DiskFrontier f = new DiskFrontier(dir, url -> {}, () -> 0)) {
+            for (DiskFrontier.Entry e; (e = f.next()) != null; ) urls.add(e.url());
+        }
+        return urls;
+    }
+}
@@ -7,12 +7,67 @@ USE cs4297;
 -- Articles table = single source of truth from the crawler
 CREATE TABLE IF NOT EXISTS articles (
                                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                        url_hash CHAR(64) NOT NULL,      -- SHA-256 of source_url (upsert key)
                                         title VARCHAR(1024),
     content MEDIUMTEXT,
     tags VARCHAR(512),
     source_url VARCHAR(2048),
-    crawled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    content_hash CHAR(64),                                             -- SHA-256 of title + content + tags
+    simhash BIGINT,                                                    -- 64-bit SimHash of title + content
+    crawled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_articles_url_hash (url_hash)
     ) ENGINE=InnoDB;
 
 -- Helpful index for title searches
 CREATE INDEX idx_articles_title ON articles(title);
+
+-- Near-duplicate pages: stored as aliases of the article they duplicate, never as articles
+CREATE TABLE IF NOT EXISTS article_aliases (
+    url_hash CHAR(64) PRIMARY KEY,                 -- SHA-256 of the duplicate's source_url
+    source_url VARCHAR(2048) NOT NULL,
+    canonical_url_hash CHAR(64) NOT NULL,          -- articles.url_hash of the article kept
+    simhash BIGINT NOT NULL,
+    distance TINYINT NOT NULL,                     -- Hamming distance to the kept article's simhash
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY idx_article_aliases_canonical (canonical_url_hash)
+    ) ENGINE=InnoDB;
+
+-- Per-URL validators for incremental recrawls (conditional GETs + change detection)
+CREATE TABLE IF NOT EXISTS crawl_state (
+    url_hash CHAR(64) PRIMARY KEY,
+    source_url VARCHAR(2048) NOT NULL,
+    etag VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_hash CHAR(64),
+    fetched_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    ) ENGINE=InnoDB;
+
+-- Change log (transactional outbox) filled by triggers, read by article-service.
+-- Every insert, content update and delete on articles appends one row in the same transaction.
+CREATE TABLE IF NOT EXISTS article_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    article_id BIGINT NOT NULL,
+    op CHAR(1) NOT NULL,                                   -- I = insert, U = update, D = delete
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)
+    ) ENGINE=InnoDB;
+
+CREATE TRIGGER articles_after_insert AFTER INSERT ON articles FOR EACH ROW
+    INSERT INTO article_changes(article_id, op) VALUES (NEW.id, 'I');
+
+CREATE TRIGGER articles_after_update AFTER UPDATE ON articles FOR EACH ROW
+    INSERT INTO article_changes(article_id, op)
+    SELECT NEW.id, 'U' FROM DUAL
+    WHERE NOT (OLD.title <=> NEW.title AND OLD.content <=> NEW.content
+               AND OLD.tags <=> NEW.tags AND OLD.source_url <=> NEW.source_url);
+
+CREATE TRIGGER articles_after_delete AFTER DELETE ON articles FOR EACH ROW
+    INSERT INTO article_changes(article_id, op) VALUES (OLD.id, 'D');
+
+-- Durable publisher positions: only advanced over events Kafka has acknowledged
+CREATE TABLE IF NOT EXISTS publisher_checkpoints (
+    name VARCHAR(64) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    ) ENGINE=InnoDB;
@@ -0,0 +1,118 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ie.ul.cs4297.indexer.model.Article;
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk body encoding: the old StringBuilder + per-field {@code writeValueAsString} path against
+ * {@link BulkBodyWriter}.
+ *
+ * Scores are per document ({@link OperationsPerInvocation}), so with the gc profiler
+ * {@code gc.alloc.rate.norm} reads as bytes allocated per document. Run with
+ * {@code ./gradlew :indexer:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BulkBodyBenchmark.DOCS)
+public class BulkBodyBenchmark {
+
+    static final int DOCS = 500;
+
+    @Param({"400", "4000"})
+    int contentChars;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BulkBodyWriter writer = new BulkBodyWriter(2, 256 * 1024, 64 * 1024 * 1024);
+    private List<ArticleEvent> events;
+    private OutputStream sink;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        StringBuilder content = new StringBuilder(contentChars);
+        while (content.length() < contentChars) {
+            content.append("It's hard to imagine a world without \"A Light in the Attic\". ");
+        }
+        content.setLength(contentChars);
+
+        events = new ArrayList<>(DOCS);
+        for (int i = 0; i < DOCS; i++) {
+            events.add(i % 20 == 19
+                    ? ArticleEvent.delete(i)
+                    : ArticleEvent.upsert(new Article(i, "A Light in the Attic #" + i, content.toString(),
+                            "Poetry;Classics", "https://books.toscrape.com/catalogue/book_" + i + "/index.html")));
+        }
+        // stands in for the request body stream
+        sink = new OutputStream() {
+            @Override public void write(int b) { bh.consume(b); }
+            @Override public void write(byte[] b, int off, int len) { bh.consume(len); }
+        };
+
+        String legacy = legacyNdjson();
+        String streamed;
+        try (BulkBodyWriter.BulkBody body = writer.write("articles", events)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.writeTo(out);
+            streamed = out.toString(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (!legacy.equals(streamed)) {
+            throw new IllegalStateException("streamed body differs from the StringBuilder body");
+        }
+    }
+
+    /** What IndexerConsumer.flush did: build a String, which RestClient then encodes to bytes. */
+    @Benchmark
+    public void stringBuilder() throws Exception {
+        sink.write(legacyNdjson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void streamingWriter() throws Exception {
+        try (BulkBodyWriter.BulkBody body = writer.write("articles", events)) {
+            body.writeTo(sink);
+        }
+    }
+
+    private String legacyNdjson() {
+        StringBuilder nd = new StringBuilder(events.size() * 256);
+        for (ArticleEvent e : events) {
+            if (e.isDelete()) {
+                nd.append("{\"delete\":{\"_index\":\"").append("articles")
+                        .append("\",\"_id\":\"").append(e.id()).append("\"}}\n");
+                continue;
+            }
+            Article a = e.article();
+            nd.append("{\"index\":{\"_index\":\"").append("articles")
+                    .append("\",\"_id\":\"").append(a.id()).append("\"}}\n");
+            nd.append("{")
+                    .append("\"id\":").append(a.id()).append(",")
+                    .append("\"title\":").append(toJson(a.title())).append(",")
+                    .append("\"content\":").append(toJson(a.content())).append(",")
+                    .append("\"tags\":").append(toJson(a.tags())).append(",")
+                    .append("\"source_url\":").append(toJson(a.source_url()))
+                    .append("}\n");
+        }
+        return nd.toString();
+    }
+
+    private String toJson(String s) {
+        if (s == null) return "null";
+        try { return mapper.writeValueAsString(s); }
+        catch (Exception e) { return "null"; }
+    }
+}
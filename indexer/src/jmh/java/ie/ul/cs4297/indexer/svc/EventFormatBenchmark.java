@@ -0,0 +1,72 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import ie.ul.cs4297.indexer.model.Article;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost of one article event in each wire format, plus the old tree-based path.
+ *
+ * Payload sizes are printed once per trial so the bytes/event trade-off can be read next to
+ * the timings. Run with {@code ./gradlew :indexer:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventFormatBenchmark {
+
+    @Param({"400", "4000"})
+    int contentChars;
+
+    private final ArticleEventDecoder decoder = new ArticleEventDecoder();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder content = new StringBuilder(contentChars);
+        while (content.length() < contentChars) {
+            content.append("It's hard to imagine a world without A Light in the Attic. ");
+        }
+        content.setLength(contentChars);
+        Article a = new Article(123456L, "A Light in the Attic", content.toString(),
+                "Poetry;Classics", "https://books.toscrape.com/catalogue/a-light-in-the-attic_1000/index.html");
+
+        ObjectWriter jsonWriter = new ObjectMapper().writerFor(Article.class);
+        ObjectWriter smileWriter = new SmileMapper().writerFor(Article.class);
+        json = jsonWriter.writeValueAsBytes(a);
+        smile = smileWriter.writeValueAsBytes(a);
+
+        if (!decoder.decode(json).equals(decoder.decode(smile))) {
+            throw new IllegalStateException("json and smile decode differently");
+        }
+        System.out.printf("%n[bytes/event] content=%d json=%d smile=%d (%.0f%%)%n",
+                contentChars, json.length, smile.length, 100.0 * smile.length / json.length);
+    }
+
+    @Benchmark
+    public Article jsonTree() throws Exception {
+        JsonNode n = mapper.readTree(json);
+        return new Article(n.path("id").asLong(), n.path("title").asText(null), n.path("content").asText(null),
+                n.path("tags").asText(null), n.path("source_url").asText(null));
+    }
+
+    @Benchmark
+    public Article jsonStreaming() throws Exception {
+        return decoder.decode(json);
+    }
+
+    @Benchmark
+    public Article smileStreaming() throws Exception {
+        return decoder.decode(smile);
+    }
+}
@@ -0,0 +1,19 @@
+package ie.ul.cs4297.indexer.model;
+
+/**
+ * An indexing action: index {@code article}, or delete document {@code id} when article is null (tombstone).
+ * {@code crawledAt} is when the article was crawled (epoch millis), or 0 if the event did not say.
+ */
+public record ArticleEvent(
+        long id,
+        Article article,
+        long crawledAt
+) {
+    public static ArticleEvent upsert(Article a) { return new ArticleEvent(a.id(), a, 0); }
+
+    public static ArticleEvent upsert(Article a, long crawledAt) { return new ArticleEvent(a.id(), a, crawledAt); }
+
+    public static ArticleEvent delete(long id) { return new ArticleEvent(id, null, 0); }
+
+    public boolean isDelete() { return article == null; }
+}
@@ -0,0 +1,10 @@
+package ie.ul.cs4297.indexer.model;
+
+/** In-flight depth of the bulk dispatcher, returned by the admin endpoint. */
+public record DispatcherStatus(
+        int inFlight,
+        int maxInFlight,
+        long inFlightBytes,
+        long maxInFlightBytes,
+        int bulkDocs           // current adaptive request size
+) {}
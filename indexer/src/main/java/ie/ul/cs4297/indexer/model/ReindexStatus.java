@@ -0,0 +1,14 @@
+package ie.ul.cs4297.indexer.model;
+
+/** Snapshot of a reindex run, returned by the admin endpoint. */
+public record ReindexStatus(
+        String state,          // idle | running | done | rolled_back | failed
+        String step,           // create | copy | restore | merge | verify | swap
+        String source,
+        String target,
+        int shards,
+        long sourceCount,
+        long targetCount,
+        long elapsedMs,
+        String error
+) {}
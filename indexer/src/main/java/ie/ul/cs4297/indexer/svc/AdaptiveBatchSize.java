@@ -0,0 +1,51 @@
+package ie.ul.cs4297.indexer.svc;
+
+/**
+ * AIMD controller for the number of documents per {@code _bulk} request.
+ *
+ * Grows additively while Elasticsearch answers within the latency target without rejections,
+ * and backs off multiplicatively on 429s (halve) or slow responses (three quarters), so the
+ * indexer settles just below the cluster's real ingest capacity. Shared by all consumer threads.
+ *
+ * Growth needs a request that was cut at the current size: when a flush hands over fewer events
+ * than that, the response says nothing about a larger size. The ceiling is therefore capped at
+ * {@code app.flush.max-docs} by the caller, since no request can carry more than one flush.
+ */
+class AdaptiveBatchSize {
+
+    private final int min;
+    private final int max;
+    private final int step;
+    private final long targetLatencyMs;
+    private int current;
+
+    AdaptiveBatchSize(int min, int max, int initial, long targetLatencyMs) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.step = Math.max(1, this.min / 2);
+        this.targetLatencyMs = targetLatencyMs;
+        this.current = Math.min(this.max, Math.max(this.min, initial));
+    }
+
+    synchronized int current() { return current; }
+
+    /**
+     * Feed back the outcome of one bulk request. {@code full} means it carried as many documents
+     * as {@link #current()} allowed, rather than everything that was left to send.
+     */
+    synchronized void record(boolean full, long latencyMs, boolean throttled) {
+        int before = current;
+        if (throttled) {
+            current = Math.max(min, current / 2);
+        } else if (latencyMs > targetLatencyMs) {
+            current = Math.max(min, current * 3 / 4);
+        } else if (full) {
+            // only a full request proves there is headroom at this size
+            current = Math.min(max, current + step);
+        }
+        if (current < before) {
+            System.out.println("[Indexer] bulk size " + before + " -> " + current
+                    + " (" + latencyMs + " ms" + (throttled ? ", throttled" : "") + ")");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import ie.ul.cs4297.indexer.model.Article;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Decodes article events straight into {@link Article} with a streaming parser - no
+ * intermediate {@code JsonNode} tree.
+ *
+ * Reads both encodings article-service can publish: Smile (recognised by its {@code :)\n}
+ * magic header) and JSON text. Like the old tree-based code it accepts flat events as well as
+ * a nested {@code "article"} payload, ignores unknown fields and maps blank strings to null.
+ */
+@Component
+public class ArticleEventDecoder {
+
+    private final JsonFactory json = new JsonFactory();
+    private final SmileFactory smile = new SmileFactory();
+
+    public Article decode(byte[] value) throws IOException {
+        JsonFactory factory = isSmile(value) ? smile : json;
+        try (JsonParser p = factory.createParser(value)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("article event is not an object");
+            }
+            return readArticle(p);
+        }
+    }
+
+    static boolean isSmile(byte[] v) {
+        return v.length >= 3 && v[0] == ':' && v[1] == ')' && v[2] == '\n';
+    }
+
+    /** Read fields until the matching END_OBJECT; descends into a nested "article" object. */
+    private Article readArticle(JsonParser p) throws IOException {
+        long id = 0;
+        String title = null, content = null, tags = null, source = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "article" -> {
+                    if (t == JsonToken.START_OBJECT) return readArticle(p);
+                    p.skipChildren();
+                }
+                case "id" -> id = t.isNumeric() ? p.getLongValue() : parseLong(p.getValueAsString());
+                case "title" -> title = text(p, t);
+                case "content" -> content = text(p, t);
+                case "tags" -> tags = text(p, t);
+                case "source_url" -> source = text(p, t);
+                default -> p.skipChildren();
+            }
+        }
+        return new Article(id, title, content, tags, source);
+    }
+
+    private static String text(JsonParser p, JsonToken t) throws IOException {
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        String s = p.getValueAsString();
+        return (s == null || s.isBlank()) ? null : s;
+    }
+
+    private static long parseLong(String s) {
+        try { return s == null ? 0 : Long.parseLong(s.trim()); }
+        catch (NumberFormatException e) { return 0; }
+    }
+}
@@ -0,0 +1,144 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import ie.ul.cs4297.indexer.model.Article;
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Streams {@code _bulk} NDJSON bodies straight into pooled byte buffers.
+ *
+ * Each pooled buffer owns one {@link JsonGenerator} that is reused for every body written into
+ * it, so action and source lines are encoded to UTF-8 once, without per-field {@code String}s,
+ * a {@code StringBuilder} copy or a final {@code String -> byte[]} conversion. The finished
+ * {@link BulkBody} is written to the HTTP request as-is and returns its buffer to the pool when
+ * closed. Buffers that grew past {@code maxRetainedBytes} are dropped instead of pooled.
+ */
+public class BulkBodyWriter {
+
+    /** A written bulk body; close it once the request is done so the buffer can be reused. */
+    public final class BulkBody implements AutoCloseable {
+        private Buffer buf;
+
+        private BulkBody(Buffer buf) { this.buf = buf; }
+
+        public int size() { return buf.count; }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(buf.bytes, 0, buf.count);
+        }
+
+        @Override
+        public void close() {
+            if (buf == null) return;
+            release(buf);
+            buf = null;
+        }
+    }
+
+    /** Growable byte array with its own generator; only ever used by one thread at a time. */
+    private static final class Buffer extends OutputStream {
+        byte[] bytes;
+        int count;
+        JsonGenerator gen;
+
+        Buffer(int initialSize) { bytes = new byte[initialSize]; }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
+            }
+        }
+    }
+
+    private final JsonFactory factory = new JsonFactory();
+    private final ArrayBlockingQueue<Buffer> pool;
+    private final int initialBytes;
+    private final int maxRetainedBytes;
+
+    public BulkBodyWriter(int maxPooled, int initialBytes, int maxRetainedBytes) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+        this.initialBytes = initialBytes;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /** Encode index/delete actions for {@code events} against {@code index}. */
+    public BulkBody write(String index, List<ArticleEvent> events) {
+        Buffer buf = acquire();
+        try {
+            JsonGenerator g = buf.gen;
+            for (ArticleEvent e : events) {
+                writeAction(g, e.isDelete() ? "delete" : "index", index, e.id());
+                if (!e.isDelete()) writeSource(g, e.article());
+            }
+            g.flush();
+            return new BulkBody(buf);
+        } catch (IOException ex) {
+            // generator state is unknown after a failure: drop this buffer rather than pool it
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeAction(JsonGenerator g, String action, String index, long id) throws IOException {
+        // action/metadata line — use MySQL id as ES _id to avoid duplicates
+        g.writeStartObject();
+        g.writeObjectFieldStart(action);
+        g.writeStringField("_index", index);
+        g.writeStringField("_id", Long.toString(id));
+        g.writeEndObject();
+        g.writeEndObject();
+        g.writeRaw('\n');
+    }
+
+    private void writeSource(JsonGenerator g, Article a) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("id", a.id());
+        g.writeStringField("title", a.title());
+        g.writeStringField("content", a.content());
+        g.writeStringField("tags", a.tags());
+        g.writeStringField("source_url", a.source_url());
+        g.writeEndObject();
+        g.writeRaw('\n');
+    }
+
+    private Buffer acquire() {
+        Buffer buf = pool.poll();
+        if (buf == null) {
+            buf = new Buffer(initialBytes);
+            try {
+                buf.gen = factory.createGenerator(buf);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // lines are separated by the '\n' we write ourselves
+            buf.gen.setRootValueSeparator(null);
+        }
+        buf.count = 0;
+        return buf;
+    }
+
+    private void release(Buffer buf) {
+        if (buf.bytes.length > maxRetainedBytes) return;
+        pool.offer(buf);
+    }
+}
@@ -0,0 +1,127 @@
+package ie.ul.cs4297.indexer.svc;
+
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import ie.ul.cs4297.indexer.model.DispatcherStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link BulkExecutor} batches on a small pool so several {@code _bulk} requests are in
+ * flight at once instead of one per listener thread.
+ *
+ * Two semaphores provide backpressure: one caps the number of outstanding batches at
+ * {@code app.dispatch.max-in-flight}, the other caps their event payload at
+ * {@code app.dispatch.max-in-flight-bytes}. {@link #submit} blocks the calling consumer thread
+ * until both have room, which in turn stops it polling Kafka.
+ *
+ * A batch reads {@link IndexManager#writeTargets()} once, when it starts; {@link #drain()} lets a
+ * reindex wait out every batch that may still hold the targets from before mirroring began.
+ */
+@Component
+public class BulkDispatcher {
+
+    private final BulkExecutor bulk;
+    private final GenerationPublisher generation;
+    private final int maxInFlight;
+    private final int maxBytes;
+    private final Semaphore requests;
+    private final Semaphore bytes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final TreeSet<Long> outstanding = new TreeSet<>();   // tickets of submitted, unfinished batches
+    private long nextTicket;
+    private final ExecutorService pool;
+
+    public BulkDispatcher(BulkExecutor bulk, GenerationPublisher generation,
+                          @Value("${app.dispatch.max-in-flight:4}") int maxInFlight,
+                          @Value("${app.dispatch.max-in-flight-bytes:33554432}") int maxBytes) {
+        this.bulk = bulk;
+        this.generation = generation;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.requests = new Semaphore(this.maxInFlight);
+        this.bytes = new Semaphore(this.maxBytes);
+        AtomicInteger ids = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.maxInFlight, r -> {
+            Thread t = new Thread(r, "bulk-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queue a batch, blocking while the in-flight limits are reached. The future completes with
+     * {@link BulkExecutor#execute}'s result, or false if the batch could not be run at all.
+     */
+    public CompletableFuture<Boolean> submit(List<ArticleEvent> events, long payloadBytes) throws InterruptedException {
+        // a single batch larger than the whole budget still gets through, alone
+        int weight = (int) Math.max(1, Math.min(payloadBytes, maxBytes));
+        requests.acquire();
+        try {
+            bytes.acquire(weight);
+        } catch (InterruptedException e) {
+            requests.release();
+            throw e;
+        }
+        inFlight.incrementAndGet();
+        inFlightBytes.addAndGet(weight);
+        long ticket;
+        synchronized (outstanding) {
+            ticket = ++nextTicket;
+            outstanding.add(ticket);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                boolean ok = bulk.execute(events);
+                if (ok) generation.markChanged(events);
+                return ok;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (RuntimeException e) {
+                System.err.println("[Indexer] bulk batch failed: " + e.getMessage());
+                return false;
+            } finally {
+                synchronized (outstanding) {
+                    outstanding.remove(ticket);
+                    outstanding.notifyAll();
+                }
+                inFlight.decrementAndGet();
+                inFlightBytes.addAndGet(-weight);
+                bytes.release(weight);
+                requests.release();
+            }
+        }, pool);
+    }
+
+    /**
+     * Wait until every batch submitted before this call has finished, including ones sleeping in
+     * a retry backoff. Batches submitted afterwards are not waited for.
+     */
+    public void drain() throws InterruptedException {
+        synchronized (outstanding) {
+            long mark = nextTicket;
+            while (!outstanding.isEmpty() && outstanding.first() <= mark) outstanding.wait();
+        }
+    }
+
+    public DispatcherStatus status() {
+        return new DispatcherStatus(inFlight.get(), maxInFlight, inFlightBytes.get(), maxBytes, bulk.currentBatchSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,284 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends article events to Elasticsearch as {@code _bulk} requests and makes sure each one ends
+ * up either indexed or on the dead-letter topic.
+ *
+ * Events are cut into requests of an adaptive size (see {@link AdaptiveBatchSize}), at most
+ * {@code app.flush.max-docs} since that is all one consumer flush ever holds. The
+ * per-item results of every response are checked: items rejected with 429 or a 5xx are retried
+ * on their own with jittered exponential backoff, while items that fail permanently (mapping
+ * errors, malformed documents) or run out of attempts are published to {@code app.dlq-topic}.
+ *
+ * Every request is measured: {@code indexer.bulk.latency{outcome}}, {@code indexer.bulk.docs} and
+ * {@code indexer.bulk.bytes} per request, and {@code indexer.bulk.item.failures{outcome}} for
+ * items that were retried or dead-lettered.
+ */
+@Component
+public class BulkExecutor {
+
+    /** One bulk action together with its attempt count and last error. */
+    private static final class Item {
+        final ArticleEvent event;
+        int attempts;
+        int status;
+        String error;
+
+        Item(ArticleEvent event) { this.event = event; }
+    }
+
+    private final EsClient es;
+    private final IndexManager indices;
+    private final KafkaTemplate<String, byte[]> kafka;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AdaptiveBatchSize batchSize;
+    private final BulkBodyWriter bodies;
+    private final String dlqTopic;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final Timer okLatency;
+    private final Timer failedLatency;
+    private final DistributionSummary docs;
+    private final DistributionSummary bytes;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    public BulkExecutor(EsClient es, IndexManager indices, KafkaTemplate<String, byte[]> kafka, MeterRegistry registry,
+                        @Value("${app.dlq-topic:articles-dlq}") String dlqTopic,
+                        @Value("${app.bulk.min-docs:50}") int minDocs,
+                        @Value("${app.bulk.max-docs:5000}") int maxDocs,
+                        @Value("${app.bulk.initial-docs:500}") int initialDocs,
+                        @Value("${app.flush.max-docs:5000}") int flushMaxDocs,
+                        @Value("${app.bulk.target-latency-ms:1000}") long targetLatencyMs,
+                        @Value("${app.bulk.max-attempts:5}") int maxAttempts,
+                        @Value("${app.bulk.backoff-base-ms:200}") long backoffBaseMs,
+                        @Value("${app.bulk.backoff-max-ms:10000}") long backoffMaxMs,
+                        @Value("${app.bulk.buffer.pooled:8}") int pooledBuffers,
+                        @Value("${app.bulk.buffer.initial-bytes:262144}") int initialBufferBytes,
+                        @Value("${app.bulk.buffer.max-retained-bytes:16777216}") int maxRetainedBytes) {
+        this.es = es;
+        this.indices = indices;
+        this.kafka = kafka;
+        this.dlqTopic = dlqTopic;
+        int ceiling = Math.min(maxDocs, flushMaxDocs);
+        int floor = Math.min(minDocs, ceiling);
+        this.batchSize = new AdaptiveBatchSize(floor, ceiling, initialDocs, targetLatencyMs);
+        if (ceiling < maxDocs || initialDocs > ceiling || minDocs > ceiling) {
+            System.err.println("[Indexer] app.bulk settings exceed app.flush.max-docs=" + flushMaxDocs
+                    + ": bulk max-docs " + maxDocs + ", initial-docs " + initialDocs + ", min-docs " + minDocs
+                    + " are capped to it");
+        }
+        System.out.println("[Indexer] bulk size " + floor + ".." + ceiling + " docs, starting at "
+                + batchSize.current());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.bodies = new BulkBodyWriter(pooledBuffers, initialBufferBytes, maxRetainedBytes);
+
+        this.okLatency = latencyTimer(registry, "ok");
+        this.failedLatency = latencyTimer(registry, "failed");
+        this.docs = DistributionSummary.builder("indexer.bulk.docs")
+                .description("actions per _bulk request").publishPercentileHistogram().register(registry);
+        this.bytes = DistributionSummary.builder("indexer.bulk.bytes").baseUnit("bytes")
+                .description("_bulk request body size").publishPercentileHistogram().register(registry);
+        this.retried = Counter.builder("indexer.bulk.item.failures").tag("outcome", "retried")
+                .description("bulk items rejected by Elasticsearch").register(registry);
+        this.deadLettered = Counter.builder("indexer.bulk.item.failures").tag("outcome", "dead_lettered")
+                .description("bulk items rejected by Elasticsearch").register(registry);
+    }
+
+    /**
+     * Index or delete every event in each write target (the write alias, plus the generation
+     * being rebuilt during a reindex). Returns true once each event was either accepted by
+     * Elasticsearch or written to the dead-letter topic; false means the caller must redeliver.
+     */
+    public boolean execute(List<ArticleEvent> events) throws InterruptedException {
+        for (String target : indices.writeTargets()) {
+            if (!execute(target, events)) return false;
+        }
+        return true;
+    }
+
+    /** Documents per request right now, as chosen by the adaptive sizing. */
+    public int currentBatchSize() { return batchSize.current(); }
+
+    private boolean execute(String target, List<ArticleEvent> events) throws InterruptedException {
+        // only the last event per article counts; an earlier one retried later would overwrite it
+        Map<Long, Item> latest = new LinkedHashMap<>();
+        for (ArticleEvent e : events) {
+            latest.remove(e.id());
+            latest.put(e.id(), new Item(e));
+        }
+        List<Item> pending = new ArrayList<>(latest.values());
+        if (!indices.isAlias(target)) {
+            List<ArticleEvent> mirrored = new ArrayList<>(pending.size());
+            for (Item item : pending) mirrored.add(item.event);
+            indices.mirrored(mirrored);
+        }
+
+        List<Item> dead = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            List<Item> retry = new ArrayList<>();
+            for (int from = 0; from < pending.size(); ) {
+                int size = batchSize.current();
+                int to = Math.min(pending.size(), from + size);
+                sendChunk(target, pending.subList(from, to), to - from == size, retry, dead);
+                from = to;
+            }
+            if (retry.isEmpty()) break;
+
+            int attempt = retry.get(0).attempts;
+            long sleep = backoff(attempt);
+            System.err.println("[Indexer] retrying " + retry.size() + " bulk item(s) in " + sleep
+                    + " ms (attempt " + (attempt + 1) + "/" + maxAttempts + ")");
+            Thread.sleep(sleep);
+            pending = retry;
+        }
+        return dead.isEmpty() || deadLetter(dead);
+    }
+
+    /**
+     * Send one request and sort its items into done, retry and dead. {@code full} means the chunk
+     * was cut at the adaptive size, so its outcome may grow it.
+     */
+    private void sendChunk(String target, List<Item> chunk, boolean full, List<Item> retry, List<Item> dead) {
+        List<ArticleEvent> events = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            item.attempts++;
+            events.add(item.event);
+        }
+
+        long start = System.nanoTime();
+        EsClient.BulkResponse resp;
+        try (BulkBodyWriter.BulkBody body = bodies.write(target, events)) {
+            bytes.record(body.size());
+            resp = es.bulk(body, indices.isAlias(target));
+        } catch (Exception e) {
+            // connection-level failure: every item is retryable
+            resp = new EsClient.BulkResponse(503, e.getMessage());
+        }
+        long latencyNanos = System.nanoTime() - start;
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        boolean ok = resp.status() >= 200 && resp.status() < 300;
+        (ok ? okLatency : failedLatency).record(latencyNanos, TimeUnit.NANOSECONDS);
+        docs.record(chunk.size());
+
+        if (!ok) {
+            batchSize.record(full, latencyMs, resp.status() == 429);
+            boolean retryable = isRetryable(resp.status());
+            for (Item item : chunk) {
+                item.status = resp.status();
+                item.error = "bulk request failed: HTTP " + resp.status();
+                route(item, retryable, retry, dead);
+            }
+            return;
+        }
+
+        boolean throttled = false;
+        int failed = 0;
+        JsonNode root = parse(resp.body());
+        Iterator<JsonNode> results = root.path("items").elements();
+        for (Item item : chunk) {
+            // each item is {"index": {...}} or {"delete": {...}}, in request order
+            JsonNode r = null;
+            if (results.hasNext()) {
+                Iterator<JsonNode> action = results.next().elements();
+                r = action.hasNext() ? action.next() : null;
+            }
+            int status = (r == null) ? 500 : r.path("status").asInt(500);
+            if (status < 300 || (status == 404 && item.event.isDelete())) continue;
+
+            failed++;
+            throttled |= status == 429;
+            item.status = status;
+            item.error = (r == null) ? "missing item result" : r.path("error").toString();
+            route(item, isRetryable(status), retry, dead);
+        }
+        batchSize.record(full, latencyMs, throttled);
+        if (failed > 0) {
+            System.err.println("[Indexer] bulk: " + failed + "/" + chunk.size() + " item(s) failed");
+        }
+    }
+
+    private void route(Item item, boolean retryable, List<Item> retry, List<Item> dead) {
+        if (retryable && item.attempts < maxAttempts) {
+            retry.add(item);
+            retried.increment();
+        } else {
+            dead.add(item);
+            deadLettered.increment();
+        }
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("indexer.bulk.latency")
+                .description("_bulk round-trip time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /** Full jitter: uniform in [0, min(max, base * 2^attempt)). */
+    private long backoff(int attempt) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(Math.max(1, cap));
+    }
+
+    /** Publish the failed items to the dead-letter topic; true if every send was acknowledged. */
+    private boolean deadLetter(List<Item> dead) {
+        try {
+            List<CompletableFuture<?>> sends = new ArrayList<>(dead.size());
+            for (Item item : dead) {
+                sends.add(kafka.send(dlqTopic, Long.toString(item.event.id()), toDlqRecord(item)));
+            }
+            for (var f : sends) f.get(30, TimeUnit.SECONDS);
+            System.err.println("[Indexer] dead-lettered " + dead.size() + " item(s) to " + dlqTopic);
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Indexer] dead-letter publish failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private byte[] toDlqRecord(Item item) throws Exception {
+        ObjectNode n = mapper.createObjectNode();
+        n.put("id", item.event.id());
+        n.put("op", item.event.isDelete() ? "delete" : "index");
+        n.put("status", item.status);
+        n.put("attempts", item.attempts);
+        n.put("error", item.error);
+        if (!item.event.isDelete()) n.set("article", mapper.valueToTree(item.event.article()));
+        return mapper.writeValueAsBytes(n);
+    }
+
+    private JsonNode parse(String body) {
+        try { return mapper.readTree(body == null ? "{}" : body); }
+        catch (Exception e) { return mapper.createObjectNode(); }
+    }
+}
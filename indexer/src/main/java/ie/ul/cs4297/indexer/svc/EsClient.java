@@ -1,98 +1,115 @@
 package ie.ul.cs4297.indexer.svc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestClient;
-import org.springframework.web.client.RestClientResponseException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
 @Component
 public class EsClient {
     private final RestClient http;
-    private final String index;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean gzipBulk;
+    private final int gzipLevel;
+    private final DistributionSummary wireBytes;
+
+    public EsClient(EsTransport transport, MeterRegistry registry, @Value("${app.es-host}") String esHost) {
+        this.http = RestClient.builder()
+                .baseUrl(esHost)
+                .requestFactory(transport.requestFactory())
+                .requestInterceptor(transport.compression())
+                .build();
+        this.gzipBulk = transport.gzipBulk();
+        this.gzipLevel = transport.gzipLevel();
+        // compare with indexer.bulk.bytes for the compression ratio
+        this.wireBytes = DistributionSummary.builder("indexer.bulk.wire.bytes").baseUnit("bytes")
+                .description("_bulk request body size as sent").register(registry);
+    }
 
-    public EsClient(
-            @Value("${app.es-host}") String esHost,
-            @Value("${app.es-index}") String index
-    ) {
-        this.http = RestClient.builder().baseUrl(esHost).build();
-        this.index = index;
-        ensureIndex();
+    /** Status and parsed JSON body of an ES call (an empty object when there is no body). */
+    public record Response(int status, JsonNode json) {
+        public boolean ok() { return status >= 200 && status < 300; }
     }
 
-    private void ensureIndex() {
-        try {
-            // HEAD /{index}: exists?
-            var headResp = http.head().uri("/" + index).retrieve().toEntity(Void.class);
-            if (headResp.getStatusCode().is2xxSuccessful()) return;
-        } catch (RestClientResponseException e) {
-            // 404 means create it
-            if (e.getStatusCode().value() != 404) {
-                System.err.println("[Indexer] HEAD index failed: " + e.getStatusText());
-            }
+    /** Send a JSON request to ES. Error statuses are returned, not thrown. */
+    public Response request(HttpMethod method, String path, String jsonBody) {
+        var spec = http.method(method)
+                .uri(path)
+                .header("Accept", "application/json");
+        if (jsonBody != null) {
+            spec = spec.contentType(MediaType.APPLICATION_JSON).body(jsonBody);
         }
+        return spec.exchange((req, res) -> {
+            byte[] body = res.getBody().readAllBytes();
+            JsonNode json = body.length == 0 ? mapper.createObjectNode() : mapper.readTree(body);
+            return new Response(res.getStatusCode().value(), json);
+        });
+    }
+
+    /** Status and raw body of a {@code _bulk} call; per-item results are in the body. */
+    public record BulkResponse(int status, String body) {}
 
-        // Create index with a simple mapping
-        var mapping = """
-            {
-              "settings": {
-                "number_of_shards": 1,
-                "number_of_replicas": 0
-              },
-              "mappings": {
-                "properties": {
-                  "title":   { "type": "text" },
-                  "content": { "type": "text" },
-                  "tags":    { "type": "keyword" },
-                  "source_url": { "type": "keyword" }
+    /**
+     * Send an encoded NDJSON bulk body to ES. Error statuses are returned, not thrown.
+     * With {@code requireAlias} the actions fail instead of auto-creating a concrete index when
+     * their target alias is missing. With {@code app.es-http.gzip-bulk} the body is gzipped
+     * while it is written to the socket (so it goes out chunked, without a length up front).
+     */
+    public BulkResponse bulk(BulkBodyWriter.BulkBody body, boolean requireAlias) {
+        var spec = http.post()
+                .uri(requireAlias ? "/_bulk?require_alias=true" : "/_bulk")
+                .contentType(MediaType.valueOf("application/x-ndjson"))
+                .header("Accept", "application/json");
+        if (gzipBulk) {
+            spec = spec.header("Content-Encoding", "gzip").body(out -> {
+                CountingStream counted = new CountingStream(out);
+                try (GZIPOutputStream gz = new GzipStream(StreamUtils.nonClosing(counted), gzipLevel)) {
+                    body.writeTo(gz);
                 }
-              }
-            }
-            """;
+                wireBytes.record(counted.count);
+            });
+        } else {
+            wireBytes.record(body.size());
+            spec = spec.contentLength(body.size()).body(body::writeTo);
+        }
+        return spec.exchange((req, res) -> new BulkResponse(res.getStatusCode().value(),
+                new String(res.getBody().readAllBytes(), StandardCharsets.UTF_8)));
+    }
 
-        try {
-            ResponseEntity<String> resp = http.put()
-                    .uri("/" + index)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(mapping)
-                    .retrieve()
-                    .toEntity(String.class);
-            if (!resp.getStatusCode().is2xxSuccessful()) {
-                System.err.println("[Indexer] Create index failed: HTTP " + resp.getStatusCode());
-                if (resp.getBody() != null) System.err.println(resp.getBody());
-            } else {
-                System.out.println("[Indexer] Created index: " + index);
-            }
-        } catch (Exception e) {
-            System.err.println("[Indexer] Error creating index: " + e.getMessage());
+    private static final class GzipStream extends GZIPOutputStream {
+        GzipStream(OutputStream out, int level) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(level);
         }
     }
 
-    /** Send prebuilt NDJSON bulk body to ES */
-    public void bulkNdjson(String ndjson) {
-        try {
-            var resp = http.post()
-                    .uri("/_bulk")
-                    .contentType(MediaType.valueOf("application/x-ndjson"))
-                    .header("Accept", "application/json")
-                    .body(ndjson)
-                    .retrieve()
-                    .toEntity(String.class);
+    private static final class CountingStream extends FilterOutputStream {
+        long count;
+
+        CountingStream(OutputStream out) { super(out); }
 
-            if (!resp.getStatusCode().is2xxSuccessful()) {
-                System.err.println("[Indexer] Bulk failed: HTTP " + resp.getStatusCode());
-                if (resp.getBody() != null) System.err.println("[Indexer] Bulk body: " + resp.getBody());
-            }
-        } catch (RestClientResponseException e) {
-            System.err.println("[Indexer] Bulk HTTP error: " + e.getStatusCode() + " " + e.getStatusText());
-            System.err.println(e.getResponseBodyAsString());
-        } catch (Exception e) {
-            System.err.println("[Indexer] Bulk error: " + e.getMessage());
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
         }
-    }
 
-    public String indexName() { return index; }
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
 }
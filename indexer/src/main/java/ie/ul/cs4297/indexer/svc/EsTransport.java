@@ -0,0 +1,164 @@
+package ie.ul.cs4297.indexer.svc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The HTTP connection to Elasticsearch that {@link EsClient} sends through.
+ *
+ * By default a pooled Apache HttpClient 5 with HTTP/1.1 keep-alive: one socket per concurrent
+ * {@code _bulk} (see {@code app.dispatch.max-in-flight}) stays open between requests, a request
+ * waits at most {@code pool-timeout} for a free one, and a response must arrive within
+ * {@code read-timeout}. Responses are requested with {@code Accept-Encoding: gzip} and
+ * decompressed transparently; with {@code gzip-bulk} the NDJSON bulk bodies are sent gzipped too
+ * (at {@code gzip-level}, fastest by default). Pool use is exported as
+ * {@code httpcomponents.httpclient.pool.*{httpclient="elasticsearch"}}.
+ *
+ * With {@code version: HTTP_2} the JDK client is used instead; it negotiates HTTP/2 when
+ * something in front of the cluster speaks it and manages its own pool, so there are no pool
+ * metrics in that mode.
+ */
+@Component
+public class EsTransport implements DisposableBean {
+
+    private final ClientHttpRequestFactory factory;
+    private final CloseableHttpClient pooled;
+    private final boolean gzipBulk;
+    private final int gzipLevel;
+
+    public EsTransport(MeterRegistry registry,
+                       @Value("${app.es-http.version:HTTP_1_1}") HttpClient.Version version,
+                       @Value("${app.es-http.max-connections:16}") int maxConnections,
+                       @Value("${app.es-http.connect-timeout:2s}") Duration connectTimeout,
+                       @Value("${app.es-http.read-timeout:60s}") Duration readTimeout,
+                       @Value("${app.es-http.pool-timeout:30s}") Duration poolTimeout,
+                       @Value("${app.es-http.idle-timeout:60s}") Duration idleTimeout,
+                       @Value("${app.es-http.gzip-bulk:true}") boolean gzipBulk,
+                       @Value("${app.es-http.gzip-level:1}") int gzipLevel) {
+        this.gzipBulk = gzipBulk;
+        this.gzipLevel = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, gzipLevel));
+
+        if (version == HttpClient.Version.HTTP_2) {
+            JdkClientHttpRequestFactory jdk = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build());
+            jdk.setReadTimeout(readTimeout);
+            this.factory = jdk;
+            this.pooled = null;
+            System.out.println("[Indexer] elasticsearch transport: JDK HTTP/2, gzip bulk " + gzipBulk);
+            return;
+        }
+
+        int max = Math.max(1, maxConnections);
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(max)
+                .setMaxConnPerRoute(max)   // one route: the cluster's address
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setTcpNoDelay(true)
+                        .setSoKeepAlive(true)
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+                        .build())
+                .build();
+        this.pooled = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .evictExpiredConnections()
+                .build();   // content compression is on: Accept-Encoding: gzip, deflate + transparent decoding
+        this.factory = new HttpComponentsClientHttpRequestFactory(pooled);
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, "elasticsearch").bindTo(registry);
+        System.out.println("[Indexer] elasticsearch transport: pooled HTTP/1.1, max " + max
+                + " connections, gzip bulk " + gzipBulk);
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return factory;
+    }
+
+    /** Whether {@code _bulk} bodies are sent with {@code Content-Encoding: gzip}. */
+    public boolean gzipBulk() { return gzipBulk; }
+
+    /** Deflate level for bulk bodies, 1 (fastest) to 9. */
+    public int gzipLevel() { return gzipLevel; }
+
+    /**
+     * Asks for gzip responses where the client does not already (the JDK client neither sends
+     * {@code Accept-Encoding} nor decodes), and unwraps them.
+     */
+    public ClientHttpRequestInterceptor compression() {
+        return (req, body, exec) -> {
+            if (pooled != null) return exec.execute(req, body);
+            req.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            ClientHttpResponse res = exec.execute(req, body);
+            return "gzip".equalsIgnoreCase(res.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                    ? new GunzippedResponse(res) : res;
+        };
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (pooled != null) pooled.close();
+    }
+
+    private static final class GunzippedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse res;
+        private InputStream body;
+
+        GunzippedResponse(ClientHttpResponse res) { this.res = res; }
+
+        @Override public HttpStatusCode getStatusCode() throws IOException { return res.getStatusCode(); }
+        @Override public String getStatusText() throws IOException { return res.getStatusText(); }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders h = new HttpHeaders();
+            h.putAll(res.getHeaders());
+            h.remove(HttpHeaders.CONTENT_ENCODING);
+            h.remove(HttpHeaders.CONTENT_LENGTH);
+            return h;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = new GZIPInputStream(res.getBody());
+            return body;
+        }
+
+        @Override
+        public void close() { res.close(); }
+    }
+}
@@ -0,0 +1,118 @@
+package ie.ul.cs4297.indexer.svc;
+
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes an index generation token that readers use to invalidate cached search results.
+ *
+ * The token is the {@code _version} of a single document in {@code app.es-meta-index}; every
+ * PUT bumps it. Writes are only counted here, and a change is published one refresh interval
+ * after it was made, so by the time readers see the new generation the documents are
+ * searchable and a re-cached result cannot be stale.
+ *
+ * The same tick closes the end-to-end freshness measurement: crawl times of indexed articles
+ * are held for one refresh interval and then recorded in {@code pipeline.freshness} as the time
+ * from {@code articles.crawled_at} until the document was searchable. The value is an upper
+ * bound by at most one refresh interval.
+ */
+@Component
+public class GenerationPublisher {
+
+    private final EsClient es;
+    private final String path;
+    private final AtomicLong changes = new AtomicLong();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "generation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Timer freshness;
+    private long[] crawled = new long[256];   // crawl times of writes since the last tick
+    private int crawledCount;
+    private long[] ripe = new long[256];      // ... and of writes made before it, searchable by the next tick
+    private int ripeCount;
+
+    private long seenAtLastTick;
+    private long published;
+
+    public GenerationPublisher(EsClient es, MeterRegistry registry,
+                               @Value("${app.es-meta-index:${app.es-index}-meta}") String metaIndex,
+                               @Value("${app.index.refresh-interval:1s}") Duration refreshInterval) {
+        this.es = es;
+        this.path = "/" + metaIndex + "/_doc/generation";
+        this.freshness = Timer.builder("pipeline.freshness")
+                .description("time from articles.crawled_at until the article is searchable")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(registry);
+        long ms = Math.max(100, refreshInterval.toMillis());
+        timer.scheduleWithFixedDelay(this::tick, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    /** Record that the searchable index changed (a bulk batch or an alias swap went through). */
+    public void markChanged() {
+        changes.incrementAndGet();
+    }
+
+    /** Like {@link #markChanged()}, and hold each upsert's crawl time for the freshness timer. */
+    public void markChanged(List<ArticleEvent> events) {
+        synchronized (this) {
+            for (ArticleEvent e : events) {
+                if (e.crawledAt() <= 0) continue;
+                if (crawledCount == crawled.length) crawled = Arrays.copyOf(crawled, crawledCount * 2);
+                crawled[crawledCount++] = e.crawledAt();
+            }
+        }
+        markChanged();
+    }
+
+    private void tick() {
+        recordFreshness();
+
+        // changes counted before the previous tick are at least one refresh interval old now
+        long visible = seenAtLastTick;
+        seenAtLastTick = changes.get();
+        if (visible == published) return;
+        try {
+            EsClient.Response r = es.request(HttpMethod.PUT, path,
+                    "{\"updated_at\":" + System.currentTimeMillis() + "}");
+            if (r.ok()) published = visible;
+            else System.err.println("[Indexer] generation bump failed: HTTP " + r.status());
+        } catch (Exception e) {
+            System.err.println("[Indexer] generation bump failed: " + e.getMessage());
+        }
+    }
+
+    /** Record writes made before the previous tick, then hold the ones made since until the next. */
+    private synchronized void recordFreshness() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ripeCount; i++) {
+            freshness.record(Math.max(0, now - ripe[i]), TimeUnit.MILLISECONDS);
+        }
+        long[] recycled = ripe;
+        ripe = crawled;
+        ripeCount = crawledCount;
+        crawled = recycled;
+        crawledCount = 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,170 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the article index layout: versioned physical indices ({@code articles-v1},
+ * {@code articles-v2}, ...) behind a read alias ({@code app.es-index}, which search-service
+ * queries) and a write alias ({@code app.es-write-alias}, which the bulk writer targets).
+ *
+ * A deployment that still has the old concrete {@code articles} index keeps working: the write
+ * alias is attached to it and the first reindex replaces it with a generation.
+ */
+@Component
+public class IndexManager {
+
+    // mapping shared by every generation; settings are supplied per index
+    static final String MAPPINGS = """
+            {
+              "properties": {
+                "id":      { "type": "long" },
+                "title":   { "type": "text" },
+                "content": { "type": "text" },
+                "tags":    { "type": "keyword" },
+                "source_url": { "type": "keyword" }
+              }
+            }
+            """;
+
+    private final EsClient es;
+    private final String readAlias;
+    private final String writeAlias;
+    private final int shards;
+    private final int replicas;
+
+    // the write alias, plus the generation being rebuilt while a reindex runs
+    private volatile List<String> writeTargets;
+    // ids whose latest mirrored write was a delete; _reindex may copy them back in
+    private final Set<Long> mirroredDeletes = ConcurrentHashMap.newKeySet();
+
+    public IndexManager(EsClient es,
+                        @Value("${app.es-index}") String readAlias,
+                        @Value("${app.es-write-alias:${app.es-index}-write}") String writeAlias,
+                        @Value("${app.index.shards:1}") int shards,
+                        @Value("${app.index.replicas:0}") int replicas) {
+        this.es = es;
+        this.readAlias = readAlias;
+        this.writeAlias = writeAlias;
+        this.shards = shards;
+        this.replicas = replicas;
+        this.writeTargets = List.of(writeAlias);
+    }
+
+    @PostConstruct
+    void ensureIndex() {
+        try {
+            String current = readIndex();
+            if (current == null) {
+                String first = generationName(1);
+                EsClient.Response created = es.request(HttpMethod.PUT, "/" + first, """
+                        {
+                          "settings": { "number_of_shards": %d, "number_of_replicas": %d },
+                          "mappings": %s,
+                          "aliases": { "%s": {}, "%s": { "is_write_index": true } }
+                        }
+                        """.formatted(shards, replicas, MAPPINGS, readAlias, writeAlias));
+                if (!created.ok()) {
+                    System.err.println("[Indexer] Create index failed: HTTP " + created.status() + " " + created.json());
+                } else {
+                    System.out.println("[Indexer] Created index " + first + " behind aliases " + readAlias + ", " + writeAlias);
+                }
+                return;
+            }
+
+            if (es.request(HttpMethod.HEAD, "/_alias/" + writeAlias, null).status() == 404) {
+                addAlias(current, writeAlias);
+            }
+            if (current.equals(readAlias)) {
+                System.out.println("[Indexer] Legacy concrete index '" + readAlias
+                        + "' in use; POST /admin/reindex to move it behind aliases");
+            }
+        } catch (Exception e) {
+            System.err.println("[Indexer] Error preparing index: " + e.getMessage());
+        }
+    }
+
+    /** Indices every bulk action must be written to. */
+    public List<String> writeTargets() { return writeTargets; }
+
+    /** True for targets that must resolve through an alias rather than auto-create an index. */
+    public boolean isAlias(String target) { return target.equals(writeAlias); }
+
+    public String readAlias() { return readAlias; }
+
+    public String writeAlias() { return writeAlias; }
+
+    /** Mirror writes into {@code generation} while it is being rebuilt; null stops mirroring. */
+    void mirrorWritesTo(String generation) {
+        mirroredDeletes.clear();
+        writeTargets = (generation == null) ? List.of(writeAlias) : List.of(writeAlias, generation);
+    }
+
+    /**
+     * Note events about to be mirrored into the generation being rebuilt. An article is
+     * remembered while its latest mirrored event is a delete, so the delete can be applied again
+     * once the copy is done. Events for one article come from one partition, so they arrive in order.
+     */
+    void mirrored(Collection<ArticleEvent> events) {
+        for (ArticleEvent e : events) {
+            if (e.isDelete()) mirroredDeletes.add(e.id());
+            else mirroredDeletes.remove(e.id());
+        }
+    }
+
+    /** Articles deleted while the current generation was being mirrored (a snapshot). */
+    List<Long> mirroredDeletes() {
+        return List.copyOf(mirroredDeletes);
+    }
+
+    /**
+     * The physical index behind the read alias: a generation name, the read alias itself for a
+     * legacy concrete index, or null if neither exists.
+     */
+    String readIndex() {
+        EsClient.Response alias = es.request(HttpMethod.GET, "/_alias/" + readAlias, null);
+        if (alias.status() == 200) {
+            Iterator<String> names = alias.json().fieldNames();
+            if (names.hasNext()) return names.next();
+        }
+        return es.request(HttpMethod.HEAD, "/" + readAlias, null).ok() ? readAlias : null;
+    }
+
+    /** Name for the generation after the highest existing one. */
+    String nextGeneration() {
+        EsClient.Response r = es.request(HttpMethod.GET,
+                "/_cat/indices/" + readAlias + "-v*?format=json&h=index&expand_wildcards=all", null);
+        int max = 0;
+        for (JsonNode row : r.json()) {
+            String name = row.path("index").asText("");
+            try {
+                max = Math.max(max, Integer.parseInt(name.substring(readAlias.length() + 2)));
+            } catch (RuntimeException ignored) {
+                // not one of ours, e.g. articles-v2-restored
+            }
+        }
+        return generationName(max + 1);
+    }
+
+    private String generationName(int n) {
+        return readAlias + "-v" + n;
+    }
+
+    private void addAlias(String index, String alias) {
+        EsClient.Response r = es.request(HttpMethod.POST, "/_aliases", """
+                { "actions": [ { "add": { "index": "%s", "alias": "%s" } } ] }
+                """.formatted(index, alias));
+        if (r.ok()) System.out.println("[Indexer] Added alias " + alias + " -> " + index);
+        else System.err.println("[Indexer] Add alias " + alias + " failed: HTTP " + r.status() + " " + r.json());
+    }
+}
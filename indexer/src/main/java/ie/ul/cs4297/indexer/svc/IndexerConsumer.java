@@ -1,95 +1,261 @@
 package ie.ul.cs4297.indexer.svc;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import ie.ul.cs4297.indexer.model.Article;
+import ie.ul.cs4297.indexer.model.ArticleEvent;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Batch consumer that turns article events into Elasticsearch {@code _bulk} requests.
+ *
+ * The listener runs {@code app.consumer-concurrency} consumers (one per partition) and every
+ * consumer thread accumulates its own batch. A batch is flushed when it reaches
+ * {@code app.flush.max-docs} documents, {@code app.flush.max-bytes} of event payload or has
+ * been open for {@code app.flush.linger-ms}, whichever comes first; idle container events make
+ * the linger deadline hold even when no new records arrive.
+ *
+ * Flushed batches go to the {@link BulkDispatcher}, so a consumer keeps polling while several
+ * of its batches are in flight. Offsets are still committed manually and in dispatch order: a
+ * batch is acknowledged only once it and every batch before it has been indexed or
+ * dead-lettered. If one fails, the consumer waits for the rest, seeks back to the earliest
+ * uncommitted offset of each partition and reads everything after it again. A batch that
+ * touches an article still in flight waits for that batch first, so two versions of a document
+ * never race each other.
+ */
 @Service
-public class IndexerConsumer {
+public class IndexerConsumer implements ConsumerSeekAware {
 
-    private final EsClient es;
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final int bulkSize;
+    static final String LISTENER_ID = "indexer";
 
-    private final List<Article> buffer = new ArrayList<>();
+    /** Events buffered by one consumer thread, with the acks to commit once they are indexed. */
+    private static final class Batch {
+        final List<ArticleEvent> events = new ArrayList<>();
+        final List<Acknowledgment> acks = new ArrayList<>();
+        final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        final Set<Long> ids = new HashSet<>();
+        long bytes;
+        long openedAt;   // epoch millis of the first buffered record
+        CompletableFuture<Boolean> result;   // set when dispatched, i.e. when it joins Lane.inFlight
 
-    public IndexerConsumer(EsClient es, @Value("${app.bulk-size:200}") int bulkSize) {
-        this.es = es;
-        this.bulkSize = bulkSize;
+        boolean isEmpty() { return acks.isEmpty(); }
     }
 
-    @KafkaListener(topics = "${app.kafka-topic}", groupId = "${spring.kafka.consumer.group-id}")
-    public void onMessage(ConsumerRecord<String, String> record) {
-        try {
-            // Event is a JSON object produced by article-service
-            JsonNode root = mapper.readTree(record.value());
+    /** Per consumer thread: the batch being filled and the dispatched ones, oldest first. */
+    private static final class Lane {
+        Batch open = new Batch();
+        final ArrayDeque<Batch> inFlight = new ArrayDeque<>();
+    }
+
+    private final BulkDispatcher dispatcher;
+    private final ArticleEventDecoder decoder;
+    private final int maxDocs;
+    private final long maxBytes;
+    private final long lingerMs;
+    private final long retryBackoffMs;
+
+    // listener, idle events and rebalance callbacks all run on the owning consumer thread
+    private final ThreadLocal<Lane> lanes = ThreadLocal.withInitial(Lane::new);
+
+    public IndexerConsumer(BulkDispatcher dispatcher, ArticleEventDecoder decoder,
+                           @Value("${app.flush.max-docs:5000}") int maxDocs,
+                           @Value("${app.flush.max-bytes:5242880}") long maxBytes,
+                           @Value("${app.flush.linger-ms:1000}") long lingerMs,
+                           @Value("${app.flush.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.dispatcher = dispatcher;
+        this.decoder = decoder;
+        this.maxDocs = maxDocs;
+        this.maxBytes = maxBytes;
+        this.lingerMs = lingerMs;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false,
+            topics = "${app.kafka-topic}", groupId = "${spring.kafka.consumer.group-id}",
+            batch = "true", concurrency = "${app.consumer-concurrency:3}")
+    public void onBatch(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack, Consumer<?, ?> consumer) {
+        Lane lane = lanes.get();
+        Batch batch = lane.open;
+        if (batch.isEmpty()) batch.openedAt = System.currentTimeMillis();
+
+        for (ConsumerRecord<String, byte[]> record : records) {
+            batch.firstOffsets.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+            try {
+                ArticleEvent event;
+                // A tombstone (null value) means the article was deleted
+                if (record.value() == null) {
+                    event = ArticleEvent.delete(Long.parseLong(record.key()));
+                } else {
+                    // Event produced by article-service: JSON text or Smile binary, flat or nested "article"
+                    event = ArticleEvent.upsert(decoder.decode(record.value()), crawledAt(record));
+                    batch.bytes += record.value().length;
+                }
+                batch.events.add(event);
+                batch.ids.add(event.id());
+            } catch (Exception e) {
+                System.err.println("[Indexer] Failed to parse/queue record: " + e.getMessage());
+            }
+        }
+        batch.acks.add(ack);
+
+        if (!commitCompleted(lane, consumer)) return;   // rewound: these records will be fetched again
+        if (isDue(batch)) dispatch(lane, consumer);
+    }
+
+    /** Commit finished batches and enforce the linger deadline while the partitions are quiet. */
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "-')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Lane lane = lanes.get();
+        if (!commitCompleted(lane, event.getConsumer())) return;
+        if (!lane.open.isEmpty() && isDue(lane.open)) dispatch(lane, event.getConsumer());
+    }
+
+    /** Finish what we hold before partitions move to another consumer, so nothing is applied out of order. */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        Lane lane = lanes.get();
+        if (!lane.open.isEmpty()) {
+            try {
+                send(lane, lane.open);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lane.open = new Batch();
+        }
+        while (!lane.inFlight.isEmpty()) {
+            Batch head = lane.inFlight.pollFirst();
+            if (!succeeded(head)) {
+                // the new owner starts from the last committed offset
+                System.err.println("[Indexer] bulk failed during rebalance; uncommitted events will be redelivered");
+                awaitAll(lane);
+                lane.inFlight.clear();
+                return;
+            }
+            head.acks.forEach(Acknowledgment::acknowledge);
+        }
+    }
+
+    private boolean isDue(Batch batch) {
+        return batch.events.size() >= maxDocs
+                || batch.bytes >= maxBytes
+                || System.currentTimeMillis() - batch.openedAt >= lingerMs;
+    }
 
-            // Accept both flat events and nested "article" payloads
-            JsonNode node = root.has("article") ? root.get("article") : root;
+    private void dispatch(Lane lane, Consumer<?, ?> consumer) {
+        Batch batch = lane.open;
 
-            long id         = node.path("id").asLong();
-            String title    = nullIfBlank(node.path("title").asText(null));
-            String content  = nullIfBlank(node.path("content").asText(null));
-            String tags     = nullIfBlank(node.path("tags").asText(null));
-            String source   = nullIfBlank(node.path("source_url").asText(null));
+        // an article that is still in flight must land before its newer version is sent
+        while (overlapsInFlight(lane, batch)) {
+            if (!commitHead(lane, consumer)) return;
+        }
+        try {
+            send(lane, batch);
+            lane.open = new Batch();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rewind(lane, consumer);
+        }
+    }
 
-            buffer.add(new Article(id, title, content, tags, source));
+    private void send(Lane lane, Batch batch) throws InterruptedException {
+        batch.result = batch.events.isEmpty()
+                ? CompletableFuture.completedFuture(true)
+                : dispatcher.submit(batch.events, batch.bytes);
+        lane.inFlight.addLast(batch);
+    }
 
-            if (buffer.size() >= bulkSize) {
-                flush();
+    private boolean overlapsInFlight(Lane lane, Batch batch) {
+        for (Batch b : lane.inFlight) {
+            for (Long id : batch.ids) {
+                if (b.ids.contains(id)) return true;
             }
-        } catch (Exception e) {
-            System.err.println("[Indexer] Failed to parse/queue record: " + e.getMessage());
         }
+        return false;
     }
 
-    @PreDestroy
-    public void onShutdown() { flush(); }
+    /** Acknowledge every finished batch at the head of the lane. Returns false if the lane was rewound. */
+    private boolean commitCompleted(Lane lane, Consumer<?, ?> consumer) {
+        while (!lane.inFlight.isEmpty()) {
+            Batch head = lane.inFlight.peekFirst();
+            if (!head.result.isDone()) return true;
+            if (!commitHead(lane, consumer)) return false;
+        }
+        return true;
+    }
 
-    private void flush() {
-        if (buffer.isEmpty()) return;
+    /** Wait for the oldest dispatched batch and acknowledge it. Returns false if it failed and the lane was rewound. */
+    private boolean commitHead(Lane lane, Consumer<?, ?> consumer) {
+        Batch head = lane.inFlight.peekFirst();
+        if (!succeeded(head)) {
+            rewind(lane, consumer);
+            return false;
+        }
+        lane.inFlight.pollFirst();
+        head.acks.forEach(Acknowledgment::acknowledge);
+        return true;
+    }
 
-        String index = es.indexName();
-        StringBuilder nd = new StringBuilder(buffer.size() * 256);
+    /** Drop everything uncommitted and seek each partition back to its earliest uncommitted offset. */
+    private void rewind(Lane lane, Consumer<?, ?> consumer) {
+        awaitAll(lane);   // nothing of ours may still be writing when the replay starts
 
-        for (Article a : buffer) {
-            // action/metadata line — use MySQL id as ES _id to avoid duplicates
-            nd.append("{\"index\":{\"_index\":\"")
-                    .append(index)
-                    .append("\",\"_id\":\"")
-                    .append(a.id())
-                    .append("\"}}\n");
+        Map<TopicPartition, Long> earliest = new HashMap<>();
+        List<Batch> dropped = new ArrayList<>(lane.inFlight);
+        dropped.add(lane.open);
+        for (Batch b : dropped) {
+            b.firstOffsets.forEach((tp, offset) -> earliest.merge(tp, offset, Math::min));
+        }
+        lane.inFlight.clear();
+        lane.open = new Batch();
 
-            // source line
-            nd.append("{")
-                    .append("\"id\":").append(a.id()).append(",")
-                    .append("\"title\":").append(toJson(a.title())).append(",")
-                    .append("\"content\":").append(toJson(a.content())).append(",")
-                    .append("\"tags\":").append(toJson(a.tags())).append(",")
-                    .append("\"source_url\":").append(toJson(a.source_url()))
-                    .append("}\n");
+        earliest.forEach(consumer::seek);
+        System.err.println("[Indexer] bulk failed, rewinding " + earliest.size()
+                + " partition(s) and retrying in " + retryBackoffMs + " ms");
+        try {
+            Thread.sleep(retryBackoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
 
-        es.bulkNdjson(nd.toString());
-        System.out.println("[Indexer] bulk indexed " + buffer.size() + " docs");
-        buffer.clear();
+    /** The {@code crawled-at} header article-service adds to change-capture upserts, or 0. */
+    private static long crawledAt(ConsumerRecord<String, byte[]> record) {
+        Header h = record.headers().lastHeader("crawled-at");
+        if (h == null || h.value() == null) return 0;
+        try {
+            return Long.parseLong(new String(h.value(), StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
-    private String nullIfBlank(String s) {
-        return (s == null || s.isBlank()) ? null : s;
+    private static void awaitAll(Lane lane) {
+        for (Batch b : lane.inFlight) succeeded(b);
     }
 
-    private String toJson(String s) {
-        if (s == null) return "null";
-        try { return mapper.writeValueAsString(s); }
-        catch (Exception e) { return "null"; }
+    private static boolean succeeded(Batch batch) {
+        try {
+            return batch.result.join();
+        } catch (RuntimeException e) {
+            return false;
+        }
     }
 }
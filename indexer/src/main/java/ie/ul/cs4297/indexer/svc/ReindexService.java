@@ -0,0 +1,277 @@
+package ie.ul.cs4297.indexer.svc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import ie.ul.cs4297.indexer.model.ReindexStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Blue/green rebuild of the article index.
+ *
+ * A run creates the next generation with bulk-load settings (no replicas, refresh disabled,
+ * {@code shards} primaries), mirrors live writes into it, waits out bulk batches that started
+ * before mirroring (they only write the old generation), copies the current generation with
+ * {@code _reindex}, then restores the live settings, force-merges and compares document counts.
+ * {@code _reindex} copies a snapshot taken when it started, so an article deleted while it ran
+ * can be copied back after its mirrored delete; those deletes are applied once more after the copy.
+ * Only if the new generation holds at least as many documents does a single {@code _aliases}
+ * call move both aliases over; otherwise the new index is deleted and nothing changes for
+ * readers. The previous generation is kept so it can be swapped back by hand.
+ *
+ * Search only ever reads through the alias, so the copy and merge never touch live traffic.
+ *
+ * Anything that can outlast the HTTP read timeout (the copy, the delete replay, the force-merge)
+ * runs as a task and is polled; waiting for green health is a loop of short waits.
+ */
+@Service
+public class ReindexService {
+
+    private final EsClient es;
+    private final IndexManager indices;
+    private final BulkDispatcher dispatcher;
+    private final GenerationPublisher generation;
+    private final int replicas;
+    private final String refreshInterval;
+    private final long pollMs;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reindex");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final int REPLAY_CHUNK = 1000;   // ids per _delete_by_query
+    private static final long GREEN_TIMEOUT_MS = 10 * 60_000;
+    private static final String GREEN_WAIT = "20s";   // per request, well inside the read timeout
+
+    private volatile Run current;
+
+    public ReindexService(EsClient es, IndexManager indices, BulkDispatcher dispatcher, GenerationPublisher generation,
+                          @Value("${app.index.replicas:0}") int replicas,
+                          @Value("${app.index.refresh-interval:1s}") String refreshInterval,
+                          @Value("${app.reindex.poll-ms:2000}") long pollMs) {
+        this.es = es;
+        this.indices = indices;
+        this.dispatcher = dispatcher;
+        this.generation = generation;
+        this.replicas = replicas;
+        this.refreshInterval = refreshInterval;
+        this.pollMs = pollMs;
+    }
+
+    /** Start a reindex unless one is already running. Returns the current status either way. */
+    public synchronized ReindexStatus start(int shards) {
+        if (current != null && current.state.equals("running")) return current.status();
+        Run run = new Run(Math.max(1, shards));
+        current = run;
+        runner.submit(run::execute);
+        return run.status();
+    }
+
+    public ReindexStatus status() {
+        Run run = current;
+        return run == null ? new ReindexStatus("idle", null, null, null, 0, 0, 0, 0, null) : run.status();
+    }
+
+    private final class Run {
+        final int shards;
+        final long startedAt = System.currentTimeMillis();
+        volatile String state = "running";
+        volatile String step = "create";
+        volatile String source;
+        volatile String target;
+        volatile long sourceCount;
+        volatile long targetCount;
+        volatile String error;
+        volatile long finishedAt;
+
+        Run(int shards) { this.shards = shards; }
+
+        ReindexStatus status() {
+            long end = finishedAt == 0 ? System.currentTimeMillis() : finishedAt;
+            return new ReindexStatus(state, step, source, target, shards, sourceCount, targetCount,
+                    end - startedAt, error);
+        }
+
+        void execute() {
+            try {
+                source = indices.readIndex();
+                if (source == null) throw new IllegalStateException("no index behind " + indices.readAlias());
+                target = indices.nextGeneration();
+                System.out.println("[Reindex] " + source + " -> " + target + " (" + shards + " shards)");
+
+                // 1. empty generation tuned for bulk loading; live writes are mirrored into it from now on
+                call(HttpMethod.PUT, "/" + target, """
+                        {
+                          "settings": { "number_of_shards": %d, "number_of_replicas": 0, "refresh_interval": "-1" },
+                          "mappings": %s
+                        }
+                        """.formatted(shards, IndexManager.MAPPINGS));
+                indices.mirrorWritesTo(target);
+                // a batch that read the targets before the switch writes only the source; it must
+                // land before _reindex takes its snapshot, or the copy would miss it
+                dispatcher.drain();
+
+                // 2. copy; op_type=create keeps newer mirrored writes instead of overwriting them
+                step = "copy";
+                JsonNode task = call(HttpMethod.POST, "/_reindex?wait_for_completion=false&slices=auto", """
+                        {
+                          "conflicts": "proceed",
+                          "source": { "index": "%s", "size": 5000 },
+                          "dest":   { "index": "%s", "op_type": "create" }
+                        }
+                        """.formatted(source, target));
+                awaitTask("reindex", task.path("task").asText());
+
+                // 2b. the copy may have re-created articles whose delete was mirrored while it ran
+                step = "replay-deletes";
+                replayDeletes();
+
+                // 3. live settings back, then merge down before replicas copy the segments
+                step = "restore";
+                call(HttpMethod.PUT, "/" + target + "/_settings", """
+                        { "index": { "refresh_interval": "%s" } }
+                        """.formatted(refreshInterval));
+                call(HttpMethod.POST, "/" + target + "/_refresh", null);
+
+                step = "merge";
+                JsonNode merge = call(HttpMethod.POST,
+                        "/" + target + "/_forcemerge?max_num_segments=1&wait_for_completion=false", null);
+                awaitTask("forcemerge", merge.path("task").asText());
+                call(HttpMethod.PUT, "/" + target + "/_settings", """
+                        { "index": { "number_of_replicas": %d } }
+                        """.formatted(replicas));
+                awaitGreen();
+
+                // 4. the new generation must not be missing documents
+                step = "verify";
+                sourceCount = count(source);
+                targetCount = count(target);
+                if (targetCount < sourceCount) {
+                    throw new IllegalStateException("doc count shortfall: " + target + " has " + targetCount
+                            + ", " + source + " has " + sourceCount);
+                }
+
+                // 5. one atomic alias swap; a legacy concrete index is removed in the same call
+                step = "swap";
+                call(HttpMethod.POST, "/_aliases", swapActions());
+                indices.mirrorWritesTo(null);
+                generation.markChanged();
+
+                state = "done";
+                System.out.println("[Reindex] " + indices.readAlias() + " now -> " + target + " (" + targetCount
+                        + " docs); " + (source.equals(indices.readAlias()) ? "legacy index removed"
+                        : source + " kept for rollback"));
+            } catch (Exception e) {
+                error = e.getMessage();
+                rollback();
+            } finally {
+                finishedAt = System.currentTimeMillis();
+            }
+        }
+
+        private String swapActions() {
+            String read = indices.readAlias(), write = indices.writeAlias();
+            String retire = source.equals(read)
+                    ? "{ \"remove_index\": { \"index\": \"%s\" } }".formatted(source)
+                    : """
+                      { "remove": { "index": "%s", "alias": "%s" } },
+                      { "remove": { "index": "%s", "alias": "%s" } }
+                      """.formatted(source, read, source, write);
+            return """
+                    {
+                      "actions": [
+                        %s,
+                        { "add": { "index": "%s", "alias": "%s" } },
+                        { "add": { "index": "%s", "alias": "%s", "is_write_index": true } }
+                      ]
+                    }
+                    """.formatted(retire, target, read, target, write);
+        }
+
+        private void rollback() {
+            indices.mirrorWritesTo(null);
+            if (target != null && !step.equals("create")) {
+                EsClient.Response r = es.request(HttpMethod.DELETE, "/" + target, null);
+                if (!r.ok()) System.err.println("[Reindex] could not delete " + target + ": HTTP " + r.status());
+            }
+            state = step.equals("verify") ? "rolled_back" : "failed";
+            System.err.println("[Reindex] " + state + " at step " + step + " -> " + error);
+        }
+
+        private void replayDeletes() throws InterruptedException {
+            List<Long> ids = indices.mirroredDeletes();
+            if (ids.isEmpty()) return;
+            call(HttpMethod.POST, "/" + target + "/_refresh", null);   // refresh is off; the query must see the copy
+            long deleted = 0;
+            for (int from = 0; from < ids.size(); from += REPLAY_CHUNK) {
+                StringBuilder values = new StringBuilder();
+                for (Long id : ids.subList(from, Math.min(ids.size(), from + REPLAY_CHUNK))) {
+                    if (values.length() > 0) values.append(',');
+                    values.append('"').append(id).append('"');
+                }
+                JsonNode task = call(HttpMethod.POST,
+                        "/" + target + "/_delete_by_query?conflicts=proceed&wait_for_completion=false", """
+                        { "query": { "ids": { "values": [%s] } } }
+                        """.formatted(values));
+                deleted += awaitTask("delete_by_query", task.path("task").asText())
+                        .path("response").path("deleted").asLong();
+            }
+            System.out.println("[Reindex] " + ids.size() + " delete(s) mirrored during the copy replayed, "
+                    + deleted + " copied-back document(s) removed");
+        }
+
+        /** Poll a task started with {@code wait_for_completion=false}; returns it once completed. */
+        private JsonNode awaitTask(String what, String taskId) throws InterruptedException {
+            while (true) {
+                Thread.sleep(pollMs);
+                JsonNode t = call(HttpMethod.GET, "/_tasks/" + taskId, null);
+                if (step.equals("copy")) targetCount = t.path("task").path("status").path("created").asLong();
+                if (!t.path("completed").asBoolean()) continue;
+
+                JsonNode failures = t.path("response").path("failures");
+                if (t.has("error") || failures.size() > 0) {
+                    throw new IllegalStateException(what + " task failed: "
+                            + (t.has("error") ? t.get("error") : failures.get(0)));
+                }
+                return t;
+            }
+        }
+
+        /** Wait for the new generation to go green, in waits short enough for the read timeout. */
+        private void awaitGreen() {
+            long deadline = System.currentTimeMillis() + GREEN_TIMEOUT_MS;
+            String path = "/_cluster/health/" + target + "?wait_for_status=green&timeout=" + GREEN_WAIT;
+            while (true) {
+                EsClient.Response r = es.request(HttpMethod.GET, path, null);
+                // a wait that runs out answers 408 with timed_out=true; anything else is an error
+                if (r.ok() && !r.json().path("timed_out").asBoolean(false)) return;
+                if (r.status() != 408 && !r.ok()) {
+                    throw new IllegalStateException("GET " + path + " -> HTTP " + r.status() + " " + r.json());
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IllegalStateException(target + " not green after " + GREEN_TIMEOUT_MS / 60_000
+                            + " min (status " + r.json().path("status").asText() + ")");
+                }
+            }
+        }
+
+        private long count(String index) {
+            call(HttpMethod.POST, "/" + index + "/_refresh", null);
+            return call(HttpMethod.GET, "/" + index + "/_count", null).path("count").asLong();
+        }
+
+        private JsonNode call(HttpMethod method, String path, String body) {
+            EsClient.Response r = es.request(method, path, body);
+            if (!r.ok() || r.json().path("timed_out").asBoolean(false)) {
+                throw new IllegalStateException(method + " " + path + " -> HTTP " + r.status() + " " + r.json());
+            }
+            return r.json();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ie.ul.cs4297.indexer.web;
+
+import ie.ul.cs4297.indexer.model.DispatcherStatus;
+import ie.ul.cs4297.indexer.svc.BulkDispatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk pipeline depth.
+ *
+ *   curl "http://localhost:8080/admin/bulk"
+ */
+@RestController
+public class BulkController {
+
+    private final BulkDispatcher dispatcher;
+
+    public BulkController(BulkDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @GetMapping("/admin/bulk")
+    public DispatcherStatus status() {
+        return dispatcher.status();
+    }
+}
@@ -0,0 +1,36 @@
+package ie.ul.cs4297.indexer.web;
+
+import ie.ul.cs4297.indexer.model.ReindexStatus;
+import ie.ul.cs4297.indexer.svc.ReindexService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Blue/green index rebuild trigger.
+ *
+ *   curl -X POST "http://localhost:8080/admin/reindex?shards=3"
+ *   curl "http://localhost:8080/admin/reindex"
+ */
+@RestController
+@RequestMapping("/admin/reindex")
+public class ReindexController {
+
+    private final ReindexService reindex;
+
+    public ReindexController(ReindexService reindex) {
+        this.reindex = reindex;
+    }
+
+    @PostMapping
+    public ReindexStatus start(@RequestParam(value = "shards", defaultValue = "${app.index.shards:1}") int shards) {
+        return reindex.start(shards);
+    }
+
+    @GetMapping
+    public ReindexStatus status() {
+        return reindex.status();
+    }
+}
@@ -0,0 +1,55 @@
+package ie.ul.cs4297.indexer.svc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveBatchSizeTest {
+
+    @Test
+    void startsWithinBounds() {
+        assertEquals(200, new AdaptiveBatchSize(50, 200, 500, 1000).current());
+        assertEquals(50, new AdaptiveBatchSize(50, 200, 10, 1000).current());
+    }
+
+    @Test
+    void growsOnlyOnFullFastRequests() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(50, 5000, 500, 1000);
+        size.record(false, 100, false);   // the flush ran out first: no evidence for a larger size
+        assertEquals(500, size.current());
+
+        size.record(true, 100, false);
+        assertEquals(525, size.current());
+    }
+
+    @Test
+    void growthStopsAtMax() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(50, 200, 180, 1000);
+        for (int i = 0; i < 10; i++) size.record(true, 100, false);
+        assertEquals(200, size.current());
+    }
+
+    @Test
+    void throttlingHalvesAndSlownessShrinksByAQuarter() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(50, 5000, 800, 1000);
+        size.record(true, 100, true);
+        assertEquals(400, size.current());
+
+        size.record(false, 1500, false);
+        assertEquals(300, size.current());
+
+        for (int i = 0; i < 10; i++) size.record(true, 100, true);
+        assertEquals(50, size.current());
+    }
+
+    @Test
+    void recoversAfterBackingOff() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(50, 200, 200, 1000);
+        size.record(true, 100, true);
+        assertEquals(100, size.current());
+
+        // requests are now cut at 100 out of 200-event flushes, so they count as full
+        for (int i = 0; i < 4; i++) size.record(true, 100, false);
+        assertEquals(200, size.current());
+    }
+}
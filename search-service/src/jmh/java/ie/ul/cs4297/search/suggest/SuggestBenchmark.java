@@ -0,0 +1,84 @@
+package ie.ul.cs4297.search.suggest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead lookup latency over a synthetic corpus of book-like titles and tags.
+ *
+ * Sample-time mode reports p50/p99/p99.9 per lookup; the target is p99 under 1 ms at one
+ * million titles. Trie size and packed footprint are printed once per trial so memory per
+ * million titles can be read next to the timings. Run with {@code ./gradlew :search-service:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SuggestBenchmark {
+
+    @Param({"100000", "1000000"})
+    int titles;
+
+    private SuggestTrie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        String[] words = new String[20_000];
+        for (int i = 0; i < words.length; i++) words[i] = word(r);
+        String[] tags = new String[50];
+        for (int i = 0; i < tags.length; i++) tags[i] = Character.toUpperCase(words[i].charAt(0)) + words[i].substring(1);
+
+        List<SuggestTrie.Suggestion> all = new ArrayList<>(titles * 3);
+        List<String> sample = new ArrayList<>();
+        for (int i = 0; i < titles; i++) {
+            // Zipf-ish word choice so short prefixes have many completions, like real titles
+            StringBuilder t = new StringBuilder();
+            int n = 1 + r.nextInt(6);
+            for (int j = 0; j < n; j++) {
+                if (j > 0) t.append(' ');
+                String w = words[(int) (words.length * Math.pow(r.nextDouble(), 3))];
+                t.append(j == 0 ? Character.toUpperCase(w.charAt(0)) + w.substring(1) : w);
+            }
+            String title = t.toString();
+            all.add(new SuggestTrie.Suggestion(title, "title", 1));
+            all.add(new SuggestTrie.Suggestion(tags[r.nextInt(tags.length)], "tag", 1));
+            all.add(new SuggestTrie.Suggestion(r.nextBoolean() ? "One" : "Five", "tag", 1));
+            if (i % 100 == 0) sample.add(title);
+        }
+
+        long start = System.nanoTime();
+        trie = SuggestTrie.build(all, 10);
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+
+        // typed prefixes of 1..12 characters from titles that exist, plus some misses
+        prefixes = new String[4096];
+        for (int i = 0; i < prefixes.length; i++) {
+            String s = sample.get(r.nextInt(sample.size()));
+            prefixes[i] = i % 16 == 0 ? "zzq" + i : s.substring(0, Math.min(s.length(), 1 + r.nextInt(12)));
+        }
+        System.out.printf("%n[suggest] titles=%d keys=%d nodes=%d packed=%.1f MB (%.1f MB per million titles) build=%d ms%n",
+                titles, trie.size(), trie.nodeCount(), trie.estimatedBytes() / 1e6,
+                trie.estimatedBytes() / 1e6 * 1_000_000 / titles, buildMs);
+    }
+
+    @Benchmark
+    public List<SuggestTrie.Suggestion> lookup() {
+        return trie.lookup(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+
+    private static String word(Random r) {
+        int len = 2 + r.nextInt(9);
+        char[] c = new char[len];
+        for (int i = 0; i < len; i++) c[i] = (char) ('a' + r.nextInt(26));
+        return new String(c);
+    }
+}
@@ -0,0 +1,12 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** One entry of a {@code POST /api/search/batch} body; the fields mirror the /api/search parameters. */
+public record BatchQuery(
+        String q,
+        Integer from,
+        Integer size,
+        String cursor,
+        @JsonProperty("include_content") Boolean includeContent
+) {}
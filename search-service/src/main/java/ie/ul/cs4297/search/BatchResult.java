@@ -0,0 +1,15 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Outcome of one query in a batch: a page, or the HTTP status and message of its error. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult(
+        int status,
+        SearchPage result,
+        String error
+) {
+    public static BatchResult ok(SearchPage page) { return new BatchResult(200, page, null); }
+
+    public static BatchResult failed(int status, String error) { return new BatchResult(status, null, error); }
+}
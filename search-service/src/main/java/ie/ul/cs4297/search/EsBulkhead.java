@@ -0,0 +1,64 @@
+package ie.ul.cs4297.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent Elasticsearch calls from this instance.
+ *
+ * A call waits at most {@code max-wait} for a permit and is rejected with {@link FullException}
+ * after that, so a slow cluster costs callers a bounded wait instead of an ever-growing queue.
+ * Together with the client's read timeout this gives every search call a deadline of
+ * {@code max-wait + app.es-timeout}.
+ */
+@Component
+public class EsBulkhead {
+
+    /** No permit became free within the wait budget. */
+    public static class FullException extends RuntimeException {
+        FullException() { super("elasticsearch bulkhead is full", null, false, false); }
+    }
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    public EsBulkhead(@Value("${app.es-bulkhead.max-concurrent:32}") int maxConcurrent,
+                      @Value("${app.es-bulkhead.max-wait:100ms}") Duration maxWait) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    public <T> T call(Supplier<T> call) {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new FullException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FullException();
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "maxConcurrent", maxConcurrent,
+                "inFlight", maxConcurrent - permits.availablePermits(),
+                "rejected", rejected.sum());
+    }
+}
@@ -0,0 +1,99 @@
+package ie.ul.cs4297.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around Elasticsearch search calls.
+ *
+ * After {@code failure-threshold} consecutive failures (connection errors, timeouts, 5xx) the
+ * circuit opens and calls fail at once with {@link OpenException} for {@code open-for}. Then a
+ * single trial call is let through (half-open): success closes the circuit, failure opens it
+ * again. 4xx responses mean Elasticsearch is up and rejected the request, so they pass through
+ * without counting.
+ */
+@Component
+public class EsCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Thrown instead of calling Elasticsearch while the circuit is open. */
+    public static class OpenException extends RuntimeException {
+        OpenException() { super("elasticsearch circuit is open", null, false, false); }
+    }
+
+    private final int failureThreshold;
+    private final long openForMs;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public EsCircuitBreaker(@Value("${app.es-breaker.failure-threshold:5}") int failureThreshold,
+                            @Value("${app.es-breaker.open-for:10s}") Duration openFor) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openForMs = openFor.toMillis();
+    }
+
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (HttpClientErrorException e) {
+            onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            onFailure(e);
+            throw e;
+        }
+    }
+
+    /** True while calls are being rejected; a due half-open trial counts as not open. */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openForMs;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        return Map.of("state", state.name(), "consecutiveFailures", failures);
+    }
+
+    private synchronized void acquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openForMs) throw new OpenException();
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) throw new OpenException();
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) System.out.println("[Search] elasticsearch circuit closed");
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure(RuntimeException e) {
+        failures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("[Search] elasticsearch circuit opened after " + failures
+                        + " failure(s): " + e.getMessage());
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -1,35 +1,115 @@
 package ie.ul.cs4297.search;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class EsClient {
     private final RestClient http;
     private final String index;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String SOURCE_FIELDS = "\"id\",\"title\",\"tags\",\"source_url\"";
+    private static final String SOURCE_WITH_CONTENT = SOURCE_FIELDS + ",\"content\"";
+
+    // everything else in the search response (_shards, _index, _score, took ...) is dropped by ES
+    private static final String RESPONSE_FIELDS =
+            "hits.total.value,hits.hits._source,hits.hits.highlight,hits.hits.sort";
+    private static final String MSEARCH_FIELDS =
+            "responses.hits.total.value,responses.hits.hits._source,responses.hits.hits.highlight,"
+            + "responses.hits.hits.sort,responses.error.type,responses.error.reason,responses.status";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public EsClient(@Value("${app.es-host}") String esHost,
+    public EsClient(EsTransport transport,
+                    @Value("${app.es-host}") String esHost,
                     @Value("${app.es-index}") String index) {
-        this.http = RestClient.builder().baseUrl(esHost).build();
+        // pooled keep-alive connections with bounded connect/read timeouts, gzip responses
+        this.http = RestClient.builder()
+                .baseUrl(esHost)
+                .requestFactory(transport.requestFactory())
+                .requestInterceptor(transport.compression())
+                .build();
         this.index = index;
     }
 
-    public String searchJson(String q, int from, int size) {
-        // Simple match on title + content, optional tag: filter
-        String tags = null;
-        String query = (q == null) ? "" : q.trim();
-        if (query.startsWith("tag:")) {
-            int sp = query.indexOf(' ');
-            tags = (sp < 0) ? query.substring(4) : query.substring(4, sp);
-            query = (sp < 0) ? "" : query.substring(sp + 1).trim();
+    /**
+     * Relevance search, one page at a time. With a {@code cursor} (from the previous page) the
+     * page is fetched with {@code search_after} and {@code from} is ignored, so deep pages cost
+     * the same as the first. {@code content} is only loaded when {@code includeContent} is set.
+     */
+    public SearchPage search(SearchQuery q, int from, int size, String cursor, boolean includeContent) {
+        JsonNode resp = http.post()
+                .uri("/" + index + "/_search?filter_path=" + RESPONSE_FIELDS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(searchBody(q, from, size, cursor, includeContent))
+                .retrieve()
+                .body(JsonNode.class);
+        return toPage(resp, size);
+    }
+
+    /**
+     * Several searches in one {@code _msearch} round-trip; Elasticsearch runs them in parallel.
+     * Results come back in request order, each either a page or that query's own error. A query
+     * whose body cannot be built gets a 400 in its own slot and is left out of the request.
+     */
+    public List<BatchResult> msearch(List<SearchSpec> specs) {
+        BatchResult[] out = new BatchResult[specs.size()];
+        List<Integer> sent = new ArrayList<>(specs.size());
+        StringBuilder ndjson = new StringBuilder();
+        String header = "{\"index\":" + jsonStr(index) + "}\n";
+        for (int i = 0; i < specs.size(); i++) {
+            SearchSpec sp = specs.get(i);
+            String line;
+            try {
+                // NDJSON: one line per body
+                line = compact(searchBody(sp.query(), sp.from(), sp.size(), sp.cursor(), sp.includeContent()));
+            } catch (RuntimeException e) {
+                out[i] = BatchResult.failed(400, "invalid query: " + e.getMessage());
+                continue;
+            }
+            ndjson.append(header).append(line).append('\n');
+            sent.add(i);
         }
+        if (sent.isEmpty()) return List.of(out);
 
-        String body = """
+        JsonNode resp = http.post()
+                .uri("/_msearch?filter_path=" + MSEARCH_FIELDS)
+                .contentType(NDJSON)
+                .body(ndjson.toString())
+                .retrieve()
+                .body(JsonNode.class);
+
+        JsonNode responses = resp.path("responses");
+        for (int j = 0; j < sent.size(); j++) {
+            int i = sent.get(j);
+            JsonNode r = responses.path(j);
+            if (r.has("error")) {
+                JsonNode err = r.path("error");
+                String reason = err.path("reason").asText(err.path("type").asText("search failed"));
+                out[i] = BatchResult.failed(r.path("status").asInt(500), reason);
+            } else {
+                out[i] = BatchResult.ok(toPage(r, specs.get(i).size()));
+            }
+        }
+        return List.of(out);
+    }
+
+    private static String searchBody(SearchQuery q, int from, int size, String cursor, boolean includeContent) {
+        // Simple match on title + content, optional tag: filter
+        return """
         {
           "from": %d, "size": %d,
-          "_source": ["id","title","content","tags","source_url"],
+          "_source": [%s],
           "query": {
             "bool": {
               "must": [
@@ -43,6 +123,8 @@ public class EsClient {
               ]
             }
           },
+          "sort": [ { "_score": "desc" }, { "id": "asc" } ],
+          %s
           "highlight": {
             "fields": {
               "title": {}, "content": {}
@@ -51,41 +133,118 @@ public class EsClient {
           }
         }
         """.formatted(
-                Math.max(0, from),
+                cursor == null ? Math.max(0, from) : 0,
                 Math.max(1, size),
-                jsonStr((query == null || query.isBlank()) ? "*" : query),
-                (tags == null ? "" : """
+                includeContent ? SOURCE_WITH_CONTENT : SOURCE_FIELDS,
+                jsonStr(q.hasText() ? q.text() : "*"),
+                (q.tags().isEmpty() ? "" : """
                   { "terms": { "tags": [ %s ] } }
-                """.formatted(csv(jsonArraySplit(tags))))
+                """.formatted(csv(q.tags()))),
+                (cursor == null ? "" : "\"search_after\": " + SearchCursor.decode(cursor) + ",")
         );
+    }
 
-        return http.post()
-                .uri("/" + index + "/_search")
+    private String compact(String json) {
+        try {
+            return mapper.readTree(json).toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("invalid search body", e);
+        }
+    }
+
+    private static SearchPage toPage(JsonNode resp, int size) {
+        JsonNode hits = resp.path("hits").path("hits");
+        List<SearchHit> out = new ArrayList<>(hits.size());
+        for (JsonNode h : hits) {
+            JsonNode src = h.path("_source");
+            JsonNode hl = h.path("highlight");
+            String snippet = hl.path("content").path(0).asText(null);
+            if (snippet == null) snippet = hl.path("title").path(0).asText(null);
+            out.add(new SearchHit(
+                    src.path("id").asLong(),
+                    src.path("title").asText(null),
+                    snippet,
+                    src.path("tags").asText(null),
+                    src.path("source_url").asText(null),
+                    src.path("content").asText(null)));
+        }
+        // a short page is the last one
+        String cursor = hits.size() < size ? null : SearchCursor.encode(hits.path(hits.size() - 1).path("sort"));
+        return new SearchPage(resp.path("hits").path("total").path("value").asLong(), out, cursor);
+    }
+
+    /** Documents per distinct {@code tags} value, plus the index's document count. */
+    public record TagBuckets(long total, Map<String, Long> buckets) {}
+
+    /**
+     * One {@code terms} aggregation over {@code tags}. The field is a keyword holding the joined
+     * tag string ("Poetry;Three"), so each bucket is a tag combination, not a single tag.
+     */
+    public TagBuckets tagBuckets(int maxBuckets) {
+        String body = """
+        {
+          "size": 0,
+          "track_total_hits": true,
+          "aggs": { "tags": { "terms": { "field": "tags", "size": %d } } }
+        }
+        """.formatted(maxBuckets);
+        JsonNode resp = http.post()
+                .uri("/" + index + "/_search?filter_path=hits.total.value,aggregations.tags.buckets")
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(body)
                 .retrieve()
-                .body(String.class);
+                .body(JsonNode.class);
+        Map<String, Long> buckets = new HashMap<>();
+        for (JsonNode b : resp.path("aggregations").path("tags").path("buckets")) {
+            buckets.put(b.path("key").asText(), b.path("doc_count").asLong());
+        }
+        return new TagBuckets(resp.path("hits").path("total").path("value").asLong(), buckets);
+    }
+
+    /**
+     * Current index generation: the {@code _version} of the token document the indexer bumps
+     * after its writes become searchable. 0 if it has never been written.
+     */
+    public long generation(String metaIndex) {
+        JsonNode doc = http.get()
+                .uri("/" + metaIndex + "/_doc/generation")
+                .exchange((req, res) -> {
+                    if (res.getStatusCode().value() == 404) return null;
+                    if (!res.getStatusCode().is2xxSuccessful()) {
+                        throw new IllegalStateException("generation lookup: HTTP " + res.getStatusCode().value());
+                    }
+                    return mapper.readTree(res.getBody());
+                });
+        return doc == null ? 0L : doc.path("_version").asLong();
     }
 
     // helpers
-    private static String jsonStr(String s) {
+    static String jsonStr(String s) {
         if (s == null) return "null";
-        return "\"" + s.replace("\\","\\\\").replace("\"","\\\"") + "\"";
-    }
-    private static String[] jsonArraySplit(String s) {
-        return s.split("[,;]\\s*");
+        StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> b.append("\\\"");
+                case '\\' -> b.append("\\\\");
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                default -> {
+                    // other control characters are not allowed raw in a JSON string
+                    if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+                    else b.append(c);
+                }
+            }
+        }
+        return b.append('"').toString();
     }
-    private static String csv(String[] a) {
+    private static String csv(List<String> a) {
         StringBuilder b = new StringBuilder();
-        for (int i = 0; i < a.length; i++) {
-            if (a[i].isBlank()) continue;
+        for (String t : a) {
             if (b.length() > 0) b.append(",");
-            b.append(jsonStr(a[i].trim()));
+            b.append(jsonStr(t));
         }
         return b.toString();
     }
-
-    // expose RestClient + index for analytics endpoint
-    public RestClient http() { return this.http; }
-    public String indexName() { return this.index; }
 }
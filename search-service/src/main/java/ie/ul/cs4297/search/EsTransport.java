@@ -0,0 +1,148 @@
+package ie.ul.cs4297.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The HTTP connection to Elasticsearch that {@link EsClient} sends through.
+ *
+ * By default a pooled Apache HttpClient 5 with HTTP/1.1 keep-alive: up to {@code max-connections}
+ * sockets stay open between calls, so a search pays no TCP setup, and a call waits at most
+ * {@code pool-timeout} for a free one. Idle sockets are closed after {@code idle-timeout} and
+ * checked before reuse once they have been idle for a second. Responses are requested with
+ * {@code Accept-Encoding: gzip} and decompressed transparently; highlighted pages shrink several-fold.
+ * Pool use is exported as {@code httpcomponents.httpclient.pool.*{httpclient="elasticsearch"}}.
+ *
+ * With {@code app.es-http.version: HTTP_2} the JDK client is used instead; it negotiates HTTP/2
+ * when something in front of the cluster speaks it (Elasticsearch itself answers HTTP/1.1) and
+ * manages its own pool, so there are no pool metrics in that mode.
+ */
+@Component
+public class EsTransport implements DisposableBean {
+
+    private final ClientHttpRequestFactory factory;
+    private final CloseableHttpClient pooled;
+
+    public EsTransport(MeterRegistry registry,
+                       @Value("${app.es-http.version:HTTP_1_1}") HttpClient.Version version,
+                       @Value("${app.es-http.max-connections:64}") int maxConnections,
+                       @Value("${app.es-http.connect-timeout:1s}") Duration connectTimeout,
+                       @Value("${app.es-timeout:2s}") Duration readTimeout,
+                       @Value("${app.es-http.pool-timeout:100ms}") Duration poolTimeout,
+                       @Value("${app.es-http.idle-timeout:60s}") Duration idleTimeout) {
+        if (version == HttpClient.Version.HTTP_2) {
+            JdkClientHttpRequestFactory jdk = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build());
+            jdk.setReadTimeout(readTimeout);
+            this.factory = jdk;
+            this.pooled = null;
+            System.out.println("[Search] elasticsearch transport: JDK HTTP/2");
+            return;
+        }
+
+        int max = Math.max(1, maxConnections);
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(max)
+                .setMaxConnPerRoute(max)   // one route: the cluster's address
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setTcpNoDelay(true)
+                        .setSoKeepAlive(true)
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+                        .build())
+                .build();
+        this.pooled = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .evictExpiredConnections()
+                .build();   // content compression is on: Accept-Encoding: gzip, deflate + transparent decoding
+        this.factory = new HttpComponentsClientHttpRequestFactory(pooled);
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, "elasticsearch").bindTo(registry);
+        System.out.println("[Search] elasticsearch transport: pooled HTTP/1.1, max " + max + " connections");
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return factory;
+    }
+
+    /**
+     * Asks for gzip responses where the client does not already (the JDK client neither sends
+     * {@code Accept-Encoding} nor decodes), and unwraps them.
+     */
+    public ClientHttpRequestInterceptor compression() {
+        return (req, body, exec) -> {
+            if (pooled != null) return exec.execute(req, body);
+            req.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            ClientHttpResponse res = exec.execute(req, body);
+            return "gzip".equalsIgnoreCase(res.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                    ? new GunzippedResponse(res) : res;
+        };
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (pooled != null) pooled.close();
+    }
+
+    private static final class GunzippedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse res;
+        private InputStream body;
+
+        GunzippedResponse(ClientHttpResponse res) { this.res = res; }
+
+        @Override public HttpStatusCode getStatusCode() throws IOException { return res.getStatusCode(); }
+        @Override public String getStatusText() throws IOException { return res.getStatusText(); }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders h = new HttpHeaders();
+            h.putAll(res.getHeaders());
+            h.remove(HttpHeaders.CONTENT_ENCODING);
+            h.remove(HttpHeaders.CONTENT_LENGTH);
+            return h;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = new GZIPInputStream(res.getBody());
+            return body;
+        }
+
+        @Override
+        public void close() { res.close(); }
+    }
+}
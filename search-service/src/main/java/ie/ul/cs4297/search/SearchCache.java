@@ -0,0 +1,162 @@
+package ie.ul.cs4297.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ie.ul.cs4297.search.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of search responses, keyed by the normalised query and the index generation.
+ *
+ * Caffeine bounds the cache by entry count with W-TinyLFU eviction, so the small set of hot
+ * queries stays resident while one-off queries pass through. Entries belong to the index
+ * generation they were computed against: a background poll reads the generation token the
+ * indexer bumps once its writes are searchable, and a new generation drops every entry. The TTL
+ * is only a backstop for when that poll cannot reach Elasticsearch.
+ *
+ * Concurrent misses for the same key are coalesced into one Elasticsearch call, so a burst of
+ * identical queries costs the cluster one round-trip.
+ *
+ * Hit, miss and eviction counts and the request latency for hits and misses are published to
+ * Micrometer ({@code cache.*{cache=search-results}} and {@code search.requests}).
+ */
+@Component
+public class SearchCache {
+
+    /** Everything that decides the response body. */
+    record Key(long generation, String text, List<String> tags, int from, int size,
+               String cursor, boolean includeContent) {}
+
+    private final EsClient es;
+    private final String metaIndex;
+    private final Cache<Key, SearchPage> cache;
+    private final SingleFlight<Key, SearchPage> flights = new SingleFlight<>();
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "index-generation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long generation;
+
+    public SearchCache(EsClient es, MeterRegistry registry,
+                       @Value("${app.cache.max-entries:10000}") long maxEntries,
+                       @Value("${app.cache.ttl:10m}") Duration ttl,
+                       @Value("${app.cache.generation-poll:500ms}") Duration poll,
+                       @Value("${app.es-meta-index:${app.es-index}-meta}") String metaIndex) {
+        this.es = es;
+        this.metaIndex = metaIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "search-results");
+        this.hitTimer = latencyTimer(registry, "hit");
+        this.missTimer = latencyTimer(registry, "miss");
+
+        long ms = Math.max(50, poll.toMillis());
+        poller.scheduleWithFixedDelay(this::pollGeneration, 0, ms, TimeUnit.MILLISECONDS);
+    }
+
+    /** Cached page for {@code q}, computing it with {@code search} on a miss. */
+    public SearchPage get(SearchQuery q, int from, int size, String cursor, boolean includeContent,
+                          Supplier<SearchPage> search) {
+        Key key = new Key(generation, q.text(), q.tags(), from, size, cursor, includeContent);
+        long start = System.nanoTime();
+        SearchPage body = cache.getIfPresent(key);
+        if (body != null) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return body;
+        }
+        // misses for the same key share one Elasticsearch call; the load runs outside Caffeine's
+        // compute so no map lock is held (or virtual thread pinned) while it blocks
+        body = flights.run(key, () -> {
+            SearchPage page = search.get();
+            cache.put(key, page);
+            return page;
+        });
+        missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return body;
+    }
+
+    /** Cached page for {@code spec}, or null; counts as a hit or a miss. */
+    public SearchPage peek(SearchSpec spec) {
+        return cache.getIfPresent(key(spec));
+    }
+
+    /** Store a page computed outside {@link #get}, e.g. by a batch request. */
+    public void put(SearchSpec spec, SearchPage page) {
+        cache.put(key(spec), page);
+    }
+
+    private Key key(SearchSpec s) {
+        return new Key(generation, s.query().text(), s.query().tags(), s.from(), s.size(), s.cursor(), s.includeContent());
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("generation", generation);
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        m.put("coalesced", flights.sharedCount());
+        m.put("hitP99Ms", p99Ms(hitTimer));
+        m.put("missP99Ms", p99Ms(missTimer));
+        return m;
+    }
+
+    private void pollGeneration() {
+        try {
+            long g = es.generation(metaIndex);
+            if (g != generation) {
+                generation = g;
+                cache.invalidateAll();   // old-generation keys can never be hit again
+            }
+        } catch (Exception e) {
+            // keep serving the current generation; the TTL bounds staleness
+            System.err.println("[Search] generation poll failed: " + e.getMessage());
+        }
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("search.requests")
+                .description("search latency by cache outcome")
+                .tag("cache", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static double p99Ms(Timer t) {
+        for (ValueAtPercentile v : t.takeSnapshot().percentileValues()) {
+            if (v.percentile() == 0.99) return v.value(TimeUnit.MILLISECONDS);
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
@@ -1,11 +1,19 @@
 package ie.ul.cs4297.search;
 
+import ie.ul.cs4297.search.facet.FacetService;
+import ie.ul.cs4297.search.facet.Facets;
+import ie.ul.cs4297.search.local.LocalSearchService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -14,61 +22,210 @@ import java.util.Map;
 public class SearchController {
 
     private final EsClient es;
+    private final SearchCache cache;
+    private final EsCircuitBreaker breaker;
+    private final EsBulkhead bulkhead;
+    private final LocalSearchService local;
+    private final FacetService facets;
     private final int defaultSize;
+    private final int maxFrom;
+    private final int maxBatch;
 
     @Autowired
     private JdbcTemplate jdbc;
 
-    public SearchController(EsClient es, @Value("${app.default-size:10}") int defaultSize) {
+    public SearchController(EsClient es, SearchCache cache, EsCircuitBreaker breaker, EsBulkhead bulkhead,
+                            LocalSearchService local, FacetService facets,
+                            @Value("${app.default-size:10}") int defaultSize,
+                            @Value("${app.max-from:1000}") int maxFrom,
+                            @Value("${app.max-batch:20}") int maxBatch) {
         this.es = es;
+        this.cache = cache;
+        this.breaker = breaker;
+        this.bulkhead = bulkhead;
+        this.local = local;
+        this.facets = facets;
         this.defaultSize = defaultSize;
+        this.maxFrom = maxFrom;
+        this.maxBatch = maxBatch;
     }
 
     // --- ElasticSearch relevance search (existing) ---
+    // Page with ?cursor=<cursor from the previous page>; from is only for shallow jumps.
+    // While the Elasticsearch circuit is open the embedded index answers (X-Search-Backend: local).
     @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String search(
+    public SearchPage search(
             @RequestParam(value = "q", required = false) String q,
             @RequestParam(value = "from", defaultValue = "0") int from,
-            @RequestParam(value = "size", required = false) Integer size
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "include_content", defaultValue = "false") boolean includeContent,
+            HttpServletResponse response
     ) {
-        int s = (size == null || size < 1 || size > 100) ? defaultSize : size;
-        return es.searchJson(q, from, s);
+        SearchSpec spec = spec(q, from, size, cursor, includeContent);
+        SearchQuery query = spec.query();
+        int start = spec.from(), s = spec.size();
+        try {
+            SearchPage page = cache.get(query, start, s, cursor, includeContent,
+                    () -> bulkhead.call(() -> breaker.call(() -> es.search(query, start, s, cursor, includeContent))));
+            response.setHeader("X-Search-Backend", "elasticsearch");
+            return page;
+        } catch (HttpClientErrorException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (!local.isReady()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "search backend unavailable", e);
+            }
+            logFailover(e);
+            response.setHeader("X-Search-Backend", "local");
+            return local.search(query, start, s, cursor, includeContent);
+        }
     }
 
     // Also expose the lab's expected path: /api/search
     @GetMapping(value = "/api/search", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String searchApi(
+    public SearchPage searchApi(
             @RequestParam(value = "q", required = false) String q,
             @RequestParam(value = "from", defaultValue = "0") int from,
-            @RequestParam(value = "size", required = false) Integer size
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "include_content", defaultValue = "false") boolean includeContent,
+            HttpServletResponse response
     ) {
-        return search(q, from, size);
+        return search(q, from, size, cursor, includeContent, response);
     }
 
-    // --- Phase 3b: Analytics - top tags (Terms aggregation) ---
-    @GetMapping(value = "/api/analytics/tags", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String topTags() {
-        String body = """
-        {
-          "size": 0,
-          "aggs": {
-            "top_tags": {
-              "terms": { "field": "tags", "size": 10 }
+    // --- Several searches per page view in one Elasticsearch _msearch round-trip ---
+    // Body: [{"q": "tag:Poetry light", "size": 5}, {"q": "...", "cursor": "..."}, ...]
+    // Results come back in request order; a failed query gets its own status and error.
+    @PostMapping(value = "/api/search/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchResult> batch(@RequestBody List<BatchQuery> queries) {
+        if (queries == null || queries.isEmpty()) return List.of();
+        if (queries.size() > maxBatch) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + maxBatch + " queries per batch");
+        }
+
+        BatchResult[] results = new BatchResult[queries.size()];
+        List<SearchSpec> pending = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            BatchQuery bq = queries.get(i);
+            try {
+                SearchSpec spec = spec(bq.q(), bq.from() == null ? 0 : bq.from(), bq.size(), bq.cursor(),
+                        Boolean.TRUE.equals(bq.includeContent()));
+                SearchPage cached = cache.peek(spec);
+                if (cached != null) {
+                    results[i] = BatchResult.ok(cached);
+                } else {
+                    pending.add(spec);
+                    slots.add(i);
+                }
+            } catch (ResponseStatusException e) {
+                results[i] = BatchResult.failed(e.getStatusCode().value(), e.getReason());
+            }
+        }
+        if (pending.isEmpty()) return List.of(results);
+
+        try {
+            List<BatchResult> fetched = bulkhead.call(() -> breaker.call(() -> es.msearch(pending)));
+            for (int j = 0; j < pending.size(); j++) {
+                BatchResult r = fetched.get(j);
+                if (r.result() != null) cache.put(pending.get(j), r.result());
+                results[slots.get(j)] = r;
+            }
+        } catch (HttpClientErrorException e) {
+            for (int slot : slots) results[slot] = BatchResult.failed(e.getStatusCode().value(), e.getStatusText());
+        } catch (RuntimeException e) {
+            if (local.isReady()) logFailover(e);
+            for (int j = 0; j < pending.size(); j++) {
+                SearchSpec sp = pending.get(j);
+                results[slots.get(j)] = local.isReady()
+                        ? BatchResult.ok(local.search(sp.query(), sp.from(), sp.size(), sp.cursor(), sp.includeContent()))
+                        : BatchResult.failed(HttpStatus.SERVICE_UNAVAILABLE.value(), "search backend unavailable");
+            }
+        }
+        return List.of(results);
+    }
+
+    // --- Backend health: circuit state, bulkhead occupancy and embedded index size ---
+    @GetMapping(value = "/api/search/backend", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> backend() {
+        return Map.of("elasticsearch", breaker.stats(), "bulkhead", bulkhead.stats(), "local", local.stats());
+    }
+
+    // --- Result cache: hit/miss/eviction counts and p99 latency per outcome ---
+    @GetMapping(value = "/api/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> cacheStats() {
+        return cache.stats();
+    }
+
+    /** Validated page request: size clamped, deep from rejected, cursor checked. */
+    private SearchSpec spec(String q, int from, Integer size, String cursor, boolean includeContent) {
+        int s = (size == null || size < 1 || size > 100) ? defaultSize : size;
+        int f = Math.max(0, from);
+        if (cursor == null && f + s > maxFrom) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "from is limited to " + maxFrom + "; page deeper with the cursor of the previous page");
+        }
+        if (cursor != null) {
+            f = 0;
+            try {
+                SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
             }
-          }
         }
-        """;
-
-        return es.http().post()
-                .uri("/" + es.indexName() + "/_search")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(body)
-                .retrieve()
-                .body(String.class);
+        return new SearchSpec(SearchQuery.parse(q), f, s, cursor, includeContent);
+    }
+
+    private static void logFailover(RuntimeException e) {
+        // an open circuit or full bulkhead is expected while degraded; only log real failures
+        if (!(e instanceof EsCircuitBreaker.OpenException || e instanceof EsBulkhead.FullException)) {
+            System.err.println("[Search] elasticsearch failed, answering from local index: " + e.getMessage());
+        }
+    }
+
+    // --- Phase 3b: Analytics - top tags, served from in-memory facet counts ---
+    // ?q=tag:Poetry restricts the counts to articles with that tag, like the search filter.
+    @GetMapping(value = "/api/analytics/tags", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Facets topTags(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        if (!facets.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "facet counts are still loading");
+        }
+        return facets.facets(SearchQuery.parse(q).tags(), Math.max(1, size));
     }
 
-    // --- Phase 4: Slow MySQL baseline (LIKE %...%) ---
+    // --- Phase 4: MySQL corpus baseline, ranked by the embedded BM25 index (no Elasticsearch) ---
     @GetMapping(value = "/api/search/db", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SearchPage dbSearch(
+            @RequestParam("q") String q,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor
+    ) {
+        if (!local.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "local index is still loading");
+        }
+        int s = (size == null || size < 1 || size > 100) ? defaultSize : size;
+        if (cursor != null) {
+            try {
+                SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+        }
+        long start = System.nanoTime();
+        SearchPage page = local.search(SearchQuery.parse(q), 0, s, cursor, false);
+        System.out.println("[Baseline] local BM25 search took " + (System.nanoTime() - start) / 1000 + " us, "
+                + page.total() + " matches");
+        return page;
+    }
+
+    // --- Original slow MySQL baseline (LIKE %...%), kept for comparison ---
+    @GetMapping(value = "/api/search/db/like", produces = MediaType.APPLICATION_JSON_VALUE)
     public List<Map<String, Object>> slowMySQLSearch(@RequestParam("q") String q) {
         long start = System.currentTimeMillis();
         List<Map<String, Object>> rows = jdbc.queryForList(
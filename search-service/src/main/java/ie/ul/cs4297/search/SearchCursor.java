@@ -0,0 +1,56 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque {@code search_after} cursor: the sort values of the last hit on a page
+ * ({@code [_score, id]}), JSON-encoded and base64url'd so clients treat it as a token.
+ * The embedded index pages with the same values, so either backend accepts the other's cursor.
+ */
+public final class SearchCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SearchCursor() {}
+
+    public static String encode(float score, long id) {
+        return encode(MAPPER.createArrayNode().add(score).add(id));
+    }
+
+    static String encode(JsonNode sortValues) {
+        if (sortValues == null || !sortValues.isArray() || sortValues.isEmpty()) return null;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sortValues.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The cursor's {@code [score, id]} pair; IllegalArgumentException if the token is not ours. */
+    public static float score(String cursor) {
+        return (float) values(cursor).path(0).asDouble();
+    }
+
+    public static long id(String cursor) {
+        return values(cursor).path(1).asLong();
+    }
+
+    /** The JSON array to send as {@code search_after}; IllegalArgumentException if the token is not ours. */
+    static String decode(String cursor) {
+        return values(cursor).toString();
+    }
+
+    private static JsonNode values(String cursor) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            JsonNode values = MAPPER.readTree(json);
+            if (!values.isArray() || values.size() != 2) throw new IllegalArgumentException("bad cursor");
+            return values;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("bad cursor", e);
+        }
+    }
+}
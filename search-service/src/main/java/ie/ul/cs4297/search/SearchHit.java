@@ -0,0 +1,14 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** One search result; {@code content} is only present when the caller asked for it. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SearchHit(
+        long id,
+        String title,
+        String highlight,   // best fragment: content match, else title match
+        String tags,
+        String url,
+        String content
+) {}
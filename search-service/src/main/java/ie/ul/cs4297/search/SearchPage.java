@@ -0,0 +1,10 @@
+package ie.ul.cs4297.search;
+
+import java.util.List;
+
+/** A page of results; pass {@code cursor} back to get the next page, null on the last one. */
+public record SearchPage(
+        long total,
+        List<SearchHit> hits,
+        String cursor
+) {}
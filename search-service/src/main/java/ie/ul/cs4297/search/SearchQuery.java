@@ -0,0 +1,37 @@
+package ie.ul.cs4297.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * A parsed {@code q} parameter: free text plus an optional leading {@code tag:a,b} filter.
+ *
+ * Parsing also normalises the query (whitespace collapsed, text lower-cased, tags trimmed,
+ * de-duplicated and sorted), so queries that Elasticsearch answers identically compare equal
+ * and can share a cache entry.
+ */
+public record SearchQuery(String text, List<String> tags) {
+
+    public static SearchQuery parse(String q) {
+        String tags = null;
+        String query = (q == null) ? "" : q.trim();
+        if (query.startsWith("tag:")) {
+            int sp = query.indexOf(' ');
+            tags = (sp < 0) ? query.substring(4) : query.substring(4, sp);
+            query = (sp < 0) ? "" : query.substring(sp + 1).trim();
+        }
+
+        // the analyzer lower-cases text fields anyway; tags are keywords, so their case is kept
+        String text = query.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        TreeSet<String> sorted = new TreeSet<>();
+        if (tags != null) {
+            for (String t : tags.split("[,;]\\s*")) {
+                if (!t.isBlank()) sorted.add(t.trim());
+            }
+        }
+        return new SearchQuery(text, List.copyOf(sorted));
+    }
+
+    public boolean hasText() { return !text.isBlank(); }
+}
@@ -0,0 +1,10 @@
+package ie.ul.cs4297.search;
+
+/** One page request against the search backends: query, offset or cursor, page size, body or not. */
+public record SearchSpec(
+        SearchQuery query,
+        int from,
+        int size,
+        String cursor,
+        boolean includeContent
+) {}
@@ -0,0 +1,4 @@
+package ie.ul.cs4297.search.facet;
+
+/** Number of articles carrying one tag. */
+public record FacetCount(String tag, int count) {}
@@ -0,0 +1,238 @@
+package ie.ul.cs4297.search.facet;
+
+import ie.ul.cs4297.search.EsCircuitBreaker;
+import ie.ul.cs4297.search.EsClient;
+import ie.ul.cs4297.search.feed.ArticleDoc;
+import ie.ul.cs4297.search.feed.ArticleSink;
+import ie.ul.cs4297.search.util.LongIntMap;
+import ie.ul.cs4297.search.util.ObjectIntMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tag facet counts kept in memory and maintained from the article feed.
+ *
+ * Articles carry few tags (a category and a star rating), so the number of distinct tag
+ * combinations is small even for millions of articles. Each article maps to the ordinal of its
+ * combination, and counts are kept per combination and per tag in primitive arrays. An update
+ * moves the article from its old combination to the new one, a delete removes it, so every
+ * count goes down as well as up.
+ *
+ * Counts under a {@code tag:} filter (any of the given tags, like the search filter) are summed
+ * over the combinations that match it, which is exact and costs one pass over the combinations.
+ *
+ * Optionally the counts are compared with a {@code terms} aggregation in Elasticsearch every
+ * {@code app.facets.reconcile-interval}; differences are logged, since neither side is the source
+ * of truth and a short lag behind the indexer is expected.
+ */
+@Service
+public class FacetService implements ArticleSink {
+
+    /** Facet values the crawler uses for the star rating; every other tag is a category. */
+    static final Set<String> RATINGS = Set.of("One", "Two", "Three", "Four", "Five");
+
+    private static final int NO_COMBO = -1;
+
+    private final EsClient es;
+    private final EsCircuitBreaker breaker;
+    private final ScheduledExecutorService reconciler;
+
+    // tag dictionary: ordinal -> name, article count
+    private final ObjectIntMap<String> tagOrd = new ObjectIntMap<>(64, -1);
+    private String[] tagName = new String[64];
+    private int[] tagCount = new int[64];
+    private int tags;
+
+    // distinct tag combinations: ordinal -> sorted tag ordinals, article count
+    private final ObjectIntMap<String> comboOrd = new ObjectIntMap<>(256, -1);
+    private int[][] comboTags = new int[256][];
+    private int[] comboCount = new int[256];
+    private int combos;
+
+    private final LongIntMap comboOf = new LongIntMap(1024, NO_COMBO);   // article id -> combination
+    private long total;
+    private volatile boolean ready;
+
+    public FacetService(EsClient es, EsCircuitBreaker breaker,
+                        @Value("${app.facets.reconcile-interval:0s}") Duration reconcileInterval) {
+        this.es = es;
+        this.breaker = breaker;
+        if (reconcileInterval.isZero() || reconcileInterval.isNegative()) {
+            this.reconciler = null;
+        } else {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "facet-reconcile");
+                t.setDaemon(true);
+                return t;
+            });
+            long ms = Math.max(1000, reconcileInterval.toMillis());
+            reconciler.scheduleWithFixedDelay(this::reconcile, ms, ms, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Top {@code size} categories and ratings among articles with any of {@code filter} (all if empty). */
+    public synchronized Facets facets(List<String> filter, int size) {
+        int[] counts;
+        long matched;
+        if (filter.isEmpty()) {
+            counts = tagCount;
+            matched = total;
+        } else {
+            int[] wanted = filter.stream().mapToInt(tagOrd::get).filter(o -> o >= 0).toArray();
+            counts = new int[tags];
+            matched = 0;
+            for (int c = 0; c < combos; c++) {
+                if (comboCount[c] == 0 || !containsAny(comboTags[c], wanted)) continue;
+                matched += comboCount[c];
+                for (int t : comboTags[c]) counts[t] += comboCount[c];
+            }
+        }
+
+        List<FacetCount> categories = new ArrayList<>();
+        List<FacetCount> ratings = new ArrayList<>();
+        for (int t = 0; t < tags; t++) {
+            if (counts[t] == 0) continue;
+            FacetCount fc = new FacetCount(tagName[t], counts[t]);
+            (RATINGS.contains(tagName[t]) ? ratings : categories).add(fc);
+        }
+        return new Facets(matched, top(categories, size), top(ratings, size));
+    }
+
+    @Override
+    public synchronized void upsert(ArticleDoc doc) {
+        int c = comboFor(doc.tagList());
+        int old = comboOf.put(doc.id(), c);
+        if (old == c) return;
+        if (old == NO_COMBO) total++;
+        else adjust(old, -1);
+        adjust(c, 1);
+    }
+
+    @Override
+    public synchronized void delete(long id) {
+        int old = comboOf.remove(id);
+        if (old == NO_COMBO) return;
+        adjust(old, -1);
+        total--;
+    }
+
+    @Override
+    public void snapshotLoaded() {
+        ready = true;
+    }
+
+    @Override
+    public String name() {
+        return "facets";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (reconciler != null) reconciler.shutdownNow();
+    }
+
+    // ---------- Helpers ----------
+
+    private void adjust(int combo, int delta) {
+        comboCount[combo] += delta;
+        for (int t : comboTags[combo]) tagCount[t] += delta;
+    }
+
+    /** Ordinal of the combination of {@code names}, registering new tags and combinations. */
+    private int comboFor(String[] names) {
+        TreeSet<String> sorted = new TreeSet<>(Arrays.asList(names));
+        String key = String.join("\u0000", sorted);
+        int c = comboOrd.get(key);
+        if (c >= 0) return c;
+
+        int[] ords = new int[sorted.size()];
+        int i = 0;
+        for (String name : sorted) ords[i++] = tagOrdinal(name);
+        c = combos++;
+        if (c == comboTags.length) {
+            comboTags = Arrays.copyOf(comboTags, c * 2);
+            comboCount = Arrays.copyOf(comboCount, c * 2);
+        }
+        comboTags[c] = ords;
+        comboOrd.put(key, c);
+        return c;
+    }
+
+    private int tagOrdinal(String name) {
+        int t = tagOrd.get(name);
+        if (t >= 0) return t;
+        t = tags++;
+        if (t == tagName.length) {
+            tagName = Arrays.copyOf(tagName, t * 2);
+            tagCount = Arrays.copyOf(tagCount, t * 2);
+        }
+        tagName[t] = name;
+        tagOrd.put(name, t);
+        return t;
+    }
+
+    private static boolean containsAny(int[] ords, int[] wanted) {
+        for (int o : ords) {
+            for (int w : wanted) if (o == w) return true;
+        }
+        return false;
+    }
+
+    private static List<FacetCount> top(List<FacetCount> counts, int size) {
+        counts.sort(Comparator.comparingInt(FacetCount::count).reversed().thenComparing(FacetCount::tag));
+        return counts.size() > size ? List.copyOf(counts.subList(0, size)) : counts;
+    }
+
+    /** Compare in-memory counts with Elasticsearch and log any drift. */
+    private void reconcile() {
+        if (!ready || breaker.isOpen()) return;
+        try {
+            EsClient.TagBuckets es = this.es.tagBuckets(10_000);
+            Map<String, Long> esCounts = new HashMap<>();
+            es.buckets().forEach((joined, n) -> {
+                for (String tag : new TreeSet<>(Arrays.asList(ArticleDoc.splitTags(joined)))) {
+                    esCounts.merge(tag, n, Long::sum);
+                }
+            });
+
+            List<String> drift = new ArrayList<>();
+            long mine;
+            synchronized (this) {
+                mine = total;
+                for (int t = 0; t < tags; t++) {
+                    long theirs = esCounts.getOrDefault(tagName[t], 0L);
+                    if (theirs != tagCount[t]) drift.add(tagName[t] + " mem=" + tagCount[t] + " es=" + theirs);
+                    esCounts.remove(tagName[t]);
+                }
+            }
+            esCounts.forEach((tag, n) -> drift.add(tag + " mem=0 es=" + n));
+
+            if (drift.isEmpty() && mine == es.total()) {
+                System.out.println("[Facets] reconciled " + tags + " tags with elasticsearch: no drift");
+            } else {
+                System.out.println("[Facets] drift against elasticsearch: articles mem=" + mine + " es=" + es.total()
+                        + ", " + drift.size() + " tag(s) differ " + drift.subList(0, Math.min(10, drift.size())));
+            }
+        } catch (Exception e) {
+            System.err.println("[Facets] reconcile failed: " + e.getMessage());
+        }
+    }
+}
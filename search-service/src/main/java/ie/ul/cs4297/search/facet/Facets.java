@@ -0,0 +1,10 @@
+package ie.ul.cs4297.search.facet;
+
+import java.util.List;
+
+/** Tag counts over the articles matching a filter, split into categories and star ratings. */
+public record Facets(
+        long total,
+        List<FacetCount> categories,
+        List<FacetCount> ratings
+) {}
@@ -0,0 +1,20 @@
+package ie.ul.cs4297.search.feed;
+
+/** An article as search-service keeps it in memory, from the MySQL snapshot or a Kafka event. */
+public record ArticleDoc(
+        long id,
+        String title,
+        String content,
+        String tags,
+        String sourceUrl
+) {
+    /** Individual tags; the crawler joins them with ';', queries may also use ','. */
+    public String[] tagList() {
+        return splitTags(tags);
+    }
+
+    public static String[] splitTags(String tags) {
+        if (tags == null || tags.isBlank()) return new String[0];
+        return tags.trim().split("\\s*[;,]\\s*");
+    }
+}
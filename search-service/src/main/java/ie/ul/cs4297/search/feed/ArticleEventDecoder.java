@@ -0,0 +1,73 @@
+package ie.ul.cs4297.search.feed;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Decodes article events with a streaming parser, in either encoding article-service
+ * publishes: Smile (recognised by its {@code :)\n} magic header) or JSON text. Flat and nested
+ * {@code "article"} payloads are accepted; unknown fields are skipped and blank strings become
+ * null. Same rules as the indexer's decoder.
+ */
+@Component
+public class ArticleEventDecoder {
+
+    private final JsonFactory json = new JsonFactory();
+    private final SmileFactory smile = new SmileFactory();
+
+    public ArticleDoc decode(byte[] value) throws IOException {
+        JsonFactory factory = isSmile(value) ? smile : json;
+        try (JsonParser p = factory.createParser(value)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("article event is not an object");
+            }
+            return readArticle(p);
+        }
+    }
+
+    static boolean isSmile(byte[] v) {
+        return v.length >= 3 && v[0] == ':' && v[1] == ')' && v[2] == '\n';
+    }
+
+    private ArticleDoc readArticle(JsonParser p) throws IOException {
+        long id = 0;
+        String title = null, content = null, tags = null, source = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "article" -> {
+                    if (t == JsonToken.START_OBJECT) return readArticle(p);
+                    p.skipChildren();
+                }
+                case "id" -> id = t.isNumeric() ? p.getLongValue() : parseLong(p.getValueAsString());
+                case "title" -> title = text(p, t);
+                case "content" -> content = text(p, t);
+                case "tags" -> tags = text(p, t);
+                case "source_url" -> source = text(p, t);
+                default -> p.skipChildren();
+            }
+        }
+        return new ArticleDoc(id, title, content, tags, source);
+    }
+
+    private static String text(JsonParser p, JsonToken t) throws IOException {
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        String s = p.getValueAsString();
+        return (s == null || s.isBlank()) ? null : s;
+    }
+
+    private static long parseLong(String s) {
+        try { return s == null ? 0 : Long.parseLong(s.trim()); }
+        catch (NumberFormatException e) { return 0; }
+    }
+}
@@ -0,0 +1,144 @@
+package ie.ul.cs4297.search.feed;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps every {@link ArticleSink} in sync with the articles table.
+ *
+ * Each search-service instance consumes the {@code articles} topic in its own consumer group
+ * from the latest offset. Once its partitions are assigned, and their positions fixed, it
+ * streams a snapshot of the table into the sinks on a background thread, so every change
+ * committed after the snapshot starts reaches the sinks as an event. Ids touched by an event during the snapshot are skipped
+ * when their snapshot row arrives, so the snapshot never rolls back a newer change.
+ *
+ * A failed snapshot (the database not up yet, a dropped connection) is retried with backoff;
+ * sinks are told {@link ArticleSink#snapshotLoaded()} only once a whole pass has succeeded.
+ */
+@Component
+public class ArticleFeed implements ConsumerSeekAware {
+
+    private static final String SNAPSHOT_SQL = "SELECT id,title,content,tags,source_url FROM articles";
+    private static final long RETRY_MIN_MS = 1000;
+    private static final long RETRY_MAX_MS = 30_000;
+    private static final int FETCH_SIZE = 1000;   // rows per round-trip for drivers that honour a plain hint
+
+    private final List<ArticleSink> sinks;
+    private final DataSource dataSource;
+    private final ArticleEventDecoder decoder;
+
+    private final Set<Long> touched = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading = true;
+    private final AtomicBoolean snapshotStarted = new AtomicBoolean();
+
+    public ArticleFeed(List<ArticleSink> sinks, DataSource dataSource, ArticleEventDecoder decoder) {
+        this.sinks = sinks;
+        this.dataSource = dataSource;
+        this.decoder = decoder;
+    }
+
+    @KafkaListener(id = "search-feed", topics = "${app.kafka-topic}", groupId = "${app.feed.group-id}",
+            properties = "auto.offset.reset=latest")
+    public void onEvent(ConsumerRecord<String, byte[]> record) {
+        try {
+            // A tombstone (null value) means the article was deleted
+            if (record.value() == null) {
+                delete(Long.parseLong(record.key()));
+            } else {
+                upsert(decoder.decode(record.value()), true);
+            }
+        } catch (Exception e) {
+            System.err.println("[Feed] Failed to apply record: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The container has looked up the position of every assigned partition before calling this,
+     * so nothing published from here on is skipped by {@code auto.offset.reset=latest}.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (snapshotStarted.compareAndSet(false, true)) startSnapshot();
+    }
+
+    private void startSnapshot() {
+        Thread t = new Thread(this::loadSnapshot, "feed-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void loadSnapshot() {
+        long start = System.currentTimeMillis();
+        long backoff = RETRY_MIN_MS;
+        long rows;
+        while (true) {
+            try {
+                rows = readSnapshot();
+                break;
+            } catch (Exception e) {
+                System.err.println("[Feed] snapshot failed, retrying in " + backoff + " ms: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(RETRY_MAX_MS, backoff * 2);
+        }
+        synchronized (this) {
+            loading = false;
+            touched.clear();
+        }
+        sinks.forEach(ArticleSink::snapshotLoaded);
+        System.out.println("[Feed] snapshot of " + rows + " articles loaded into "
+                + sinks.stream().map(ArticleSink::name).toList() + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /** One pass over the table; rows already upserted by a failed pass are simply upserted again. */
+    private long readSnapshot() throws Exception {
+        long rows = 0;
+        // plain JDBC: the shared JdbcTemplate caps max-rows for the baseline endpoint
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SNAPSHOT_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J buffers the whole table unless asked to stream with MIN_VALUE, which other drivers reject
+            boolean mysql = conn.getMetaData().getDriverName().startsWith("MySQL");
+            ps.setFetchSize(mysql ? Integer.MIN_VALUE : FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    upsert(new ArticleDoc(rs.getLong("id"), rs.getString("title"), rs.getString("content"),
+                            rs.getString("tags"), rs.getString("source_url")), false);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private synchronized void upsert(ArticleDoc doc, boolean fromEvent) {
+        if (loading) {
+            if (fromEvent) touched.add(doc.id());
+            else if (touched.contains(doc.id())) return;
+        }
+        for (ArticleSink s : sinks) s.upsert(doc);
+    }
+
+    private synchronized void delete(long id) {
+        if (loading) touched.add(id);
+        for (ArticleSink s : sinks) s.delete(id);
+    }
+}
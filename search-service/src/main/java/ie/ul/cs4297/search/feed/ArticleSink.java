@@ -0,0 +1,20 @@
+package ie.ul.cs4297.search.feed;
+
+/**
+ * An in-memory structure kept in sync with the articles table.
+ *
+ * Sinks are filled from a MySQL snapshot on startup and then updated from the {@code articles}
+ * Kafka topic. Events that arrive while the snapshot is still loading win over snapshot rows.
+ */
+public interface ArticleSink {
+
+    void upsert(ArticleDoc doc);
+
+    void delete(long id);
+
+    /** Called once after the snapshot has been fully delivered. */
+    default void snapshotLoaded() {}
+
+    /** Short name for log lines. */
+    String name();
+}
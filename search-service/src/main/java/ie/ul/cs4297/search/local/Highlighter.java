@@ -0,0 +1,45 @@
+package ie.ul.cs4297.search.local;
+
+import java.util.Set;
+
+/**
+ * Builds a highlight fragment the way the Elasticsearch query asks for one: a single window of
+ * about {@code fragmentSize} characters around the first matching term, with every query term
+ * in it wrapped in {@code <em>} tags.
+ */
+final class Highlighter {
+
+    private Highlighter() {}
+
+    /** The fragment, or null if no query term occurs in {@code text}. */
+    static String fragment(String text, Set<String> terms, int fragmentSize) {
+        if (text == null || terms.isEmpty()) return null;
+        int[] first = {-1};
+        Tokenizer.tokenize(text, (t, s, e) -> {
+            if (first[0] < 0 && terms.contains(t)) first[0] = s;
+        });
+        if (first[0] < 0) return null;
+
+        // start a little before the match, on a word boundary, and end on one
+        int start = Math.max(0, first[0] - fragmentSize / 4);
+        if (start > 0) {
+            int sp = text.indexOf(' ', start);
+            start = (sp < 0 || sp >= first[0]) ? first[0] : sp + 1;
+        }
+        int end = Math.min(text.length(), start + fragmentSize);
+        if (end < text.length()) {
+            int sp = text.lastIndexOf(' ', end);
+            if (sp > first[0]) end = sp;
+        }
+
+        String window = text.substring(start, end);
+        StringBuilder out = new StringBuilder(window.length() + 32);
+        int[] pos = {0};
+        Tokenizer.tokenize(window, (t, s, e) -> {
+            if (!terms.contains(t)) return;
+            out.append(window, pos[0], s).append("<em>").append(window, s, e).append("</em>");
+            pos[0] = e;
+        });
+        return out.append(window, pos[0], window.length()).toString().trim();
+    }
+}
@@ -0,0 +1,414 @@
+package ie.ul.cs4297.search.local;
+
+import ie.ul.cs4297.search.feed.ArticleDoc;
+import ie.ul.cs4297.search.util.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded inverted index over articles with BM25 ranking, used when Elasticsearch is
+ * unavailable.
+ *
+ * Every upsert appends a new document number; the old number of an updated or deleted article
+ * is only marked dead and skipped at query time, so postings stay sorted and append-only. Once
+ * a quarter of the documents are dead the index is compacted in place. Like Lucene, collection
+ * statistics (document count, average field length, document frequency) include dead documents
+ * until then.
+ *
+ * Scoring mirrors the Elasticsearch query search-service sends: a {@code multi_match} in
+ * {@code best_fields} mode over {@code title^2} and {@code content}, i.e. the better of twice the
+ * title score and the content score, each a BM25 sum over the query terms (k1 = 1.2, b = 0.75).
+ * A {@code tag:} filter keeps documents carrying any of the given tags.
+ *
+ * Readers share a read lock; updates take the write lock. Score accumulators are borrowed from
+ * a small pool rather than kept per thread: requests run on virtual threads, which are never
+ * reused, so a thread-local would allocate two corpus-sized arrays for every query.
+ */
+public final class LocalIndex {
+
+    /** Position after which to continue: the sort values of the last hit of the previous page. */
+    public record After(float score, long id) {}
+
+    public record Hit(long id, String title, String tags, String url, float score) {}
+
+    public record Result(long total, List<Hit> hits) {}
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_BOOST = 2f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> titleTerms = new HashMap<>();
+    private final Map<String, Postings> contentTerms = new HashMap<>();
+    private final Map<String, Postings> tagTerms = new HashMap<>();
+    private final LongIntMap docOf = new LongIntMap(1024, -1);
+    private final BitSet dead = new BitSet();
+    // scoring is CPU-bound, so more accumulators than cores would only sit idle
+    private final ArrayBlockingQueue<Scratch> scratch =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    // per document number
+    private long[] ids = new long[1024];
+    private String[] titles = new String[1024];
+    private String[] tags = new String[1024];
+    private String[] urls = new String[1024];
+    private int[] titleLen = new int[1024];
+    private int[] contentLen = new int[1024];
+
+    private int maxDoc;
+    private int deadCount;
+    private long titleLenSum;
+    private long contentLenSum;
+
+    public void upsert(ArticleDoc doc) {
+        Map<String, int[]> titleFreqs = freqs(doc.title());
+        Map<String, int[]> contentFreqs = freqs(doc.content());
+        lock.writeLock().lock();
+        try {
+            kill(docOf.get(doc.id()));
+            int d = maxDoc++;
+            grow(d + 1);
+            ids[d] = doc.id();
+            titles[d] = doc.title();
+            tags[d] = doc.tags();
+            urls[d] = doc.sourceUrl();
+            titleLen[d] = addPostings(titleTerms, titleFreqs, d);
+            contentLen[d] = addPostings(contentTerms, contentFreqs, d);
+            titleLenSum += titleLen[d];
+            contentLenSum += contentLen[d];
+            for (String tag : new LinkedHashSet<>(Arrays.asList(doc.tagList()))) {
+                tagTerms.computeIfAbsent(tag, k -> new Postings()).add(d, 1);
+            }
+            docOf.put(doc.id(), d);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long id) {
+        lock.writeLock().lock();
+        try {
+            kill(docOf.remove(id));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live articles. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return maxDoc - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            for (Postings p : titleTerms.values()) postings += p.size;
+            for (Postings p : contentTerms.values()) postings += p.size;
+            return Map.of(
+                    "articles", maxDoc - deadCount,
+                    "deadDocs", deadCount,
+                    "titleTerms", titleTerms.size(),
+                    "contentTerms", contentTerms.size(),
+                    "tags", tagTerms.size(),
+                    "postings", postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of results for {@code text}, best first (score descending, then id ascending).
+     * With {@code after} the page starts behind that position and {@code from} counts from there.
+     * Blank text matches every document that passes the tag filter, in id order.
+     */
+    public Result search(String text, List<String> tagFilter, int from, int size, After after) {
+        List<String> terms = Tokenizer.terms(text);
+        int k = Math.max(0, from) + Math.max(1, size);
+        lock.readLock().lock();
+        try {
+            BitSet allowed = tagFilter.isEmpty() ? null : allowed(tagFilter);
+            TopDocs top = new TopDocs(k);
+            long total = terms.isEmpty()
+                    ? matchAll(allowed, after, top)
+                    : score(terms, allowed, after, top);
+
+            int[] order = top.sorted();
+            List<Hit> hits = new ArrayList<>(Math.max(0, order.length - from));
+            for (int i = Math.max(0, from); i < order.length; i++) {
+                int d = order[i];
+                hits.add(new Hit(ids[d], titles[d], tags[d], urls[d], top.scoreOf(i)));
+            }
+            return new Result(total, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- query side ----------
+
+    private long matchAll(BitSet allowed, After after, TopDocs top) {
+        long total = 0;
+        for (int d = dead.nextClearBit(0); d < maxDoc; d = dead.nextClearBit(d + 1)) {
+            if (allowed != null && !allowed.get(d)) continue;
+            total++;
+            if (after == null || isAfter(0f, ids[d], after)) top.offer(d, 0f, ids[d]);
+        }
+        return total;
+    }
+
+    private long score(List<String> terms, BitSet allowed, After after, TopDocs top) {
+        Scratch s = scratch.poll();
+        if (s == null) s = new Scratch();
+        s.ensure(maxDoc);
+        float avgTitle = maxDoc == 0 ? 1 : Math.max(1f, (float) titleLenSum / maxDoc);
+        float avgContent = maxDoc == 0 ? 1 : Math.max(1f, (float) contentLenSum / maxDoc);
+        try {
+            for (String term : terms) {
+                accumulate(titleTerms.get(term), titleLen, avgTitle, s.title, s);
+                accumulate(contentTerms.get(term), contentLen, avgContent, s.content, s);
+            }
+            long total = 0;
+            for (int i = 0; i < s.touchedCount; i++) {
+                int d = s.touched[i];
+                if (dead.get(d) || (allowed != null && !allowed.get(d))) continue;
+                total++;
+                float score = Math.max(TITLE_BOOST * s.title[d], s.content[d]);
+                if (after == null || isAfter(score, ids[d], after)) top.offer(d, score, ids[d]);
+            }
+            return total;
+        } finally {
+            s.reset();
+            scratch.offer(s);   // dropped if the pool is already full
+        }
+    }
+
+    private void accumulate(Postings p, int[] fieldLen, float avgLen, float[] acc, Scratch s) {
+        if (p == null) return;
+        float idf = (float) Math.log(1 + (maxDoc - p.size + 0.5) / (p.size + 0.5));
+        for (int i = 0; i < p.size; i++) {
+            int d = p.docs[i];
+            float tf = p.freqs[i];
+            float norm = K1 * (1 - B + B * fieldLen[d] / avgLen);
+            if (s.title[d] == 0 && s.content[d] == 0) s.touched(d);
+            acc[d] += idf * tf / (tf + norm);
+        }
+    }
+
+    private BitSet allowed(List<String> tagFilter) {
+        BitSet allowed = new BitSet(maxDoc);
+        for (String tag : tagFilter) {
+            Postings p = tagTerms.get(tag);
+            if (p == null) continue;
+            for (int i = 0; i < p.size; i++) allowed.set(p.docs[i]);
+        }
+        return allowed;
+    }
+
+    private static boolean isAfter(float score, long id, After after) {
+        return score < after.score() || (score == after.score() && id > after.id());
+    }
+
+    // ---------- write side ----------
+
+    private static Map<String, int[]> freqs(String text) {
+        Map<String, int[]> freqs = new HashMap<>();
+        Tokenizer.tokenize(text, (t, s, e) -> freqs.computeIfAbsent(t, k -> new int[1])[0]++);
+        return freqs;
+    }
+
+    /** Returns the field length in terms. */
+    private static int addPostings(Map<String, Postings> field, Map<String, int[]> freqs, int doc) {
+        int len = 0;
+        for (Map.Entry<String, int[]> e : freqs.entrySet()) {
+            field.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue()[0]);
+            len += e.getValue()[0];
+        }
+        return len;
+    }
+
+    private void kill(int d) {
+        if (d < 0 || dead.get(d)) return;
+        dead.set(d);
+        deadCount++;
+        titles[d] = tags[d] = urls[d] = null;
+    }
+
+    private void compactIfSparse() {
+        if (deadCount > 1024 && deadCount * 4 > maxDoc) compact();
+    }
+
+    /** Drop dead documents: renumber the live ones and rewrite every postings list. */
+    private void compact() {
+        long start = System.currentTimeMillis();
+        int[] newDoc = new int[maxDoc];
+        int live = 0;
+        titleLenSum = contentLenSum = 0;
+        for (int d = 0; d < maxDoc; d++) {
+            if (dead.get(d)) {
+                newDoc[d] = -1;
+                continue;
+            }
+            newDoc[d] = live;
+            ids[live] = ids[d];
+            titles[live] = titles[d];
+            tags[live] = tags[d];
+            urls[live] = urls[d];
+            titleLen[live] = titleLen[d];
+            contentLen[live] = contentLen[d];
+            titleLenSum += titleLen[d];
+            contentLenSum += contentLen[d];
+            live++;
+        }
+        Arrays.fill(titles, live, maxDoc, null);
+        Arrays.fill(tags, live, maxDoc, null);
+        Arrays.fill(urls, live, maxDoc, null);
+        titleTerms.values().removeIf(p -> !p.remap(newDoc));
+        contentTerms.values().removeIf(p -> !p.remap(newDoc));
+        tagTerms.values().removeIf(p -> !p.remap(newDoc));
+        docOf.clear();
+        for (int d = 0; d < live; d++) docOf.put(ids[d], d);
+
+        int removed = maxDoc - live;
+        maxDoc = live;
+        dead.clear();
+        deadCount = 0;
+        System.out.println("[Local] compacted index: dropped " + removed + " dead docs, "
+                + live + " live, in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void grow(int n) {
+        if (n <= ids.length) return;
+        int cap = Math.max(n, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, cap);
+        titles = Arrays.copyOf(titles, cap);
+        tags = Arrays.copyOf(tags, cap);
+        urls = Arrays.copyOf(urls, cap);
+        titleLen = Arrays.copyOf(titleLen, cap);
+        contentLen = Arrays.copyOf(contentLen, cap);
+    }
+
+    /** Pooled score accumulators; only the touched slots are cleared after each query. */
+    private static final class Scratch {
+        float[] title = new float[0];
+        float[] content = new float[0];
+        int[] touched = new int[256];
+        int touchedCount;
+
+        void ensure(int n) {
+            if (title.length < n) {
+                title = new float[n + (n >> 2)];
+                content = new float[title.length];
+            }
+        }
+
+        void touched(int d) {
+            if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+            touched[touchedCount++] = d;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                title[touched[i]] = 0;
+                content[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /** Bounded min-heap of the best k documents; the root is the current worst. */
+    private static final class TopDocs {
+        final int k;
+        final int[] docs;
+        final float[] scores;
+        final long[] keys;
+        int size;
+
+        TopDocs(int k) {
+            this.k = k;
+            this.docs = new int[k];
+            this.scores = new float[k];
+            this.keys = new long[k];
+        }
+
+        void offer(int doc, float score, long id) {
+            if (size < k) {
+                docs[size] = doc;
+                scores[size] = score;
+                keys[size] = id;
+                up(size++);
+            } else if (worse(0, score, id)) {
+                docs[0] = doc;
+                scores[0] = score;
+                keys[0] = id;
+                down(0);
+            }
+        }
+
+        /** Drains the heap; returns documents best first, with their scores left in {@link #scoreOf}. */
+        int[] sorted() {
+            int n = size;
+            int[] out = new int[n];
+            float[] outScores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                out[i] = docs[0];
+                outScores[i] = scores[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                keys[0] = keys[size];
+                down(0);
+            }
+            System.arraycopy(outScores, 0, scores, 0, n);
+            return out;
+        }
+
+        float scoreOf(int rank) { return scores[rank]; }
+
+        /** True if entry i ranks below (score, id). */
+        private boolean worse(int i, float score, long id) {
+            return scores[i] < score || (scores[i] == score && keys[i] > id);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(i, scores[parent], keys[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, m = i;
+                if (l < size && worse(l, scores[m], keys[m])) m = l;
+                if (r < size && worse(r, scores[m], keys[m])) m = r;
+                if (m == i) return;
+                swap(i, m);
+                i = m;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int d = docs[a]; docs[a] = docs[b]; docs[b] = d;
+            float s = scores[a]; scores[a] = scores[b]; scores[b] = s;
+            long k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ie.ul.cs4297.search.local;
+
+import ie.ul.cs4297.search.SearchCursor;
+import ie.ul.cs4297.search.SearchHit;
+import ie.ul.cs4297.search.SearchPage;
+import ie.ul.cs4297.search.SearchQuery;
+import ie.ul.cs4297.search.feed.ArticleDoc;
+import ie.ul.cs4297.search.feed.ArticleSink;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serves {@link SearchPage}s from the embedded {@link LocalIndex}: the degraded mode of
+ * {@code /api/search} while Elasticsearch is unreachable, and the ranked MySQL baseline.
+ *
+ * The index keeps titles, tags and URLs but not article bodies, so content for highlights and
+ * {@code include_content} is read from MySQL by primary key for the page being returned. If
+ * MySQL is down as well, hits come back without highlights.
+ */
+@Service
+public class LocalSearchService implements ArticleSink {
+
+    private static final int FRAGMENT_SIZE = 120;
+
+    private final LocalIndex index = new LocalIndex();
+    private final JdbcTemplate jdbc;
+    private volatile boolean ready;
+
+    public LocalSearchService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** True once the MySQL snapshot has been indexed; before that results would be partial. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Same contract as the Elasticsearch search: {@code from} is ignored when a cursor is given. */
+    public SearchPage search(SearchQuery q, int from, int size, String cursor, boolean includeContent) {
+        LocalIndex.After after = cursor == null ? null
+                : new LocalIndex.After(SearchCursor.score(cursor), SearchCursor.id(cursor));
+        LocalIndex.Result result = index.search(q.text(), q.tags(), cursor == null ? from : 0, size, after);
+
+        Set<String> terms = new HashSet<>(Tokenizer.terms(q.text()));
+        Map<Long, String> contents = (terms.isEmpty() && !includeContent) ? Map.of() : contents(result.hits());
+        List<SearchHit> hits = new ArrayList<>(result.hits().size());
+        for (LocalIndex.Hit h : result.hits()) {
+            String content = contents.get(h.id());
+            String highlight = Highlighter.fragment(content, terms, FRAGMENT_SIZE);
+            if (highlight == null) highlight = Highlighter.fragment(h.title(), terms, FRAGMENT_SIZE);
+            hits.add(new SearchHit(h.id(), h.title(), highlight, h.tags(), h.url(), includeContent ? content : null));
+        }
+
+        // a short page is the last one
+        LocalIndex.Hit last = result.hits().isEmpty() ? null : result.hits().get(result.hits().size() - 1);
+        String next = (last == null || result.hits().size() < size) ? null : SearchCursor.encode(last.score(), last.id());
+        return new SearchPage(result.total(), hits, next);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new HashMap<>(index.stats());
+        m.put("ready", ready);
+        return m;
+    }
+
+    @Override
+    public void upsert(ArticleDoc doc) {
+        index.upsert(doc);
+    }
+
+    @Override
+    public void delete(long id) {
+        index.delete(id);
+    }
+
+    @Override
+    public void snapshotLoaded() {
+        ready = true;
+        System.out.println("[Local] search index ready: " + index.stats());
+    }
+
+    @Override
+    public String name() {
+        return "local-search";
+    }
+
+    private Map<Long, String> contents(List<LocalIndex.Hit> hits) {
+        if (hits.isEmpty()) return Map.of();
+        try {
+            Object[] ids = hits.stream().map(LocalIndex.Hit::id).toArray();
+            String in = String.join(",", Collections.nCopies(ids.length, "?"));
+            Map<Long, String> out = new HashMap<>();
+            jdbc.query("SELECT id, content FROM articles WHERE id IN (" + in + ")",
+                    rs -> { out.put(rs.getLong(1), rs.getString(2)); }, ids);
+            return out;
+        } catch (Exception e) {
+            System.err.println("[Local] content lookup failed, returning hits without highlights: " + e.getMessage());
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ie.ul.cs4297.search.local;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term in one field, as parallel primitive arrays in ascending
+ * document order, with the term's frequency in each.
+ */
+final class Postings {
+
+    int[] docs = new int[2];
+    short[] freqs = new short[2];
+    int size;
+
+    void add(int doc, int freq) {
+        if (size == docs.length) {
+            int cap = size + (size >> 1) + 1;
+            docs = Arrays.copyOf(docs, cap);
+            freqs = Arrays.copyOf(freqs, cap);
+        }
+        docs[size] = doc;
+        freqs[size] = (short) Math.min(freq, Short.MAX_VALUE);
+        size++;
+    }
+
+    /** Drop documents whose new number is -1 and renumber the rest; returns false if none are left. */
+    boolean remap(int[] newDoc) {
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            int d = newDoc[docs[r]];
+            if (d < 0) continue;
+            docs[w] = d;
+            freqs[w] = freqs[r];
+            w++;
+        }
+        size = w;
+        if (docs.length > 2 * w + 2) {
+            docs = Arrays.copyOf(docs, w);
+            freqs = Arrays.copyOf(freqs, w);
+        }
+        return w > 0;
+    }
+}
@@ -0,0 +1,55 @@
+package ie.ul.cs4297.search.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lower-cased terms, close to Elasticsearch's {@code standard} analyzer: runs
+ * of letters and digits, with an apostrophe kept when it sits between two letters ("it's"), and
+ * no stop words. Keeping the two analyses alike means the local index ranks the same documents
+ * for the same query, give or take tokenizer corner cases.
+ */
+final class Tokenizer {
+
+    static final int MAX_TOKEN = 255;
+
+    /** Receives each term with its character offsets in the source text. */
+    @FunctionalInterface
+    interface TermSink {
+        void term(String term, int start, int end);
+    }
+
+    private Tokenizer() {}
+
+    static void tokenize(String text, TermSink sink) {
+        if (text == null) return;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i == n) break;
+            int start = i;
+            while (i < n) {
+                char c = text.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    i++;
+                } else if ((c == '\'' || c == '’') && i + 1 < n && i > start
+                        && Character.isLetter(text.charAt(i - 1)) && Character.isLetter(text.charAt(i + 1))) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (i - start <= MAX_TOKEN) {
+                sink.term(text.substring(start, i).replace('’', '\'').toLowerCase(Locale.ROOT), start, i);
+            }
+        }
+    }
+
+    static List<String> terms(String text) {
+        List<String> out = new ArrayList<>();
+        tokenize(text, (t, s, e) -> out.add(t));
+        return out;
+    }
+}
@@ -0,0 +1,33 @@
+package ie.ul.cs4297.search.suggest;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin
+public class SuggestController {
+
+    private final SuggestService suggest;
+
+    public SuggestController(SuggestService suggest) {
+        this.suggest = suggest;
+    }
+
+    // --- Typeahead: answered from memory, never touches Elasticsearch ---
+    @GetMapping(value = "/api/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<SuggestTrie.Suggestion> suggest(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        if (q == null || q.isBlank()) return List.of();
+        return suggest.suggest(q, Math.max(1, size));
+    }
+
+    @GetMapping(value = "/api/suggest/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return suggest.stats();
+    }
+}
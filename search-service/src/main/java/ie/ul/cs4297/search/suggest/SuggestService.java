@@ -0,0 +1,118 @@
+package ie.ul.cs4297.search.suggest;
+
+import ie.ul.cs4297.search.feed.ArticleDoc;
+import ie.ul.cs4297.search.feed.ArticleSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Typeahead over article titles and tags.
+ *
+ * The service keeps the title and tags of every article, fed by {@link ie.ul.cs4297.search.feed.ArticleFeed}.
+ * Changes only mark the index dirty; a background thread rebuilds the {@link SuggestTrie} at most
+ * once per rebuild interval and publishes it with a single reference swap, so lookups never lock
+ * and always see a complete trie. A title's weight is the number of articles carrying it, a tag's
+ * the number of articles tagged with it.
+ */
+@Service
+public class SuggestService implements ArticleSink {
+
+    private record Entry(String title, String[] tags) {}
+
+    private final Map<Long, Entry> articles = new ConcurrentHashMap<>();
+    private final AtomicReference<SuggestTrie> trie = new AtomicReference<>(SuggestTrie.empty());
+    private final int topK;
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "suggest-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean dirty;
+    private volatile boolean ready;
+
+    public SuggestService(@Value("${app.suggest.top-k:10}") int topK,
+                          @Value("${app.suggest.rebuild-interval:2s}") Duration rebuildInterval) {
+        this.topK = topK;
+        long ms = Math.max(100, rebuildInterval.toMillis());
+        rebuilder.scheduleWithFixedDelay(this::rebuildIfDirty, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    /** Up to {@code limit} completions of {@code prefix}, most common first. */
+    public List<SuggestTrie.Suggestion> suggest(String prefix, int limit) {
+        return trie.get().lookup(prefix, Math.min(limit, topK));
+    }
+
+    public Map<String, Object> stats() {
+        SuggestTrie t = trie.get();
+        return Map.of(
+                "articles", articles.size(),
+                "keys", t.size(),
+                "nodes", t.nodeCount(),
+                "estimatedBytes", t.estimatedBytes(),
+                "ready", ready);
+    }
+
+    @Override
+    public void upsert(ArticleDoc doc) {
+        if (doc.title() == null || doc.title().isBlank()) {
+            delete(doc.id());
+            return;
+        }
+        articles.put(doc.id(), new Entry(doc.title(), doc.tagList()));
+        dirty = true;
+    }
+
+    @Override
+    public void delete(long id) {
+        if (articles.remove(id) != null) dirty = true;
+    }
+
+    @Override
+    public void snapshotLoaded() {
+        ready = true;
+        rebuilder.execute(this::rebuildIfDirty);
+    }
+
+    @Override
+    public String name() {
+        return "suggest";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void rebuildIfDirty() {
+        // the first build waits for the snapshot; a partial trie would rank by a partial corpus
+        if (!ready || !dirty) return;
+        dirty = false;
+        try {
+            long start = System.currentTimeMillis();
+            List<SuggestTrie.Suggestion> all = new ArrayList<>(articles.size() * 3);
+            for (Entry e : articles.values()) {
+                all.add(new SuggestTrie.Suggestion(e.title(), "title", 1));
+                for (String tag : e.tags()) all.add(new SuggestTrie.Suggestion(tag, "tag", 1));
+            }
+            SuggestTrie next = SuggestTrie.build(all, topK);
+            trie.set(next);
+            System.out.println("[Suggest] rebuilt " + next.size() + " keys (" + next.nodeCount() + " nodes, ~"
+                    + next.estimatedBytes() / 1024 + " KB) in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            dirty = true;
+            System.err.println("[Suggest] rebuild failed: " + e.getMessage());
+        }
+    }
+}
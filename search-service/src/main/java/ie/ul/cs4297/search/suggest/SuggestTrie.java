@@ -0,0 +1,276 @@
+package ie.ul.cs4297.search.suggest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable prefix index for typeahead: a radix trie packed into parallel primitive arrays,
+ * with the top-k completions of every node precomputed at build time.
+ *
+ * Keys are the normalised suggestion texts as UTF-8, sorted and concatenated into one byte
+ * array, so every node covers a contiguous key range and its edge label is just a slice of that
+ * array. Display texts are packed the same way and only turned into Strings for the handful of
+ * results a lookup returns. A lookup walks one node per edge of the prefix and copies the
+ * node's precomputed list, so its cost depends on the prefix length only, never on how many
+ * keys match.
+ */
+public final class SuggestTrie {
+
+    /** A completion: display text, where it came from ("title" or "tag") and how many articles carry it. */
+    public record Suggestion(String text, String kind, int weight) {}
+
+    private static final String[] KINDS = {"title", "tag"};
+
+    private static final SuggestTrie EMPTY = new Builder(new byte[0][], new Suggestion[0], 1).finish();
+
+    // entries, in unsigned byte order of their keys
+    private final byte[] keyBytes;
+    private final byte[] textBytes;
+    private final int[] textOff;           // entry i's text is textBytes[textOff[i] .. textOff[i+1])
+    private final int[] weight;
+    private final byte[] kind;             // index into KINDS
+
+    // radix nodes, preorder; node 0 is the root
+    private final int nodes;
+    private final int[] labelFrom;         // edge label is keyBytes[labelFrom .. labelTo)
+    private final int[] labelTo;
+    private final int[] firstChild;        // -1 for leaves; children are in key order
+    private final int[] nextSibling;       // -1 for the last child
+    private final int[] topStart;          // node's completions are top[topStart .. topStart+topLen)
+    private final byte[] topLen;
+    private final int[] top;               // entry indices, best first
+
+    private SuggestTrie(Builder b) {
+        this.keyBytes = b.keyBytes;
+        this.textBytes = b.textBytes;
+        this.textOff = b.textOff;
+        this.weight = b.weight;
+        this.kind = b.kind;
+        this.nodes = b.nodes;
+        this.labelFrom = Arrays.copyOf(b.labelFrom, b.nodes);
+        this.labelTo = Arrays.copyOf(b.labelTo, b.nodes);
+        this.firstChild = Arrays.copyOf(b.firstChild, b.nodes);
+        this.nextSibling = Arrays.copyOf(b.nextSibling, b.nodes);
+        this.topStart = Arrays.copyOf(b.topStart, b.nodes);
+        this.topLen = Arrays.copyOf(b.topLen, b.nodes);
+        this.top = Arrays.copyOf(b.top, b.topSize);
+    }
+
+    public static SuggestTrie empty() { return EMPTY; }
+
+    /** Lower-cased, whitespace-collapsed form used for keys and prefixes. */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        // hand-rolled: this runs for every title and tag on each rebuild
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                space = false;
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Build a trie keeping the best {@code k} (at most 127) completions per node. Suggestions
+     * whose texts normalise to the same key are merged: weights add up, the heavier one's text
+     * and kind win.
+     */
+    public static SuggestTrie build(Collection<Suggestion> suggestions, int k) {
+        Map<String, Suggestion> merged = new HashMap<>(suggestions.size() * 2);
+        for (Suggestion s : suggestions) {
+            String key = normalize(s.text());
+            if (key.isEmpty()) continue;
+            merged.merge(key, s, (a, b) -> {
+                Suggestion heavier = a.weight() >= b.weight() ? a : b;
+                return new Suggestion(heavier.text(), heavier.kind(), a.weight() + b.weight());
+            });
+        }
+        if (merged.isEmpty()) return EMPTY;
+
+        byte[][] keys = new byte[merged.size()][];
+        Suggestion[] items = new Suggestion[merged.size()];
+        Integer[] order = new Integer[merged.size()];
+        int n = 0;
+        for (Map.Entry<String, Suggestion> e : merged.entrySet()) {
+            keys[n] = e.getKey().getBytes(StandardCharsets.UTF_8);
+            items[n] = e.getValue();
+            order[n] = n;
+            n++;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+        byte[][] sortedKeys = new byte[n][];
+        Suggestion[] sortedItems = new Suggestion[n];
+        for (int i = 0; i < n; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedItems[i] = items[order[i]];
+        }
+
+        Builder b = new Builder(sortedKeys, sortedItems, Math.min(127, Math.max(1, k)));
+        b.node(0, n, 0);
+        return b.finish();
+    }
+
+    /** Up to {@code limit} completions of {@code prefix}, best first. */
+    public List<Suggestion> lookup(String prefix, int limit) {
+        if (nodes == 0) return List.of();
+        byte[] p = normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        int node = 0, pos = 0;
+        while (true) {
+            for (int i = labelFrom[node]; i < labelTo[node]; i++, pos++) {
+                if (pos == p.length) return topOf(node, limit);
+                if (keyBytes[i] != p[pos]) return List.of();
+            }
+            if (pos == p.length) return topOf(node, limit);
+
+            byte c = p[pos];
+            int child = firstChild[node];
+            while (child != -1 && keyBytes[labelFrom[child]] != c) child = nextSibling[child];
+            if (child == -1) return List.of();
+            node = child;
+        }
+    }
+
+    public int size() { return weight.length; }
+
+    public int nodeCount() { return nodes; }
+
+    /** Heap footprint of the packed arrays (array headers ignored). */
+    public long estimatedBytes() {
+        return keyBytes.length + textBytes.length + 4L * textOff.length + 4L * weight.length + kind.length
+                + 4L * (labelFrom.length + labelTo.length + firstChild.length + nextSibling.length + topStart.length)
+                + topLen.length + 4L * top.length;
+    }
+
+    private List<Suggestion> topOf(int node, int limit) {
+        int n = Math.min(limit, topLen[node]);
+        List<Suggestion> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int e = top[topStart[node] + i];
+            String text = new String(textBytes, textOff[e], textOff[e + 1] - textOff[e], StandardCharsets.UTF_8);
+            out.add(new Suggestion(text, KINDS[kind[e]], weight[e]));
+        }
+        return out;
+    }
+
+    /** Recursive construction over the sorted keys; a radix trie has at most 2n nodes. */
+    private static final class Builder {
+        final byte[][] keys;
+        final int k;
+        final int[] keyOff;
+        final byte[] keyBytes, textBytes, kind;
+        final int[] textOff, weight;
+        final int[] labelFrom, labelTo, firstChild, nextSibling, topStart;
+        final byte[] topLen;
+        int[] top;
+        int nodes, topSize;
+
+        Builder(byte[][] keys, Suggestion[] items, int k) {
+            this.keys = keys;
+            this.k = k;
+            int n = keys.length;
+
+            keyOff = new int[n + 1];
+            for (int i = 0; i < n; i++) keyOff[i + 1] = keyOff[i] + keys[i].length;
+            keyBytes = new byte[keyOff[n]];
+            for (int i = 0; i < n; i++) System.arraycopy(keys[i], 0, keyBytes, keyOff[i], keys[i].length);
+
+            byte[][] texts = new byte[n][];
+            textOff = new int[n + 1];
+            weight = new int[n];
+            kind = new byte[n];
+            for (int i = 0; i < n; i++) {
+                texts[i] = items[i].text().getBytes(StandardCharsets.UTF_8);
+                textOff[i + 1] = textOff[i] + texts[i].length;
+                weight[i] = items[i].weight();
+                kind[i] = (byte) ("tag".equals(items[i].kind()) ? 1 : 0);
+            }
+            textBytes = new byte[textOff[n]];
+            for (int i = 0; i < n; i++) System.arraycopy(texts[i], 0, textBytes, textOff[i], texts[i].length);
+
+            int cap = 2 * n + 1;
+            labelFrom = new int[cap];
+            labelTo = new int[cap];
+            firstChild = new int[cap];
+            nextSibling = new int[cap];
+            topStart = new int[cap];
+            topLen = new byte[cap];
+            top = new int[Math.max(16, n)];
+        }
+
+        /** Node for keys[lo, hi), which share their first {@code depth} bytes. */
+        int node(int lo, int hi, int depth) {
+            int n = nodes++;
+            int end = commonPrefixEnd(keys[lo], keys[hi - 1], depth);
+            labelFrom[n] = keyOff[lo] + depth;
+            labelTo[n] = keyOff[lo] + end;
+            firstChild[n] = -1;
+            nextSibling[n] = -1;
+
+            // candidates for this node's top-k: its own key plus every child's top-k
+            int[] cand = new int[8];
+            int m = 0;
+            int i = lo;
+            if (keys[lo].length == end) cand[m++] = i++;
+
+            int prev = -1;
+            while (i < hi) {
+                byte c = keys[i][end];
+                int j = i + 1;
+                while (j < hi && keys[j][end] == c) j++;
+                int child = node(i, j, end);
+                if (prev == -1) firstChild[n] = child;
+                else nextSibling[prev] = child;
+                prev = child;
+                if (m + topLen[child] > cand.length) cand = Arrays.copyOf(cand, Math.max(cand.length * 2, m + topLen[child]));
+                System.arraycopy(top, topStart[child], cand, m, topLen[child]);
+                m += topLen[child];
+                i = j;
+            }
+
+            // partial selection sort: k is small, so k passes beat sorting all candidates
+            int len = Math.min(k, m);
+            for (int t = 0; t < len; t++) {
+                int best = t;
+                for (int u = t + 1; u < m; u++) {
+                    if (better(cand[u], cand[best])) best = u;
+                }
+                int tmp = cand[t]; cand[t] = cand[best]; cand[best] = tmp;
+            }
+            if (topSize + len > top.length) top = Arrays.copyOf(top, Math.max(top.length * 2, topSize + len));
+            topStart[n] = topSize;
+            topLen[n] = (byte) len;
+            System.arraycopy(cand, 0, top, topSize, len);
+            topSize += len;
+            return n;
+        }
+
+        /** Heavier first; equal weights in key order. */
+        private boolean better(int a, int b) {
+            return weight[a] != weight[b] ? weight[a] > weight[b] : a < b;
+        }
+
+        SuggestTrie finish() {
+            return new SuggestTrie(this);
+        }
+
+        private static int commonPrefixEnd(byte[] a, byte[] b, int from) {
+            int max = Math.min(a.length, b.length);
+            int i = from;
+            while (i < max && a[i] == b[i]) i++;
+            return i;
+        }
+    }
+}
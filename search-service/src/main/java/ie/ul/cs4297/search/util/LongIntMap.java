@@ -0,0 +1,115 @@
+package ie.ul.cs4297.search.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> int} hash map without boxing.
+ *
+ * Linear probing over parallel key/value arrays, resized at 50% load. Removal uses backward
+ * shift deletion, so there are no tombstones and lookups never degrade after churn. Not
+ * thread-safe.
+ */
+public final class LongIntMap {
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private final int missing;
+
+    /** {@code missing} is what {@link #get} returns for absent keys. */
+    public LongIntMap(int expected, int missing) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new long[cap];
+        this.values = new int[cap];
+        this.used = new boolean[cap];
+        this.missing = missing;
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return missing;
+    }
+
+    /** Returns the previous value, or the missing value. */
+    public int put(long key, int value) {
+        if (2 * (size + 1) > keys.length) resize(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return missing;
+    }
+
+    /** Returns the removed value, or the missing value. */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (used[i] && keys[i] != key) i = (i + 1) & mask;
+        if (!used[i]) return missing;
+        int old = values[i];
+
+        // shift later entries of the probe run back so no gap breaks it
+        int gap = i;
+        for (int j = (gap + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        size--;
+        return old;
+    }
+
+    public int size() { return size; }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /** Visit every entry, in no particular order. */
+    public void forEach(Visitor v) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) v.accept(keys[i], values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long key, int value);
+    }
+
+    private void resize(int cap) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
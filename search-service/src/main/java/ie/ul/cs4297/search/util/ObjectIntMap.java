@@ -0,0 +1,79 @@
+package ie.ul.cs4297.search.util;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Open-addressing {@code K -> int} hash map without boxing the values.
+ *
+ * Linear probing, resized at 50% load. Entries are never removed: callers use it as a
+ * dictionary from keys to dense ordinals and keep per-ordinal data in their own primitive
+ * arrays. Not thread-safe.
+ */
+public final class ObjectIntMap<K> {
+
+    private Object[] keys;
+    private int[] values;
+    private int size;
+    private final int missing;
+
+    /** {@code missing} is what {@link #get} returns for absent keys. */
+    public ObjectIntMap(int expected, int missing) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new Object[cap];
+        this.values = new int[cap];
+        this.missing = missing;
+    }
+
+    public int get(K key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) return values[i];
+        }
+        return missing;
+    }
+
+    /** Returns the previous value, or the missing value. */
+    public int put(K key, int value) {
+        if (2 * (size + 1) > keys.length) resize(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return missing;
+    }
+
+    public int size() { return size; }
+
+    /** Visit every entry, in no particular order. */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<K> v) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) v.accept((K) keys[i], values[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int cap) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[cap];
+        values = new int[cap];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) put((K) oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(Object key, int mask) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
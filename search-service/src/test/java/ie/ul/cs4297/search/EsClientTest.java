@@ -0,0 +1,104 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Request bodies and {@code _msearch} result mapping, against a stub HTTP server. */
+class EsClientTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private HttpServer server;
+    private volatile String requestBody;
+    private volatile String responseBody;
+    private EsTransport transport;
+    private EsClient es;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        transport = new EsTransport(new SimpleMeterRegistry(), HttpClient.Version.HTTP_1_1, 2,
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(1), Duration.ofSeconds(60));
+        es = new EsClient(transport, "http://127.0.0.1:" + server.getAddress().getPort(), "articles");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transport.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void controlCharactersAreEscaped() throws Exception {
+        String raw = "tab\there \"quoted\" back\\slash\nline\u0001bell";
+        String encoded = EsClient.jsonStr(raw);
+        assertEquals(raw, JSON.readTree(encoded).asText());
+        for (char c : encoded.toCharArray()) assertTrue(c >= 0x20, "raw control character in " + encoded);
+    }
+
+    @Test
+    void badQueryFailsOnlyItsOwnSlot() throws Exception {
+        responseBody = """
+                { "responses": [
+                    { "hits": { "total": { "value": 1 }, "hits": [
+                        { "_source": { "id": 7, "title": "Tabs" }, "sort": [1.5, 7] } ] } },
+                    { "status": 429, "error": { "type": "es_rejected_execution_exception", "reason": "queue full" } }
+                ] }
+                """;
+        List<BatchResult> results = es.msearch(List.of(
+                spec("light\tverse", null),
+                spec("poetry", "not a cursor"),
+                spec("line\nbreak", null)));
+
+        // two searches sent, each as a header line plus a one-line body
+        String[] lines = requestBody.split("\n");
+        assertEquals(4, lines.length);
+        JsonNode first = JSON.readTree(lines[1]);
+        assertEquals("light\tverse", first.at("/query/bool/must/0/multi_match/query").asText());
+        assertEquals("line\nbreak", JSON.readTree(lines[3]).at("/query/bool/must/0/multi_match/query").asText());
+
+        assertEquals(3, results.size());
+        assertEquals(200, results.get(0).status());
+        assertEquals(7, results.get(0).result().hits().get(0).id());
+        assertEquals(400, results.get(1).status());
+        assertNull(results.get(1).result());
+        assertEquals(429, results.get(2).status());
+        assertEquals("queue full", results.get(2).error());
+    }
+
+    @Test
+    void nothingIsSentWhenEveryQueryIsInvalid() {
+        requestBody = null;
+        List<BatchResult> results = es.msearch(List.of(spec("a", "bad"), spec("b", "worse")));
+        assertNull(requestBody);
+        assertEquals(List.of(400, 400), results.stream().map(BatchResult::status).toList());
+    }
+
+    private static SearchSpec spec(String text, String cursor) {
+        return new SearchSpec(new SearchQuery(text, List.of()), 0, 10, cursor, false);
+    }
+}
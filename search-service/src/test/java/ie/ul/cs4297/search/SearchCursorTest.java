@@ -0,0 +1,57 @@
+package ie.ul.cs4297.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTest {
+
+    @Test
+    void scoreAndIdRoundTripExactly() {
+        for (float score : new float[] {0f, 0.1f, 1.2345678f, 7.0000005f, Float.MIN_VALUE, Float.MAX_VALUE}) {
+            String cursor = SearchCursor.encode(score, 9_007_199_254_740_993L);
+            assertEquals(score, SearchCursor.score(cursor));
+            assertEquals(9_007_199_254_740_993L, SearchCursor.id(cursor));
+        }
+    }
+
+    @Test
+    void elasticsearchSortValuesPassThrough() throws Exception {
+        String cursor = SearchCursor.encode(new ObjectMapper().readTree("[2.5, 42]"));
+        assertEquals("[2.5,42]", SearchCursor.decode(cursor));
+        assertEquals(2.5f, SearchCursor.score(cursor));
+        assertEquals(42L, SearchCursor.id(cursor));
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String cursor = SearchCursor.encode(0.99999994f, Long.MAX_VALUE);
+        assertEquals(-1, cursor.indexOf('+'));
+        assertEquals(-1, cursor.indexOf('/'));
+        assertEquals(-1, cursor.indexOf('='));
+    }
+
+    @Test
+    void noSortValuesMeansNoCursor() throws Exception {
+        assertNull(SearchCursor.encode(null));
+        assertNull(SearchCursor.encode(new ObjectMapper().readTree("[]")));
+    }
+
+    @Test
+    void foreignTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(b64("{\"a\":1}")));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(b64("[1]")));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.id(b64("[1, 2")));
+    }
+
+    private static String b64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
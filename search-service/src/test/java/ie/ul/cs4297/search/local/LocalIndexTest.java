@@ -0,0 +1,130 @@
+package ie.ul.cs4297.search.local;
+
+import ie.ul.cs4297.search.feed.ArticleDoc;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalIndexTest {
+
+    @Test
+    void scoresAreBm25BestFieldsWithTitleBoost() {
+        LocalIndex index = new LocalIndex();
+        index.upsert(doc(1, "Dune", "desert planet spice", "sf"));
+        index.upsert(doc(2, "Spice trade", "history of the spice routes spice", "history"));
+        index.upsert(doc(3, "Gardening", "herbs and spice", "home"));
+
+        LocalIndex.Result r = index.search("spice", List.of(), 0, 10, null);
+        assertEquals(3, r.total());
+
+        // 3 docs; title lengths 1,2,1 (avg 4/3); content lengths 3,6,3 (avg 4)
+        float title2 = bm25(1, 2, 4f / 3, 1, 3);
+        float content1 = bm25(1, 3, 4, 3, 3);
+        float content2 = bm25(2, 6, 4, 3, 3);
+        assertEquals(2, r.hits().get(0).id());
+        assertEquals(Math.max(2 * title2, content2), r.hits().get(0).score(), 1e-6);
+        // docs 1 and 3 tie on content alone and fall back to id order
+        assertEquals(1, r.hits().get(1).id());
+        assertEquals(3, r.hits().get(2).id());
+        assertEquals(content1, r.hits().get(1).score(), 1e-6);
+        assertEquals(content1, r.hits().get(2).score(), 1e-6);
+    }
+
+    @Test
+    void tagFilterAndUpdatesAndDeletes() {
+        LocalIndex index = new LocalIndex();
+        index.upsert(doc(1, "Dune", "desert planet", "sf;classic"));
+        index.upsert(doc(2, "Emma", "a novel of manners", "classic"));
+        index.upsert(doc(3, "Neuromancer", "cyberspace", "sf"));
+
+        assertEquals(List.of(1L, 2L), ids(index.search("", List.of("classic"), 0, 10, null)));
+
+        index.upsert(doc(1, "Dune Messiah", "the emperor", "sf"));
+        assertEquals(0, index.search("desert", List.of(), 0, 10, null).total());
+        assertEquals(List.of(1L), ids(index.search("emperor", List.of(), 0, 10, null)));
+        assertEquals(List.of(2L), ids(index.search("", List.of("classic"), 0, 10, null)));
+
+        index.delete(3);
+        assertEquals(0, index.search("cyberspace", List.of(), 0, 10, null).total());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void searchAfterContinuesWhereThePageEnded() {
+        LocalIndex index = new LocalIndex();
+        Random random = new Random(3);
+        for (int id = 1; id <= 200; id++) index.upsert(doc(id, "book " + id, text(random, 20), "t"));
+
+        List<Long> all = ids(index.search("alpha beta", List.of(), 0, 200, null));
+        List<Long> paged = new ArrayList<>();
+        LocalIndex.After after = null;
+        while (true) {
+            LocalIndex.Result page = index.search("alpha beta", List.of(), 0, 7, after);
+            if (page.hits().isEmpty()) break;
+            page.hits().forEach(h -> paged.add(h.id()));
+            LocalIndex.Hit last = page.hits().get(page.hits().size() - 1);
+            after = new LocalIndex.After(last.score(), last.id());
+        }
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void compactionKeepsResultsAndMatchesAFreshIndex() {
+        Random random = new Random(11);
+        List<ArticleDoc> docs = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) docs.add(doc(id, "title " + id % 17, text(random, 30), "t" + id % 5));
+
+        LocalIndex index = new LocalIndex();
+        docs.forEach(index::upsert);
+        // the 1025th delete crosses both thresholds (over 1024 dead, over a quarter of 3000)
+        List<ArticleDoc> live = new ArrayList<>();
+        int deleted = 0;
+        for (ArticleDoc d : docs) {
+            if (d.id() % 2 == 0 && deleted < 1025) {
+                index.delete(d.id());
+                deleted++;
+                assertEquals(deleted == 1025 ? 0 : deleted, index.stats().get("deadDocs"));
+            } else {
+                live.add(d);
+            }
+        }
+        assertEquals(3000 - 1025, index.size());
+
+        LocalIndex fresh = new LocalIndex();
+        live.forEach(fresh::upsert);
+        for (String q : List.of("alpha", "gamma delta", "title 3", "omega")) {
+            LocalIndex.Result a = index.search(q, List.of("t1", "t3"), 0, 50, null);
+            LocalIndex.Result b = fresh.search(q, List.of("t1", "t3"), 0, 50, null);
+            assertEquals(b.total(), a.total(), q);
+            assertEquals(b.hits(), a.hits(), q);
+        }
+        assertTrue(index.search("", List.of(), 0, 3000, null).hits().stream().allMatch(h -> h.id() % 2 == 1 || h.id() > 2050));
+    }
+
+    /** BM25 term weight as the index computes it, for {@code df} of {@code n} documents. */
+    private static float bm25(float tf, int len, float avgLen, int df, int n) {
+        float idf = (float) Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        return idf * tf / (tf + 1.2f * (1 - 0.75f + 0.75f * len / avgLen));
+    }
+
+    private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta", "omega"};
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        return sb.toString();
+    }
+
+    private static ArticleDoc doc(long id, String title, String content, String tags) {
+        return new ArticleDoc(id, title, content, tags, "http://books.example/" + id);
+    }
+
+    private static List<Long> ids(LocalIndex.Result r) {
+        return r.hits().stream().map(LocalIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package ie.ul.cs4297.search.suggest;
+
+import ie.ul.cs4297.search.suggest.SuggestTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestTrieTest {
+
+    @Test
+    void completionsAreHeaviestFirst() {
+        SuggestTrie trie = SuggestTrie.build(List.of(
+                new Suggestion("The Hobbit", "title", 3),
+                new Suggestion("The Help", "title", 7),
+                new Suggestion("thriller", "tag", 5),
+                new Suggestion("Dune", "title", 9)), 10);
+
+        assertEquals(List.of("The Help", "thriller", "The Hobbit"), texts(trie.lookup("th", 10)));
+        assertEquals(List.of("The Help", "The Hobbit"), texts(trie.lookup("the h", 10)));
+        assertEquals(List.of("The Help"), texts(trie.lookup("th", 1)));
+        assertEquals("tag", trie.lookup("thr", 1).get(0).kind());
+        assertEquals(List.of(), trie.lookup("x", 10));
+        assertEquals(List.of(), trie.lookup("the hobbits", 10));
+    }
+
+    @Test
+    void prefixIsNormalisedLikeKeys() {
+        SuggestTrie trie = SuggestTrie.build(List.of(new Suggestion("  War   and Peace ", "title", 1)), 5);
+        assertEquals(List.of("  War   and Peace "), texts(trie.lookup("WAR  AND", 5)));
+        assertEquals("war and peace", SuggestTrie.normalize("  War\tand \n Peace "));
+    }
+
+    @Test
+    void duplicateKeysMergeWeights() {
+        SuggestTrie trie = SuggestTrie.build(List.of(
+                new Suggestion("Fantasy", "tag", 4),
+                new Suggestion("fantasy", "title", 1),
+                new Suggestion("FANTASY ", "tag", 2)), 5);
+
+        assertEquals(1, trie.size());
+        List<Suggestion> hits = trie.lookup("fan", 5);
+        assertEquals(List.of(new Suggestion("Fantasy", "tag", 7)), hits);
+    }
+
+    @Test
+    void multiByteTextsSplitCleanly() {
+        SuggestTrie trie = SuggestTrie.build(List.of(
+                new Suggestion("Éire", "tag", 2),
+                new Suggestion("Élan", "title", 1),
+                new Suggestion("Eire", "title", 3)), 5);
+
+        assertEquals(List.of("Éire", "Élan"), texts(trie.lookup("é", 5)));
+        assertEquals(List.of("Eire"), texts(trie.lookup("e", 5)));
+    }
+
+    @Test
+    void emptyInputGivesEmptyTrie() {
+        SuggestTrie trie = SuggestTrie.build(List.of(new Suggestion("   ", "title", 1)), 5);
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), trie.lookup("", 5));
+        assertEquals(List.of(), SuggestTrie.empty().lookup("a", 5));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomKeys() {
+        Random random = new Random(42);
+        List<Suggestion> all = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder text = new StringBuilder();
+            int len = 1 + random.nextInt(8);
+            for (int j = 0; j < len; j++) text.append((char) ('a' + random.nextInt(4)));
+            all.add(new Suggestion(text.toString(), "title", 1 + random.nextInt(1000)));
+        }
+        int k = 5;
+        SuggestTrie trie = SuggestTrie.build(all, k);
+
+        for (String prefix : List.of("", "a", "ab", "abc", "dd", "cab", "bbbb", "dcbad")) {
+            List<Suggestion> expected = bruteForce(all, prefix, k);
+            assertEquals(expected, trie.lookup(prefix, k), prefix);
+        }
+        assertTrue(trie.nodeCount() <= 2 * trie.size() + 1);
+    }
+
+    /** Merge by text, keep the keys starting with {@code prefix}, heaviest first and ties in key order. */
+    private static List<Suggestion> bruteForce(List<Suggestion> all, String prefix, int k) {
+        Map<String, Integer> weights = new TreeMap<>();
+        for (Suggestion s : all) weights.merge(s.text(), s.weight(), Integer::sum);
+        return weights.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .sorted(Comparator.comparing((Map.Entry<String, Integer> e) -> -e.getValue())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(k)
+                .map(e -> new Suggestion(e.getKey(), "title", e.getValue()))
+                .toList();
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package ie.ul.cs4297.search.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongIntMap map = new LongIntMap(4, -1);
+        assertEquals(-1, map.put(7, 70));
+        assertEquals(70, map.put(7, 71));
+        assertEquals(71, map.get(7));
+        assertEquals(-1, map.get(8));
+        assertEquals(71, map.remove(7));
+        assertEquals(-1, map.remove(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void removalKeepsCollidingKeysReachable() {
+        // multiples of a large power of two share their low bits before mixing; probe runs get long
+        LongIntMap map = new LongIntMap(16, -1);
+        for (int i = 0; i < 200; i++) map.put((long) i << 32, i);
+        for (int i = 0; i < 200; i += 3) assertEquals(i, map.remove((long) i << 32));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 3 == 0 ? -1 : i, map.get((long) i << 32), "key " + i);
+        }
+        assertEquals(200 - 67, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomChurn() {
+        Random random = new Random(7);
+        LongIntMap map = new LongIntMap(8, Integer.MIN_VALUE);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(5_000) - 2_500L;
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? Integer.MIN_VALUE : old, map.remove(key));
+            } else {
+                int value = random.nextInt();
+                Integer old = expected.put(key, value);
+                assertEquals(old == null ? Integer.MIN_VALUE : old, map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        LongIntMap map = new LongIntMap(4, 0);
+        for (long k = 1; k <= 100; k++) map.put(k, (int) k);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(50));
+        map.put(50, 5);
+        assertEquals(5, map.get(50));
+    }
+}